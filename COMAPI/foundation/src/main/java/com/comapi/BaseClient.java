@@ -35,7 +35,10 @@ import androidx.annotation.NonNull;
 import com.comapi.internal.CallbackAdapter;
 import com.comapi.internal.ComapiException;
 import com.comapi.internal.IClient;
+import com.comapi.internal.IMessagingListener;
+import com.comapi.internal.IProfileListener;
 import com.comapi.internal.ListenerListAdapter;
+import com.comapi.internal.Parser;
 import com.comapi.internal.data.DataManager;
 import com.comapi.internal.data.SessionData;
 import com.comapi.internal.lifecycle.LifeCycleController;
@@ -46,9 +49,13 @@ import com.comapi.internal.log.LogManager;
 import com.comapi.internal.log.Logger;
 import com.comapi.internal.network.ComapiResult;
 import com.comapi.internal.network.InternalService;
+import com.comapi.internal.network.NetworkConfig;
+import com.comapi.internal.network.NetworkMetrics;
+import com.comapi.internal.network.ResponseCacheInvalidator;
 import com.comapi.internal.network.SessionController;
 import com.comapi.internal.network.SessionCreateManager;
 import com.comapi.internal.network.api.RestApi;
+import com.comapi.internal.network.sockets.EventExecutors;
 import com.comapi.internal.network.sockets.SocketController;
 import com.comapi.internal.push.PushDataKeys;
 import com.comapi.internal.push.PushManager;
@@ -64,6 +71,7 @@ import java.util.concurrent.atomic.AtomicInteger;
 
 import rx.Observable;
 import rx.functions.Func1;
+import rx.schedulers.Schedulers;
 
 /**
  * ComapiImpl Client implementation for foundation SDK. Handles initialisation and stores all internal objects.
@@ -207,7 +215,8 @@ public abstract class BaseClient<T> implements IClient<T> {
                 }
 
                 //services
-                service = new InternalService(adapter, dataMgr, pushMgr, config.getApiSpaceId(), application.getPackageName(), log);
+                final NetworkConfig networkConfig = config.getNetworkConfig() != null ? config.getNetworkConfig() : new NetworkConfig();
+                service = new InternalService(adapter, dataMgr, pushMgr, config.getApiSpaceId(), application.getPackageName(), networkConfig, log);
                 RestApi restApi = service.initialiseRestClient(logConfig.getNetworkLevel().getValue(), baseURIs);
                 SessionController sessionController = service.initialiseSessionController(
                         new SessionCreateManager(new AtomicBoolean()),
@@ -219,10 +228,29 @@ public abstract class BaseClient<T> implements IClient<T> {
                         listenerListAdapter);
 
                 //sockets
-                SocketController socketController = service.initialiseSocketClient(sessionController, listenerListAdapter, baseURIs);
+                SocketController socketController = service.initialiseSocketClient(sessionController, listenerListAdapter, baseURIs, config.getEventExecutor() != null ? config.getEventExecutor() : EventExecutors.mainThread());
+                ResponseCacheInvalidator cacheInvalidator = service.createResponseCacheInvalidator();
+                if (cacheInvalidator != null) {
+                    listenerListAdapter.addListener((IMessagingListener) cacheInvalidator);
+                    listenerListAdapter.addListener((IProfileListener) cacheInvalidator);
+                }
                 lifecycleListeners.add(socketController.createLifecycleListener());
+                LifecycleListener statusUpdatesListener = service.createLifecycleListener();
+                if (statusUpdatesListener != null) {
+                    lifecycleListeners.add(statusUpdatesListener);
+                }
+                LifecycleListener connectivityListener = service.createConnectivityLifecycleListener();
+                if (connectivityListener != null) {
+                    lifecycleListeners.add(connectivityListener);
+                }
                 initialiseLifecycleObserver(application);
 
+                //create json adapters off the calling thread before the first service calls need them
+                Observable.fromCallable(() -> {
+                    Parser.warmUp();
+                    return true;
+                }).subscribeOn(Schedulers.io()).subscribe(done -> log.d("Json adapters created."), e -> log.f("Error creating json adapters.", e));
+
                 sub.onNext(state.compareAndSet(GlobalState.INITIALISING, GlobalState.INITIALISED));
                 sub.onCompleted();
 
@@ -276,6 +304,15 @@ public abstract class BaseClient<T> implements IClient<T> {
         return state.get() > GlobalState.INITIALISING ? new Session(dataMgr.getSessionDAO().session()) : new Session();
     }
 
+    /**
+     * Gets statistics of the SDK traffic to Comapi services e.g. latency histograms and status codes for each endpoint, retries and session refreshes.
+     *
+     * @return Network metrics, null if the SDK has not been initialised.
+     */
+    public NetworkMetrics getNetworkMetrics() {
+        return service != null ? service.getNetworkMetrics() : null;
+    }
+
     abstract public T service();
 
     /**
@@ -312,8 +349,9 @@ public abstract class BaseClient<T> implements IClient<T> {
 
             final SessionData session = dataMgr.getSessionDAO().session();
             if (session != null) {
-                if (session.getExpiresOn() > System.currentTimeMillis()) {
+                if (session.getExpiresOn() > service.getServerClock().currentTimeMillis()) {
                     state.compareAndSet(GlobalState.INITIALISED, GlobalState.SESSION_ACTIVE);
+                    service.replayOutbox();
                 } else {
                     state.compareAndSet(GlobalState.INITIALISED, GlobalState.SESSION_OFF);
                     return service.reAuthenticate().onErrorReturn(throwable -> {
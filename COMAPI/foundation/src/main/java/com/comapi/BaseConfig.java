@@ -23,10 +23,14 @@ package com.comapi;
 import com.comapi.internal.CallbackAdapter;
 import com.comapi.internal.IStateListener;
 import com.comapi.internal.log.LogConfig;
+import com.comapi.internal.network.NetworkConfig;
+import com.comapi.internal.network.sockets.EventExecutors;
 import com.comapi.internal.push.PushMessageListener;
 import com.comapi.internal.IProfileListener;
 import com.comapi.internal.push.PushTokenProvider;
 
+import java.util.concurrent.Executor;
+
 /**
  * Base class for Comapi configuration and setup.
  *
@@ -49,6 +53,10 @@ public abstract class BaseConfig<T extends BaseConfig<T>> {
 
     protected APIConfig apiConfig;
 
+    protected NetworkConfig networkConfig;
+
+    protected Executor eventExecutor;
+
     private PushTokenProvider pushTokenProvider;
 
     protected boolean fcmEnabled = true;
@@ -116,6 +124,24 @@ public abstract class BaseConfig<T extends BaseConfig<T>> {
         return apiConfig;
     }
 
+    /**
+     * Gets network layer configuration.
+     *
+     * @return Network layer configuration.
+     */
+    NetworkConfig getNetworkConfig() {
+        return networkConfig;
+    }
+
+    /**
+     * Gets executor on which socket events are delivered to the listeners.
+     *
+     * @return Executor for socket events, null to deliver them on the main thread.
+     */
+    Executor getEventExecutor() {
+        return eventExecutor;
+    }
+
     /**
      * Sets method of obtaining push token. Used for mocking FCM.
      *
@@ -200,6 +226,31 @@ public abstract class BaseConfig<T extends BaseConfig<T>> {
         return getThis();
     }
 
+    /**
+     * Sets network layer configuration e.g. how many pending service calls can be executed in parallel after the session is created.
+     *
+     * @param networkConfig Network layer configuration.
+     * @return BaseURIs instance with new value set.
+     */
+    public T networkConfig(NetworkConfig networkConfig) {
+        this.networkConfig = networkConfig;
+        return getThis();
+    }
+
+    /**
+     * Sets executor on which socket events are delivered to the registered listeners. By default events are delivered on the main thread.
+     * Use {@link EventExecutors#sdkThread()}, {@link EventExecutors#from(rx.Scheduler)} or any executor running tasks one at a time
+     * to handle events off the UI thread in the order they arrived, or {@link EventExecutors#sharded(int)} to handle events of different
+     * conversations in parallel while keeping the order within each conversation.
+     *
+     * @param eventExecutor Executor for socket events.
+     * @return BaseURIs instance with new value set.
+     */
+    public T eventExecutor(Executor eventExecutor) {
+        this.eventExecutor = eventExecutor;
+        return getThis();
+    }
+
     /**
      * Sets method of obtaining push token. Used for mocking FCM.
      *
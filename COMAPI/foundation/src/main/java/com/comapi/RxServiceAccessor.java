@@ -20,12 +20,16 @@
 
 package com.comapi;
 
+import android.content.Context;
+import android.net.Uri;
+
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
 
 import com.comapi.internal.network.ComapiResult;
 import com.comapi.internal.network.InternalService;
 import com.comapi.internal.network.ContentData;
+import com.comapi.internal.network.ResumableUpload;
 import com.comapi.internal.network.model.conversation.ConversationCreate;
 import com.comapi.internal.network.model.conversation.ConversationDetails;
 import com.comapi.internal.network.model.conversation.ConversationUpdate;
@@ -41,6 +45,7 @@ import com.comapi.internal.network.model.messaging.MessagesQueryResponse;
 import com.comapi.internal.network.model.messaging.UploadContentResponse;
 import com.comapi.internal.network.model.profile.ComapiProfile;
 
+import java.io.File;
 import java.util.List;
 import java.util.Map;
 
@@ -347,11 +352,42 @@ public class RxServiceAccessor {
          * Upload content data. The response will return full url to the file.
          *
          * @param folder Folder name to put the file in.
-         * @param data   Content data. Accepts files, byte array or base64 encoded string.
+         * @param data   Content data. Accepts files, byte array, base64 encoded string, input stream or content Uri.
          * @return Observable emitting details of uploaded content.
          */
         Observable<ComapiResult<UploadContentResponse>> uploadContent(@NonNull final String folder, @NonNull final ContentData data);
 
+        /**
+         * Creates upload of a content Uri e.g. a large video that can be resumed after a failure or process restart. Progress is persisted and
+         * starting the upload again sends only the missing parts.
+         *
+         * @param context Application context.
+         * @param folder  Folder name to put the file in.
+         * @param uri     Uri of the content to upload.
+         * @param type    Mime type of the data, null to use the type reported by the content provider.
+         * @param name    Content name, null to use the display name reported by the content provider.
+         * @return Resumable upload handle. Call {@link ResumableUpload#start()} to send the content.
+         */
+        ResumableUpload createResumableUpload(@NonNull final Context context, @NonNull final String folder, @NonNull final Uri uri, @Nullable final String type, @Nullable final String name);
+
+        /**
+         * Gets uploads that have not finished before e.g. the process has been killed.
+         *
+         * @param context Application context.
+         * @return Unfinished resumable uploads.
+         */
+        List<ResumableUpload> getResumableUploads(@NonNull final Context context);
+
+        /**
+         * Gets message attachment e.g. content referenced by a message part url from a size bounded disk cache. The attachment is downloaded
+         * to the cache if not cached yet, concurrent requests for the same url share a single download and interrupted downloads are resumed.
+         *
+         * @param context Application context.
+         * @param url     Attachment url.
+         * @return Observable emitting the cached attachment file.
+         */
+        Observable<File> fetchAttachment(@NonNull final Context context, @NonNull final String url);
+
         /**
          * Sets statuses for sets of messages.
          *
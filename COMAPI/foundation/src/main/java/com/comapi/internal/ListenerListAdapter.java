@@ -20,8 +20,12 @@
 
 package com.comapi.internal;
 
+import com.comapi.MessagingListener;
+import com.comapi.ProfileListener;
 import com.comapi.Session;
+import com.comapi.StateListener;
 import com.comapi.internal.log.Logger;
+import com.comapi.internal.network.model.events.Event;
 import com.comapi.internal.network.model.events.ProfileUpdateEvent;
 import com.comapi.internal.network.model.events.SocketStartEvent;
 import com.comapi.internal.network.model.events.conversation.ConversationDeleteEvent;
@@ -35,8 +39,12 @@ import com.comapi.internal.network.model.events.conversation.ParticipantUpdatedE
 import com.comapi.internal.network.model.events.conversation.message.MessageDeliveredEvent;
 import com.comapi.internal.network.model.events.conversation.message.MessageReadEvent;
 import com.comapi.internal.network.model.events.conversation.message.MessageSentEvent;
+import com.comapi.internal.network.sockets.SocketEventDemand;
 import com.comapi.internal.network.sockets.SocketEventListener;
 
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
 import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
@@ -45,7 +53,57 @@ import java.util.concurrent.CopyOnWriteArrayList;
  * @author Marcin Swierczek
  * @since 1.0.0
  */
-public class ListenerListAdapter implements SocketEventListener, ISessionListener {
+public class ListenerListAdapter implements SocketEventListener, ISessionListener, SocketEventDemand {
+
+    /**
+     * {@link IMessagingListener} callbacks and events they receive.
+     */
+    private static final Subscription[] MESSAGING_SUBSCRIPTIONS = new Subscription[]{
+            new Subscription("onMessage", MessageSentEvent.class),
+            new Subscription("onMessageDelivered", MessageDeliveredEvent.class),
+            new Subscription("onMessageRead", MessageReadEvent.class),
+            new Subscription("onParticipantAdded", ParticipantAddedEvent.class),
+            new Subscription("onParticipantUpdated", ParticipantUpdatedEvent.class),
+            new Subscription("onParticipantRemoved", ParticipantRemovedEvent.class),
+            new Subscription("onConversationUpdated", ConversationUpdateEvent.class),
+            new Subscription("onConversationDeleted", ConversationDeleteEvent.class),
+            new Subscription("onConversationUndeleted", ConversationUndeleteEvent.class),
+            new Subscription("onParticipantIsTyping", ParticipantTypingEvent.class),
+            new Subscription("onParticipantTypingOff", ParticipantTypingOffEvent.class)
+    };
+
+    /**
+     * {@link IStateListener} callbacks and events they receive.
+     */
+    private static final Subscription[] STATE_SUBSCRIPTIONS = new Subscription[]{
+            new Subscription("onSocketStart", SocketStartEvent.class)
+    };
+
+    /**
+     * {@link IProfileListener} callbacks and events they receive.
+     */
+    private static final Subscription[] PROFILE_SUBSCRIPTIONS = new Subscription[]{
+            new Subscription("onProfileUpdate", ProfileUpdateEvent.class)
+    };
+
+    /**
+     * {@link SocketEventListener} callbacks of this adapter and events they receive.
+     */
+    private static final Subscription[] ADAPTER_SUBSCRIPTIONS = new Subscription[]{
+            new Subscription("onMessageSent", MessageSentEvent.class),
+            new Subscription("onMessageDelivered", MessageDeliveredEvent.class),
+            new Subscription("onMessageRead", MessageReadEvent.class),
+            new Subscription("onSocketStarted", SocketStartEvent.class),
+            new Subscription("onParticipantAdded", ParticipantAddedEvent.class),
+            new Subscription("onParticipantUpdated", ParticipantUpdatedEvent.class),
+            new Subscription("onParticipantRemoved", ParticipantRemovedEvent.class),
+            new Subscription("onConversationUpdated", ConversationUpdateEvent.class),
+            new Subscription("onConversationDeleted", ConversationDeleteEvent.class),
+            new Subscription("onConversationUndeleted", ConversationUndeleteEvent.class),
+            new Subscription("onProfileUpdate", ProfileUpdateEvent.class),
+            new Subscription("onParticipantIsTyping", ParticipantTypingEvent.class),
+            new Subscription("onParticipantTypingOff", ParticipantTypingOffEvent.class)
+    };
 
     private CopyOnWriteArrayList<IMessagingListener> messagingListeners;
 
@@ -55,6 +113,11 @@ public class ListenerListAdapter implements SocketEventListener, ISessionListene
 
     private Logger log;
 
+    /**
+     * Classes of socket events received by at least one registered listener.
+     */
+    private volatile Set<Class<? extends Event>> subscribedEvents;
+
     /**
      * Recomended constructor.
      *
@@ -65,6 +128,7 @@ public class ListenerListAdapter implements SocketEventListener, ISessionListene
         this.stateListeners = new CopyOnWriteArrayList<>();
         this.profileEventListeners = new CopyOnWriteArrayList<>();
         this.log = log;
+        updateSubscribedEvents();
     }
 
     @Override
@@ -261,6 +325,7 @@ public class ListenerListAdapter implements SocketEventListener, ISessionListene
     public void addListener(IMessagingListener listener) {
         if (listener != null) {
             messagingListeners.add(listener);
+            updateSubscribedEvents();
         }
     }
 
@@ -270,7 +335,9 @@ public class ListenerListAdapter implements SocketEventListener, ISessionListene
      * @param listener {@link IMessagingListener} from external callbacks that should be invoked when internal event was raised.
      */
     public void removeListener(IMessagingListener listener) {
-        messagingListeners.remove(listener);
+        if (messagingListeners.remove(listener)) {
+            updateSubscribedEvents();
+        }
     }
 
     /**
@@ -281,6 +348,7 @@ public class ListenerListAdapter implements SocketEventListener, ISessionListene
     public void addListener(IStateListener listener) {
         if (listener != null) {
             stateListeners.add(listener);
+            updateSubscribedEvents();
         }
     }
 
@@ -290,7 +358,9 @@ public class ListenerListAdapter implements SocketEventListener, ISessionListene
      * @param listener {@link IStateListener} from external callbacks that should be invoked when internal event was raised.
      */
     public void removeListener(IStateListener listener) {
-        stateListeners.remove(listener);
+        if (stateListeners.remove(listener)) {
+            updateSubscribedEvents();
+        }
     }
 
     /**
@@ -301,6 +371,7 @@ public class ListenerListAdapter implements SocketEventListener, ISessionListene
     public void addListener(IProfileListener listener) {
         if (listener != null) {
             profileEventListeners.add(listener);
+            updateSubscribedEvents();
         }
     }
 
@@ -310,7 +381,76 @@ public class ListenerListAdapter implements SocketEventListener, ISessionListene
      * @param listener {@link IProfileListener} from external callbacks that should be invoked when internal event was raised.
      */
     public void removeListener(IProfileListener listener) {
-        profileEventListeners.remove(listener);
+        if (profileEventListeners.remove(listener)) {
+            updateSubscribedEvents();
+        }
+    }
+
+    @Override
+    public boolean hasSubscribers(Class<? extends Event> eventClass) {
+        return subscribedEvents.contains(eventClass);
+    }
+
+    /**
+     * Collects classes of socket events received by registered listeners. Callbacks not overridden from the no-op {@link MessagingListener},
+     * {@link StateListener} and {@link ProfileListener} implementations don't count as subscriptions. Callbacks overridden
+     * in a subclass of this adapter subscribe to their events regardless of registered listeners.
+     */
+    private synchronized void updateSubscribedEvents() {
+        Set<Class<? extends Event>> events = new HashSet<>();
+        addSubscribedEvents(events, this, ListenerListAdapter.class, ADAPTER_SUBSCRIPTIONS);
+        for (IMessagingListener listener : messagingListeners) {
+            addSubscribedEvents(events, listener, MessagingListener.class, MESSAGING_SUBSCRIPTIONS);
+        }
+        for (IStateListener listener : stateListeners) {
+            addSubscribedEvents(events, listener, StateListener.class, STATE_SUBSCRIPTIONS);
+        }
+        for (IProfileListener listener : profileEventListeners) {
+            addSubscribedEvents(events, listener, ProfileListener.class, PROFILE_SUBSCRIPTIONS);
+        }
+        subscribedEvents = Collections.unmodifiableSet(events);
+    }
+
+    /**
+     * Adds classes of events received by a listener.
+     *
+     * @param events        Set of subscribed event classes.
+     * @param listener      Listener to check.
+     * @param noOpClass     Class with no-op implementations of the callbacks.
+     * @param subscriptions Listener callbacks and events they receive.
+     */
+    private static void addSubscribedEvents(Set<Class<? extends Event>> events, Object listener, Class<?> noOpClass, Subscription[] subscriptions) {
+        for (Subscription subscription : subscriptions) {
+            if (!events.contains(subscription.eventClass) && isImplemented(listener, noOpClass, subscription)) {
+                events.add(subscription.eventClass);
+            }
+        }
+    }
+
+    /**
+     * Checks if a listener implements a callback. If the callback can't be resolved e.g. after code obfuscation it is assumed to be implemented.
+     */
+    private static boolean isImplemented(Object listener, Class<?> noOpClass, Subscription subscription) {
+        try {
+            return listener.getClass().getMethod(subscription.method, subscription.eventClass).getDeclaringClass() != noOpClass;
+        } catch (NoSuchMethodException | SecurityException e) {
+            return true;
+        }
+    }
+
+    /**
+     * Listener callback receiving socket events of a given class.
+     */
+    private static class Subscription {
+
+        final String method;
+
+        final Class<? extends Event> eventClass;
+
+        Subscription(String method, Class<? extends Event> eventClass) {
+            this.method = method;
+            this.eventClass = eventClass;
+        }
     }
 
     private void logError(Exception e, String details) {
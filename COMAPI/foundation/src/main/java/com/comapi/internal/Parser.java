@@ -20,24 +20,143 @@
 
 package com.comapi.internal;
 
+import com.comapi.internal.data.OutboxEntry;
+import com.comapi.internal.network.model.conversation.Conversation;
+import com.comapi.internal.network.model.conversation.ConversationCreate;
+import com.comapi.internal.network.model.conversation.ConversationDetails;
+import com.comapi.internal.network.model.conversation.ConversationUpdate;
+import com.comapi.internal.network.model.conversation.Participant;
+import com.comapi.internal.network.model.events.Event;
+import com.comapi.internal.network.model.events.EventTypeAdapterFactory;
+import com.comapi.internal.network.model.messaging.MessageSentResponse;
+import com.comapi.internal.network.model.messaging.MessageStatusUpdate;
+import com.comapi.internal.network.model.messaging.MessageToSend;
+import com.comapi.internal.network.model.messaging.MessagesQueryResponse;
+import com.comapi.internal.network.model.messaging.UploadContentResponse;
+import com.comapi.internal.network.model.session.SessionCreateResponse;
+import com.comapi.internal.network.model.session.SessionStartResponse;
+import com.google.gson.ExclusionStrategy;
+import com.google.gson.FieldAttributes;
 import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
 import com.google.gson.JsonObject;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.annotations.SerializedName;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+import java.util.Map;
 
 /**
- * Json parser wrapper.
+ * Json parser wrapper. Instances use Gson with default settings that additionally decodes socket events to their concrete
+ * classes. The SDK REST client and internal storage share a single thread-safe {@link Gson} configured for Comapi services,
+ * see {@link #getGson()}. Both are created once so type adapters are created once per model class, see {@link #warmUp()}.
  *
  * @author Marcin Swierczek
  * @since 1.0.0
  */
 public class Parser {
 
+    private static final Gson SHARED_GSON = createGson();
+
+    private static final Gson DEFAULT_GSON = new GsonBuilder().registerTypeAdapterFactory(new EventTypeAdapterFactory()).create();
+
+    /**
+     * Model types decoded or encoded on the first service calls after SDK initialisation.
+     */
+    private static final TypeToken<?>[] MODEL_TYPES = new TypeToken<?>[]{
+            TypeToken.get(SessionStartResponse.class),
+            TypeToken.get(SessionCreateResponse.class),
+            new TypeToken<Map<String, Object>>() {
+            },
+            new TypeToken<List<Map<String, Object>>>() {
+            },
+            TypeToken.get(ConversationDetails.class),
+            new TypeToken<List<Conversation>>() {
+            },
+            new TypeToken<List<Participant>>() {
+            },
+            TypeToken.get(ConversationCreate.class),
+            TypeToken.get(ConversationUpdate.class),
+            TypeToken.get(MessagesQueryResponse.class),
+            new TypeToken<List<Event>>() {
+            },
+            TypeToken.get(MessageToSend.class),
+            TypeToken.get(MessageSentResponse.class),
+            new TypeToken<List<MessageStatusUpdate>>() {
+            },
+            TypeToken.get(UploadContentResponse.class),
+            TypeToken.get(OutboxEntry.class)
+    };
+
     private final Gson gson;
 
     /**
      * Recommended constructor.
      */
     public Parser() {
-        gson = new Gson();
+        gson = DEFAULT_GSON;
+    }
+
+    /**
+     * Gets Gson instance shared by the SDK REST client and internal storage.
+     *
+     * @return Shared Gson instance.
+     */
+    public static Gson getGson() {
+        return SHARED_GSON;
+    }
+
+    /**
+     * Creates type adapters for network model classes used straight after SDK initialisation, so the reflective adapter
+     * construction isn't paid by the first service call or socket event. Should be called on a background thread.
+     */
+    public static void warmUp() {
+        warmUp(SHARED_GSON);
+        warmUp(DEFAULT_GSON);
+    }
+
+    /**
+     * Creates type adapters for network model classes.
+     *
+     * @param gson Gson instance to warm up.
+     */
+    static void warmUp(Gson gson) {
+        for (TypeToken<?> type : MODEL_TYPES) {
+            gson.getAdapter(type);
+        }
+        for (Class<? extends Event> eventClass : EventTypeAdapterFactory.getEventClasses()) {
+            gson.getAdapter(eventClass);
+        }
+    }
+
+    /**
+     * Creates Gson configured for Comapi services.
+     *
+     * @return Gson instance.
+     */
+    static Gson createGson() {
+
+        return new GsonBuilder().disableHtmlEscaping().setLenient().
+
+                registerTypeAdapterFactory(new EventTypeAdapterFactory()).
+
+                addSerializationExclusionStrategy(new ExclusionStrategy() {
+                    @Override
+                    public boolean shouldSkipField(FieldAttributes f) {
+                        return f.getAnnotation(SerializedName.class) == null;
+                    }
+
+                    @Override
+                    public boolean shouldSkipClass(Class<?> clazz) {
+                        return false;
+                    }
+                }).create();
     }
 
     /**
@@ -62,6 +181,38 @@ public class Parser {
         return gson.fromJson(obj, clazz);
     }
 
+    /**
+     * Parse json to POJO using a given type adapter.
+     *
+     * @param text    Json string.
+     * @param adapter Type adapter to decode json with.
+     * @return POJO object.
+     */
+    public <T> T parse(String text, TypeAdapter<T> adapter) {
+        if (text == null) {
+            return null;
+        }
+        JsonReader reader = gson.newJsonReader(new StringReader(text));
+        reader.setLenient(true);
+        try {
+            return adapter.read(reader);
+        } catch (EOFException e) {
+            return null;
+        } catch (IllegalStateException | IOException e) {
+            throw new JsonSyntaxException(e);
+        }
+    }
+
+    /**
+     * Creates adapter decoding only events accepted by the filter, other events are decoded as null.
+     *
+     * @param filter Filter for event classes that should be decoded.
+     * @return Event adapter.
+     */
+    public TypeAdapter<Event> createEventAdapter(EventTypeAdapterFactory.EventFilter filter) {
+        return EventTypeAdapterFactory.createFilteringAdapter(gson, filter);
+    }
+
     public String toJson(Object obj) {
         return gson.toJson(obj);
     }
@@ -45,6 +45,12 @@ public class DataManager {
 
     private SessionDAO sessionDAO;
 
+    private OutboxDAO outboxDAO;
+
+    private UploadDAO uploadDAO;
+
+    private UploadIndexDAO uploadIndexDAO;
+
     /**
      * Initialise Session Manager.
      *
@@ -57,6 +63,9 @@ public class DataManager {
         onetimeDeviceSetup(context);
         logInfo(log);
         sessionDAO = new SessionDAO(context, suffix);
+        outboxDAO = new OutboxDAO(context, suffix);
+        uploadDAO = new UploadDAO(context, suffix);
+        uploadIndexDAO = new UploadIndexDAO(context, suffix);
     }
 
     /**
@@ -77,6 +86,33 @@ public class DataManager {
         return sessionDAO;
     }
 
+    /**
+     * Gets the data access object for service calls waiting for the session.
+     *
+     * @return Outbox of service calls waiting for the session.
+     */
+    public OutboxDAO getOutboxDAO() {
+        return outboxDAO;
+    }
+
+    /**
+     * Gets the data access object for progress of resumable content uploads.
+     *
+     * @return Progress of resumable content uploads.
+     */
+    public UploadDAO getUploadDAO() {
+        return uploadDAO;
+    }
+
+    /**
+     * Gets the data access object for the index of uploaded content.
+     *
+     * @return Index of uploaded content.
+     */
+    public UploadIndexDAO getUploadIndexDAO() {
+        return uploadIndexDAO;
+    }
+
     /**
      * Populates basic application/device data if app is running for the first time.
      */
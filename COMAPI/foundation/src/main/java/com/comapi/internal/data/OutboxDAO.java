@@ -0,0 +1,172 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Comapi (trading name of Dynmark International Limited)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons
+ * to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.comapi.internal.data;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import com.comapi.internal.Parser;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Data Access Object for {@link OutboxEntry}. Journals service calls queued while the session is being created,
+ * so they can be replayed when the process has been killed before the session was ready.
+ *
+ * @author Marcin Swierczek
+ * @since 1.8.0
+ */
+public class OutboxDAO extends BaseDAO {
+
+    private static final String fileNamePrefix = "outbox.";
+
+    private static final String KEY_SEQUENCE = "seq";
+
+    private static final String KEY_ENTRY_PREFIX = "e.";
+
+    private static final Object sharedLock = new Object();
+
+    private final Gson gson;
+
+    /**
+     * Recommended constructor.
+     *
+     * @param context Application context.
+     * @param suffix  File name suffix.
+     */
+    OutboxDAO(final Context context, final String suffix) {
+        super(context, fileNamePrefix + suffix);
+        gson = Parser.getGson();
+    }
+
+    /**
+     * Adds service call to the outbox.
+     *
+     * @param entry Service call details.
+     * @return Unique identifier of the saved entry or null if the entry could not be saved.
+     */
+    public String add(final OutboxEntry entry) {
+
+        synchronized (sharedLock) {
+            SharedPreferences sharedPreferences = getSharedPreferences();
+            long seq = sharedPreferences.getLong(KEY_SEQUENCE, 0) + 1;
+            String id = UUID.randomUUID().toString();
+            entry.setId(id).setSeq(seq);
+            SharedPreferences.Editor editor = sharedPreferences.edit();
+            editor.putLong(KEY_SEQUENCE, seq);
+            editor.putString(KEY_ENTRY_PREFIX + id, gson.toJson(entry));
+            boolean isSaved = editor.commit();
+            sharedLock.notifyAll();
+            return isSaved ? id : null;
+        }
+    }
+
+    /**
+     * Marks service call as released from the queue, after that point the request could have reached the server.
+     *
+     * @param id Unique identifier of the entry.
+     * @return True if the entry has been updated.
+     */
+    public boolean markAttempted(final String id) {
+
+        synchronized (sharedLock) {
+            OutboxEntry entry = load(KEY_ENTRY_PREFIX + id);
+            boolean isUpdated = entry != null && putString(KEY_ENTRY_PREFIX + id, gson.toJson(entry.setAttempted(true)));
+            sharedLock.notifyAll();
+            return isUpdated;
+        }
+    }
+
+    /**
+     * Removes service call from the outbox.
+     *
+     * @param id Unique identifier of the entry.
+     * @return True if the entry has been removed.
+     */
+    public boolean remove(final String id) {
+
+        synchronized (sharedLock) {
+            boolean isRemoved = clear(KEY_ENTRY_PREFIX + id);
+            sharedLock.notifyAll();
+            return isRemoved;
+        }
+    }
+
+    /**
+     * Gets all journaled service calls in the order they were added.
+     *
+     * @return Journaled service calls.
+     */
+    public List<OutboxEntry> entries() {
+
+        List<OutboxEntry> entries = new ArrayList<>();
+
+        synchronized (sharedLock) {
+            Map<String, ?> all = getSharedPreferences().getAll();
+            for (String key : all.keySet()) {
+                if (key.startsWith(KEY_ENTRY_PREFIX)) {
+                    OutboxEntry entry = load(key);
+                    if (entry != null) {
+                        entries.add(entry);
+                    } else {
+                        clear(key);
+                    }
+                }
+            }
+            sharedLock.notifyAll();
+        }
+
+        Collections.sort(entries, (lhs, rhs) -> lhs.getSeq() < rhs.getSeq() ? -1 : (lhs.getSeq() == rhs.getSeq() ? 0 : 1));
+        return entries;
+    }
+
+    /**
+     * Removes all journaled service calls.
+     *
+     * @return True if the outbox has been cleared.
+     */
+    public boolean clearOutbox() {
+
+        synchronized (sharedLock) {
+            boolean isCleared = clearAll();
+            sharedLock.notifyAll();
+            return isCleared;
+        }
+    }
+
+    private OutboxEntry load(String key) {
+        String json = getSharedPreferences().getString(key, null);
+        if (json != null) {
+            try {
+                return gson.fromJson(json, OutboxEntry.class);
+            } catch (JsonParseException e) {
+                return null;
+            }
+        }
+        return null;
+    }
+}
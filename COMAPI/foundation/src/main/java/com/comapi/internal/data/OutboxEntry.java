@@ -0,0 +1,156 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Comapi (trading name of Dynmark International Limited)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons
+ * to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.comapi.internal.data;
+
+import com.google.gson.annotations.SerializedName;
+
+/**
+ * Service call journaled in the {@link OutboxDAO} while waiting for the session to be created.
+ *
+ * @author Marcin Swierczek
+ * @since 1.8.0
+ */
+public class OutboxEntry {
+
+    /**
+     * Entry holding a message to send.
+     */
+    public static final String TYPE_MESSAGE = "message";
+
+    /**
+     * Entry holding a list of message status updates.
+     */
+    public static final String TYPE_STATUS = "status";
+
+    @SerializedName("id")
+    private String id;
+
+    @SerializedName("seq")
+    private long seq;
+
+    @SerializedName("type")
+    private String type;
+
+    @SerializedName("profileId")
+    private String profileId;
+
+    @SerializedName("conversationId")
+    private String conversationId;
+
+    @SerializedName("payload")
+    private String payload;
+
+    @SerializedName("attempted")
+    private boolean attempted;
+
+    /**
+     * Recommended constructor.
+     *
+     * @param type           Type of journaled service call. {@link #TYPE_MESSAGE} or {@link #TYPE_STATUS}.
+     * @param profileId      Profile id of the session owner that queued the call.
+     * @param conversationId Conversation unique identifier.
+     * @param payload        Service call body as JSON.
+     */
+    public OutboxEntry(String type, String profileId, String conversationId, String payload) {
+        this.type = type;
+        this.profileId = profileId;
+        this.conversationId = conversationId;
+        this.payload = payload;
+    }
+
+    /**
+     * Gets unique identifier of the entry.
+     *
+     * @return Unique identifier of the entry. Assigned when the entry is added to the outbox.
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Gets entry sequence number in the outbox.
+     *
+     * @return Entry sequence number in the outbox.
+     */
+    public long getSeq() {
+        return seq;
+    }
+
+    /**
+     * Gets type of journaled service call.
+     *
+     * @return Type of journaled service call. {@link #TYPE_MESSAGE} or {@link #TYPE_STATUS}.
+     */
+    public String getType() {
+        return type;
+    }
+
+    /**
+     * Gets profile id of the session owner that queued the call.
+     *
+     * @return Profile id of the session owner that queued the call.
+     */
+    public String getProfileId() {
+        return profileId;
+    }
+
+    /**
+     * Gets conversation unique identifier.
+     *
+     * @return Conversation unique identifier.
+     */
+    public String getConversationId() {
+        return conversationId;
+    }
+
+    /**
+     * Gets service call body.
+     *
+     * @return Service call body as JSON.
+     */
+    public String getPayload() {
+        return payload;
+    }
+
+    /**
+     * True if the service call has been released from the queue and the request could have reached the server.
+     *
+     * @return True if the service call could have reached the server.
+     */
+    public boolean isAttempted() {
+        return attempted;
+    }
+
+    OutboxEntry setId(String id) {
+        this.id = id;
+        return this;
+    }
+
+    OutboxEntry setSeq(long seq) {
+        this.seq = seq;
+        return this;
+    }
+
+    OutboxEntry setAttempted(boolean attempted) {
+        this.attempted = attempted;
+        return this;
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Comapi (trading name of Dynmark International Limited)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons
+ * to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.comapi.internal.data;
+
+import android.content.Context;
+
+import com.comapi.internal.Parser;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Data Access Object for {@link UploadState}. Persists progress of resumable content uploads.
+ *
+ * @author Marcin Swierczek
+ * @since 1.8.0
+ */
+public class UploadDAO extends BaseDAO {
+
+    private static final String fileNamePrefix = "uploads.";
+
+    private static final String KEY_UPLOAD_PREFIX = "u.";
+
+    private static final Object sharedLock = new Object();
+
+    private final Gson gson;
+
+    /**
+     * Recommended constructor.
+     *
+     * @param context Application context.
+     * @param suffix  File name suffix.
+     */
+    UploadDAO(final Context context, final String suffix) {
+        super(context, fileNamePrefix + suffix);
+        gson = Parser.getGson();
+    }
+
+    /**
+     * Saves upload progress.
+     *
+     * @param state Upload progress.
+     * @return True if the state has been saved.
+     */
+    public boolean save(final UploadState state) {
+
+        synchronized (sharedLock) {
+            String json;
+            synchronized (state) {
+                json = gson.toJson(state);
+            }
+            return putString(KEY_UPLOAD_PREFIX + state.getId(), json);
+        }
+    }
+
+    /**
+     * Gets upload progress.
+     *
+     * @param id Unique identifier of the upload.
+     * @return Upload progress or null if there is no such upload.
+     */
+    public UploadState get(final String id) {
+
+        synchronized (sharedLock) {
+            return load(KEY_UPLOAD_PREFIX + id);
+        }
+    }
+
+    /**
+     * Removes finished or discarded upload.
+     *
+     * @param id Unique identifier of the upload.
+     * @return True if the upload has been removed.
+     */
+    public boolean remove(final String id) {
+
+        synchronized (sharedLock) {
+            return clear(KEY_UPLOAD_PREFIX + id);
+        }
+    }
+
+    /**
+     * Gets all unfinished uploads.
+     *
+     * @return Unfinished uploads.
+     */
+    public List<UploadState> uploads() {
+
+        List<UploadState> uploads = new ArrayList<>();
+
+        synchronized (sharedLock) {
+            Map<String, ?> all = getSharedPreferences().getAll();
+            for (String key : all.keySet()) {
+                if (key.startsWith(KEY_UPLOAD_PREFIX)) {
+                    UploadState state = load(key);
+                    if (state != null) {
+                        uploads.add(state);
+                    } else {
+                        clear(key);
+                    }
+                }
+            }
+        }
+
+        return uploads;
+    }
+
+    private UploadState load(String key) {
+        String json = getSharedPreferences().getString(key, null);
+        if (json != null) {
+            try {
+                return gson.fromJson(json, UploadState.class);
+            } catch (JsonParseException e) {
+                return null;
+            }
+        }
+        return null;
+    }
+}
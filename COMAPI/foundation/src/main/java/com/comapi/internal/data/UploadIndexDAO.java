@@ -0,0 +1,139 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Comapi (trading name of Dynmark International Limited)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons
+ * to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.comapi.internal.data;
+
+import android.content.Context;
+
+import com.comapi.internal.Parser;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.annotations.SerializedName;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Data Access Object for the index of uploaded content. Maps a key derived from the content hash to details of content uploaded before,
+ * so that identical content does not have to be sent again until the entry expires.
+ *
+ * @author Marcin Swierczek
+ * @since 1.8.0
+ */
+public class UploadIndexDAO extends BaseDAO {
+
+    private static final String fileNamePrefix = "upload.index.";
+
+    private static final String KEY_ENTRY_PREFIX = "c.";
+
+    private static final Object sharedLock = new Object();
+
+    private final Gson gson;
+
+    /**
+     * Recommended constructor.
+     *
+     * @param context Application context.
+     * @param suffix  File name suffix.
+     */
+    UploadIndexDAO(final Context context, final String suffix) {
+        super(context, fileNamePrefix + suffix);
+        gson = Parser.getGson();
+    }
+
+    /**
+     * Saves details of uploaded content and removes expired entries.
+     *
+     * @param key       Key derived from the content hash.
+     * @param response  Details of uploaded content in JSON format.
+     * @param expiresOn Time in milliseconds since epoch after which the entry is no longer valid.
+     * @return True if the entry has been saved.
+     */
+    public boolean put(final String key, final String response, final long expiresOn) {
+
+        synchronized (sharedLock) {
+            removeExpired(System.currentTimeMillis());
+            return putString(KEY_ENTRY_PREFIX + key, gson.toJson(new Entry(response, expiresOn)));
+        }
+    }
+
+    /**
+     * Gets details of uploaded content.
+     *
+     * @param key Key derived from the content hash.
+     * @return Details of uploaded content in JSON format or null if there is no such entry or it has expired.
+     */
+    public String get(final String key) {
+
+        synchronized (sharedLock) {
+            Entry entry = load(KEY_ENTRY_PREFIX + key);
+            if (entry != null && entry.expiresOn > System.currentTimeMillis()) {
+                return entry.response;
+            } else if (entry != null) {
+                clear(KEY_ENTRY_PREFIX + key);
+            }
+            return null;
+        }
+    }
+
+    private void removeExpired(final long now) {
+
+        List<String> expired = new ArrayList<>();
+        Map<String, ?> all = getSharedPreferences().getAll();
+        for (String key : all.keySet()) {
+            if (key.startsWith(KEY_ENTRY_PREFIX)) {
+                Entry entry = load(key);
+                if (entry == null || entry.expiresOn <= now) {
+                    expired.add(key);
+                }
+            }
+        }
+        for (String key : expired) {
+            clear(key);
+        }
+    }
+
+    private Entry load(String key) {
+        String json = getSharedPreferences().getString(key, null);
+        if (json != null) {
+            try {
+                return gson.fromJson(json, Entry.class);
+            } catch (JsonParseException e) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    private static class Entry {
+
+        @SerializedName("response")
+        private String response;
+
+        @SerializedName("expiresOn")
+        private long expiresOn;
+
+        Entry(String response, long expiresOn) {
+            this.response = response;
+            this.expiresOn = expiresOn;
+        }
+    }
+}
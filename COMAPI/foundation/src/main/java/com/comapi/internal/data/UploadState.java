@@ -0,0 +1,230 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Comapi (trading name of Dynmark International Limited)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons
+ * to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.comapi.internal.data;
+
+import com.google.gson.annotations.SerializedName;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Progress of a resumable content upload persisted in the {@link UploadDAO}, so the upload can continue after a failure or process restart.
+ *
+ * @author Marcin Swierczek
+ * @since 1.8.0
+ */
+public class UploadState {
+
+    @SerializedName("id")
+    private String id;
+
+    @SerializedName("profileId")
+    private String profileId;
+
+    @SerializedName("folder")
+    private String folder;
+
+    @SerializedName("name")
+    private String name;
+
+    @SerializedName("type")
+    private String type;
+
+    @SerializedName("uri")
+    private String uri;
+
+    @SerializedName("length")
+    private long length;
+
+    @SerializedName("partSize")
+    private long partSize;
+
+    @SerializedName("uploadId")
+    private String uploadId;
+
+    @SerializedName("completedParts")
+    private List<Integer> completedParts;
+
+    /**
+     * Recommended constructor.
+     *
+     * @param id        Unique identifier of the upload.
+     * @param profileId Profile id of the session owner that started the upload.
+     * @param folder    Folder name to put the file in.
+     * @param name      Content name.
+     * @param type      Mime type of the content.
+     * @param uri       Uri of the content.
+     * @param length    Size of the content, -1 if not known.
+     * @param partSize  Size of the upload parts.
+     */
+    public UploadState(String id, String profileId, String folder, String name, String type, String uri, long length, long partSize) {
+        this.id = id;
+        this.profileId = profileId;
+        this.folder = folder;
+        this.name = name;
+        this.type = type;
+        this.uri = uri;
+        this.length = length;
+        this.partSize = partSize;
+        this.completedParts = new ArrayList<>();
+    }
+
+    /**
+     * Gets unique identifier of the upload.
+     *
+     * @return Unique identifier of the upload.
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Gets profile id of the session owner that started the upload.
+     *
+     * @return Profile id.
+     */
+    public String getProfileId() {
+        return profileId;
+    }
+
+    /**
+     * Gets folder name to put the file in.
+     *
+     * @return Folder name.
+     */
+    public String getFolder() {
+        return folder;
+    }
+
+    /**
+     * Gets content name.
+     *
+     * @return Content name.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets mime type of the content.
+     *
+     * @return Mime type.
+     */
+    public String getType() {
+        return type;
+    }
+
+    /**
+     * Gets Uri of the content.
+     *
+     * @return Content Uri.
+     */
+    public String getUri() {
+        return uri;
+    }
+
+    /**
+     * Gets size of the content.
+     *
+     * @return Size of the content, -1 if not known.
+     */
+    public long getLength() {
+        return length;
+    }
+
+    /**
+     * Gets size of the upload parts.
+     *
+     * @return Part size in bytes.
+     */
+    public long getPartSize() {
+        return partSize;
+    }
+
+    /**
+     * Gets number of parts the content is split into.
+     *
+     * @return Number of parts, 1 if the content size is not known.
+     */
+    public int getPartCount() {
+        return length > 0 && partSize > 0 ? (int) ((length + partSize - 1) / partSize) : 1;
+    }
+
+    /**
+     * Gets identifier of the multipart upload assigned by the part uploader.
+     *
+     * @return Multipart upload identifier, null if the upload has not been started yet.
+     */
+    public String getUploadId() {
+        return uploadId;
+    }
+
+    /**
+     * Sets identifier of the multipart upload assigned by the part uploader.
+     *
+     * @param uploadId Multipart upload identifier.
+     * @return Upload state.
+     */
+    public UploadState setUploadId(String uploadId) {
+        this.uploadId = uploadId;
+        return this;
+    }
+
+    /**
+     * Checks if the part has already been uploaded.
+     *
+     * @param index Part index.
+     * @return True if the part has been uploaded.
+     */
+    public synchronized boolean isPartCompleted(int index) {
+        return completedParts != null && completedParts.contains(index);
+    }
+
+    /**
+     * Marks part as uploaded.
+     *
+     * @param index Part index.
+     * @return Upload state.
+     */
+    public synchronized UploadState addCompletedPart(int index) {
+        if (completedParts == null) {
+            completedParts = new ArrayList<>();
+        }
+        if (!completedParts.contains(index)) {
+            completedParts.add(index);
+        }
+        return this;
+    }
+
+    /**
+     * Gets number of content bytes in the uploaded parts.
+     *
+     * @return Number of uploaded bytes.
+     */
+    public synchronized long getUploadedBytes() {
+        long uploaded = 0;
+        if (completedParts != null) {
+            for (int index : completedParts) {
+                uploaded += Math.min(partSize, length - index * partSize);
+            }
+        }
+        return uploaded;
+    }
+}
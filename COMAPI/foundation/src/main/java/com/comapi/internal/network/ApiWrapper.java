@@ -24,17 +24,71 @@ import androidx.annotation.NonNull;
 
 import com.comapi.internal.log.Logger;
 
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
 import rx.Observable;
 import rx.schedulers.Schedulers;
 
 /**
- * Basic wrapper around REST API. Adds connectivity check and sets schedulers.
+ * Basic wrapper around REST API. Adds connectivity check, retries and sets schedulers.
  *
  * @author Marcin Swierczek
  * @since 1.0.0
  */
 class ApiWrapper {
 
+    /**
+     * Network layer configuration with retry policies for classes of service calls.
+     */
+    private final NetworkConfig retryConfig;
+
+    /**
+     * Statistics of the SDK traffic.
+     */
+    private final NetworkMetrics metrics;
+
+    /**
+     * Estimate of the services clock from Date headers of the service responses.
+     */
+    private final ServerClock serverClock;
+
+    /**
+     * Default constructor.
+     */
+    ApiWrapper() {
+        this(new NetworkConfig());
+    }
+
+    /**
+     * Recommended constructor.
+     *
+     * @param retryConfig Network layer configuration with retry policies for classes of service calls.
+     */
+    ApiWrapper(@NonNull NetworkConfig retryConfig) {
+        this.retryConfig = retryConfig;
+        this.metrics = new NetworkMetrics();
+        this.serverClock = new ServerClock();
+    }
+
+    /**
+     * Gets statistics of the SDK traffic to Comapi services.
+     *
+     * @return Network metrics.
+     */
+    public NetworkMetrics getNetworkMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Gets clock estimating the Comapi services time from Date headers of the service responses.
+     *
+     * @return Services clock.
+     */
+    public ServerClock getServerClock() {
+        return serverClock;
+    }
+
     /**
      * Sets schedulers for API calls observables.
      *
@@ -56,10 +110,64 @@ class ApiWrapper {
      */
     <E> Observable<E> wrapObservable(@NonNull Observable<E> obs, @NonNull Logger log, final String msg) {
         return obs.subscribeOn(Schedulers.io()).observeOn(Schedulers.io())
-                .doOnNext(r -> log(log, (ComapiResult) r, msg))
+                .doOnNext(r -> log(log, (ComapiResult<?>) r, msg))
                 .doOnError(t -> log(log, t, msg));
     }
 
+    /**
+     * Sets schedulers for API calls observables, adds logging and retries transient failures according to the retry policy of the call class.
+     *
+     * @param obs       Observable to set schedulers for.
+     * @param log       Logger instance.
+     * @param msg       Message with which the log should start with.
+     * @param callClass Class of the service call deciding which failures can be retried.
+     * @param <E>       Class of the service call result.
+     * @return Observable for API call.
+     */
+    <E> Observable<E> wrapObservable(@NonNull Observable<E> obs, @NonNull Logger log, final String msg, @NonNull CallClass callClass) {
+        return wrapObservable(addRetries(obs, log, msg, callClass), log, msg);
+    }
+
+    /**
+     * Resubscribes to the service call observable when the call failed with a transient error. Retries are delayed with exponential backoff
+     * and full jitter or as requested by the 'Retry-After' header.
+     *
+     * @param obs       Service call observable. Each subscription should repeat the call.
+     * @param log       Logger instance.
+     * @param msg       Message with which the log should start with.
+     * @param callClass Class of the service call.
+     * @param <E>       Class of the service call result.
+     * @return Observable for API call.
+     */
+    <E> Observable<E> addRetries(@NonNull final Observable<E> obs, @NonNull final Logger log, final String msg, @NonNull final CallClass callClass) {
+
+        final RetryPolicy policy = retryConfig.getRetryPolicy(callClass);
+        if (policy == null || policy.getMaxRetries() == 0) {
+            return obs;
+        }
+
+        return Observable.defer(() -> {
+            final AtomicInteger attempt = new AtomicInteger();
+            return obs.flatMap(r -> {
+                if (r instanceof ComapiResult) {
+                    long delay = policy.getRetryDelay(attempt.get(), callClass, (ComapiResult<?>) r, serverClock.currentTimeMillis());
+                    if (delay != RetryPolicy.NO_RETRY) {
+                        return Observable.<E>error(new RetryableResultException((ComapiResult<?>) r, delay));
+                    }
+                }
+                return Observable.just(r);
+            }).retryWhen(errors -> errors.flatMap(t -> {
+                long delay = t instanceof RetryableResultException ? ((RetryableResultException) t).delay : policy.getRetryDelay(attempt.get(), callClass, t);
+                if (delay == RetryPolicy.NO_RETRY) {
+                    return Observable.error(t);
+                }
+                metrics.onRetry(callClass);
+                log.w(msg + ". Retry " + attempt.incrementAndGet() + " in " + delay + " ms after " + t.getMessage());
+                return Observable.timer(delay, TimeUnit.MILLISECONDS, Schedulers.io());
+            }));
+        });
+    }
+
     /**
      * Add logging to observable.
      *
@@ -70,7 +178,7 @@ class ApiWrapper {
      * @return Observable for API call.
      */
     <E> Observable<E> addLogging(@NonNull Observable<E> obs, @NonNull Logger log, final String msg) {
-        return obs.doOnNext(r -> log(log, (ComapiResult) r, msg))
+        return obs.doOnNext(r -> log(log, (ComapiResult<?>) r, msg))
                 .doOnError(t -> log(log, t, msg));
     }
 
@@ -81,7 +189,7 @@ class ApiWrapper {
      * @param r   Service call result.
      * @param msg Message with which the log should start with.
      */
-    private void log(@NonNull Logger log, @NonNull ComapiResult r, String msg) {
+    private void log(@NonNull Logger log, @NonNull ComapiResult<?> r, String msg) {
         if (!r.isSuccessful()) {
             log.e(msg + ". Error calling services" + " (" + r.getCode() + "). " + r.getMessage() + ". " + r.getErrorBody());
         }
@@ -97,4 +205,19 @@ class ApiWrapper {
     private void log(@NonNull Logger log, @NonNull Throwable t, String msg) {
         log.f(msg + ". Error calling services. " + t.getLocalizedMessage(), t);
     }
-}
\ No newline at end of file
+
+    /**
+     * Signals service response that should be retried.
+     */
+    private static class RetryableResultException extends Exception {
+
+        private static final long serialVersionUID = 1L;
+
+        private final long delay;
+
+        RetryableResultException(ComapiResult<?> result, long delay) {
+            super("service response (" + result.getCode() + ")");
+            this.delay = delay;
+        }
+    }
+}
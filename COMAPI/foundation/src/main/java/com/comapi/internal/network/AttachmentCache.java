@@ -0,0 +1,291 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Comapi (trading name of Dynmark International Limited)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons
+ * to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.comapi.internal.network;
+
+import androidx.annotation.NonNull;
+
+import com.comapi.internal.log.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import okhttp3.Call;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okio.BufferedSink;
+import okio.ByteString;
+import okio.Okio;
+import rx.Emitter;
+import rx.Observable;
+import rx.functions.Action1;
+import rx.schedulers.Schedulers;
+
+/**
+ * Size bounded disk cache of message attachments e.g. files referenced by message part urls. Attachments are streamed to disk, never
+ * loaded into memory as a whole. Concurrent fetches of the same url share a single download and interrupted downloads are resumed
+ * with a range request. Least recently used files are removed when the cache exceeds its size. Attachment urls are expected to point
+ * to immutable content, cached files are not revalidated.
+ *
+ * @author Marcin Swierczek
+ * @since 1.8.0
+ */
+class AttachmentCache {
+
+    /**
+     * Suffix of files with content of unfinished downloads.
+     */
+    private static final String PARTIAL_SUFFIX = ".part";
+
+    private final File directory;
+
+    private final long maxSize;
+
+    private final OkHttpClient client;
+
+    private final Logger log;
+
+    private final RequestCoalescer coalescer = new RequestCoalescer();
+
+    /**
+     * Sizes of cached files in access order, least recently used first.
+     */
+    private final LinkedHashMap<String, Long> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    private long size;
+
+    private boolean indexed;
+
+    /**
+     * Recommended constructor.
+     *
+     * @param directory Directory for cached files.
+     * @param maxSize   Maximum size of cached files in bytes.
+     * @param client    HTTP client to download attachments.
+     * @param log       Internal logger.
+     */
+    AttachmentCache(@NonNull File directory, long maxSize, @NonNull OkHttpClient client, @NonNull Logger log) {
+        this.directory = directory;
+        this.maxSize = maxSize;
+        this.client = client;
+        this.log = log;
+    }
+
+    /**
+     * Gets attachment file from the cache or downloads it if not cached yet.
+     *
+     * @param url Attachment url.
+     * @return Observable emitting the cached file.
+     */
+    Observable<File> fetch(@NonNull final String url) {
+
+        final String key = ByteString.encodeUtf8(url).sha256().hex();
+
+        return coalescer.coalesce(key, () -> Observable.create((Action1<Emitter<File>>) emitter -> {
+
+            File file = get(key);
+            if (file == null) {
+                try {
+                    file = download(url, key, emitter);
+                } catch (IOException e) {
+                    emitter.onError(e);
+                    return;
+                }
+            } else {
+                log.d("Attachment " + url + " found in the cache.");
+            }
+
+            emitter.onNext(file);
+            emitter.onCompleted();
+
+        }, Emitter.BackpressureMode.LATEST).subscribeOn(Schedulers.io()));
+    }
+
+    /**
+     * Gets current size of cached files.
+     *
+     * @return Size of cached files in bytes.
+     */
+    synchronized long size() {
+        index();
+        return size;
+    }
+
+    /**
+     * Downloads attachment to the cache directory. Download continues from the end of partial content of a previous attempt if the server supports range requests.
+     *
+     * @param url     Attachment url.
+     * @param key     Cache key of the attachment.
+     * @param emitter Emitter cancelling the download when unsubscribed.
+     * @return Cached file.
+     * @throws IOException If the attachment cannot be downloaded or stored.
+     */
+    private File download(@NonNull final String url, @NonNull final String key, @NonNull final Emitter<?> emitter) throws IOException {
+
+        if (!directory.exists() && !directory.mkdirs()) {
+            throw new IOException("Unable to create attachment cache directory " + directory);
+        }
+
+        final File partial = new File(directory, key + PARTIAL_SUFFIX);
+
+        // second attempt starts from scratch if the partial content cannot be resumed
+        for (int attempt = 0; attempt < 2; attempt++) {
+
+            final long offset = partial.exists() ? partial.length() : 0;
+
+            Request.Builder builder = new Request.Builder().url(url).get();
+            if (offset > 0) {
+                builder.header("Range", "bytes=" + offset + "-");
+            }
+
+            final Call call = client.newCall(builder.build());
+            emitter.setCancellation(call::cancel);
+
+            Response response = call.execute();
+            try {
+                if (offset > 0 && (response.code() == 416 || (response.code() == 206 && !isRangeFrom(response.header("Content-Range"), offset)))) {
+                    log.d("Unable to resume download of attachment " + url + ", starting again.");
+                    if (!partial.delete()) {
+                        throw new IOException("Unable to remove partial attachment " + partial);
+                    }
+                    continue;
+                }
+                if (!response.isSuccessful()) {
+                    throw new IOException("Download of attachment " + url + " failed with status " + response.code() + " " + response.message());
+                }
+
+                final boolean append = offset > 0 && response.code() == 206;
+                if (append) {
+                    log.d("Resuming download of attachment " + url + " from " + offset + " bytes.");
+                }
+                BufferedSink sink = Okio.buffer(append ? Okio.appendingSink(partial) : Okio.sink(partial));
+                try {
+                    sink.writeAll(response.body().source());
+                } finally {
+                    sink.close();
+                }
+            } finally {
+                response.close();
+            }
+
+            final File file = new File(directory, key);
+            if (!partial.renameTo(file)) {
+                throw new IOException("Unable to store attachment " + url);
+            }
+            put(key, file.length());
+            return file;
+        }
+
+        throw new IOException("Unable to download attachment " + url);
+    }
+
+    private static boolean isRangeFrom(String contentRange, long offset) {
+        return contentRange != null && contentRange.startsWith("bytes " + offset + "-");
+    }
+
+    private synchronized File get(@NonNull final String key) {
+
+        index();
+        Long length = entries.get(key);
+        if (length == null) {
+            return null;
+        }
+
+        final File file = new File(directory, key);
+        if (!file.exists()) {
+            entries.remove(key);
+            size -= length;
+            return null;
+        }
+
+        //noinspection ResultOfMethodCallIgnored
+        file.setLastModified(System.currentTimeMillis());
+        return file;
+    }
+
+    private synchronized void put(@NonNull final String key, final long length) {
+
+        index();
+        Long previous = entries.put(key, length);
+        if (previous != null) {
+            size -= previous;
+        }
+        size += length;
+        trim(key);
+    }
+
+    /**
+     * Removes least recently used files until the cache fits its size.
+     *
+     * @param keep Key of the file that has just been added and should not be removed.
+     */
+    private void trim(@NonNull final String keep) {
+
+        Iterator<Map.Entry<String, Long>> iterator = entries.entrySet().iterator();
+        while (size > maxSize && iterator.hasNext()) {
+            Map.Entry<String, Long> entry = iterator.next();
+            if (!entry.getKey().equals(keep)) {
+                if (new File(directory, entry.getKey()).delete()) {
+                    log.d("Attachment " + entry.getKey() + " removed from the cache.");
+                }
+                size -= entry.getValue();
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Loads files cached before e.g. by a previous process, least recently used first.
+     */
+    private void index() {
+
+        if (indexed) {
+            return;
+        }
+        indexed = true;
+
+        File[] files = directory.listFiles();
+        if (files == null) {
+            return;
+        }
+
+        Arrays.sort(files, new Comparator<File>() {
+            @Override
+            public int compare(File f1, File f2) {
+                long t1 = f1.lastModified();
+                long t2 = f2.lastModified();
+                return t1 < t2 ? -1 : (t1 == t2 ? 0 : 1);
+            }
+        });
+
+        for (File file : files) {
+            if (file.isFile() && !file.getName().endsWith(PARTIAL_SUFFIX)) {
+                entries.put(file.getName(), file.length());
+                size += file.length();
+            }
+        }
+    }
+}
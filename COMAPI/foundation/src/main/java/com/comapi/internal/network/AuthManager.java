@@ -41,6 +41,15 @@ public abstract class AuthManager {
      */
     protected abstract Observable<SessionData> restartSession();
 
+    /**
+     * Gets access token of the current session.
+     *
+     * @return Access token of the current session or null if unknown.
+     */
+    protected String getAccessToken() {
+        return null;
+    }
+
     /**
      * Adds appropriate prefix to access token.
      *
@@ -0,0 +1,206 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Comapi (trading name of Dynmark International Limited)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons
+ * to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.comapi.internal.network;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import okhttp3.Headers;
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okhttp3.logging.HttpLoggingInterceptor;
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.ForwardingSink;
+import okio.Okio;
+
+/**
+ * Logs service requests and responses with a cap on the number of logged body bytes. Response bodies are peeked rather than buffered,
+ * binary bodies are skipped and only a sample of bodies larger than the cap is logged.
+ *
+ * @author Marcin Swierczek
+ * @since 1.8.0
+ */
+class BodyLoggingInterceptor implements Interceptor {
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private final HttpLoggingInterceptor.Logger logger;
+
+    private final int maxBytes;
+
+    private final int largeBodySampleRate;
+
+    private final AtomicLong largeBodies = new AtomicLong();
+
+    /**
+     * Recommended constructor.
+     *
+     * @param logger              Log output.
+     * @param maxBytes            Maximum number of body bytes logged for a request or response.
+     * @param largeBodySampleRate One in this many bodies larger than the cap is logged.
+     */
+    BodyLoggingInterceptor(HttpLoggingInterceptor.Logger logger, int maxBytes, int largeBodySampleRate) {
+        this.logger = logger;
+        this.maxBytes = Math.max(0, maxBytes);
+        this.largeBodySampleRate = Math.max(1, largeBodySampleRate);
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+
+        final Request request = chain.request();
+        final RequestBody requestBody = request.body();
+
+        logger.log("--> " + request.method() + ' ' + request.url() + (requestBody != null ? " (" + describeLength(requestBody.contentLength()) + " body)" : ""));
+        logHeaders(request.headers());
+        if (requestBody != null) {
+            logRequestBody(requestBody);
+        }
+        logger.log("--> END " + request.method());
+
+        final long start = System.nanoTime();
+        Response response;
+        try {
+            response = chain.proceed(request);
+        } catch (IOException e) {
+            logger.log("<-- HTTP FAILED: " + e);
+            throw e;
+        }
+        final long tookMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        final ResponseBody responseBody = response.body();
+        logger.log("<-- " + response.code() + (response.message().isEmpty() ? "" : ' ' + response.message()) + ' ' + response.request().url()
+                + " (" + tookMs + "ms" + (responseBody != null ? ", " + describeLength(responseBody.contentLength()) + " body" : "") + ')');
+        logHeaders(response.headers());
+        if (responseBody != null) {
+            logResponseBody(response, responseBody);
+        }
+        logger.log("<-- END HTTP");
+
+        return response;
+    }
+
+    /**
+     * Logs request body if it is textual. Body is written to a sink keeping only the first bytes up to the cap.
+     *
+     * @param body Request body.
+     */
+    private void logRequestBody(RequestBody body) throws IOException {
+
+        if (maxBytes == 0 || !isText(body.contentType()) || body instanceof StreamRequestBody || body instanceof ProgressRequestBody) {
+            // streamed content would have to be read twice
+            return;
+        }
+
+        final long length = body.contentLength();
+        if ((length < 0 || length > maxBytes) && skipLargeBody()) {
+            return;
+        }
+
+        final Buffer head = new Buffer();
+        final long[] total = new long[1];
+        BufferedSink sink = Okio.buffer(new ForwardingSink(Okio.blackhole()) {
+            @Override
+            public void write(Buffer source, long byteCount) throws IOException {
+                long keep = Math.min(byteCount, maxBytes - head.size());
+                if (keep > 0) {
+                    source.copyTo(head, 0, keep);
+                }
+                total[0] += byteCount;
+                super.write(source, byteCount);
+            }
+        });
+        body.writeTo(sink);
+        sink.close();
+
+        logBody(head, total[0], charset(body.contentType()));
+    }
+
+    /**
+     * Logs the beginning of a textual response body without consuming it.
+     *
+     * @param response Service response.
+     * @param body     Response body.
+     */
+    private void logResponseBody(Response response, ResponseBody body) throws IOException {
+
+        if (maxBytes == 0 || !isText(body.contentType())) {
+            return;
+        }
+
+        final long length = body.contentLength();
+        if ((length < 0 || length > maxBytes) && skipLargeBody()) {
+            return;
+        }
+
+        ResponseBody peeked = response.peekBody(maxBytes);
+        Buffer head = new Buffer();
+        head.writeAll(peeked.source());
+        logBody(head, length, charset(body.contentType()));
+    }
+
+    private void logBody(Buffer head, long totalLength, Charset charset) {
+        logger.log("");
+        logger.log(head.readString(charset));
+        if (totalLength < 0 || totalLength > maxBytes) {
+            logger.log("... (body truncated to " + maxBytes + " bytes)");
+        }
+    }
+
+    private void logHeaders(Headers headers) {
+        for (int i = 0, count = headers.size(); i < count; i++) {
+            String name = headers.name(i);
+            logger.log(name + ": " + ("Authorization".equalsIgnoreCase(name) ? "<redacted>" : headers.value(i)));
+        }
+    }
+
+    /**
+     * Decides if a body larger than the cap should be skipped according to the sample rate.
+     *
+     * @return True if the body should not be logged.
+     */
+    private boolean skipLargeBody() {
+        return largeBodies.getAndIncrement() % largeBodySampleRate != 0;
+    }
+
+    private static boolean isText(MediaType type) {
+        if (type == null) {
+            return false;
+        }
+        String subtype = type.subtype().toLowerCase();
+        return "text".equals(type.type()) || subtype.contains("json") || subtype.contains("xml") || subtype.equals("x-www-form-urlencoded");
+    }
+
+    private static Charset charset(MediaType type) {
+        Charset charset = type != null ? type.charset(UTF8) : null;
+        return charset != null ? charset : UTF8;
+    }
+
+    private static String describeLength(long length) {
+        return length >= 0 ? length + "-byte" : "unknown-length";
+    }
+}
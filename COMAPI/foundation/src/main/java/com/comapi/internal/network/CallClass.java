@@ -0,0 +1,44 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Comapi (trading name of Dynmark International Limited)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons
+ * to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.comapi.internal.network;
+
+/**
+ * Classes of service calls with the same retry semantics. Decides which failures can be safely retried.
+ *
+ * @author Marcin Swierczek
+ * @since 1.8.0
+ */
+public enum CallClass {
+
+    /**
+     * Read only calls e.g. getting a profile or querying messages. Any transient failure can be retried.
+     */
+    QUERY,
+
+    /**
+     * Idempotent writes e.g. updating a profile or message statuses. Repeating the call has the same effect as making it once.
+     */
+    UPDATE,
+
+    /**
+     * Non idempotent writes e.g. sending a message or uploading content. Retried only if the request has not been processed by the services.
+     */
+    SEND
+}
@@ -0,0 +1,71 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Comapi (trading name of Dynmark International Limited)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons
+ * to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.comapi.internal.network;
+
+/**
+ * Priority classes of service calls. Decides the order in which calls queued during authentication are released and
+ * limits how many low priority requests can use the network at the same time.
+ *
+ * @author Marcin Swierczek
+ * @since 1.8.0
+ */
+public enum CallPriority {
+
+    /**
+     * Calls the user is actively waiting for e.g. sending a message.
+     */
+    INTERACTIVE,
+
+    /**
+     * Default priority.
+     */
+    NORMAL,
+
+    /**
+     * Bulk or long running calls e.g. message status updates or content upload.
+     */
+    BACKGROUND;
+
+    /**
+     * Name of the internal request header carrying call priority. Removed before the request is sent.
+     */
+    public static final String HEADER = "X-Comapi-Priority";
+
+    /**
+     * Request header marking interactive priority call.
+     */
+    public static final String HEADER_INTERACTIVE = HEADER + ": interactive";
+
+    /**
+     * Request header marking background priority call.
+     */
+    public static final String HEADER_BACKGROUND = HEADER + ": background";
+
+    /**
+     * Value of the priority header marking background content upload, limited separately from other background calls.
+     */
+    public static final String UPLOAD = "upload";
+
+    /**
+     * Request header marking background priority content upload.
+     */
+    public static final String HEADER_UPLOAD = HEADER + ": " + UPLOAD;
+}
@@ -0,0 +1,265 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Comapi (trading name of Dynmark International Limited)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons
+ * to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.comapi.internal.network;
+
+import android.content.Context;
+import android.content.IntentFilter;
+import android.net.ConnectivityManager;
+import androidx.annotation.NonNull;
+
+import com.comapi.internal.NetworkConnectivityListener;
+import com.comapi.internal.lifecycle.LifecycleListener;
+import com.comapi.internal.log.Logger;
+import com.comapi.internal.receivers.InternetConnectionReceiver;
+
+import java.io.IOException;
+
+import okhttp3.Interceptor;
+import okhttp3.Response;
+
+/**
+ * Circuit breaker in front of the REST API. Calls fail immediately with {@link CircuitOpenException} instead of waiting for the connect timeout
+ * while the device is offline, or after a number of consecutive failures of the services. Once the breaker has been open for the configured time
+ * (or the network comes back) a single probe request is let through, its success closes the breaker and its failure opens it again.
+ *
+ * @author Marcin Swierczek
+ * @since 1.8.0
+ */
+class CircuitBreaker implements Interceptor, NetworkConnectivityListener {
+
+    enum State {
+
+        /**
+         * Requests are sent.
+         */
+        CLOSED,
+
+        /**
+         * Requests fail immediately.
+         */
+        OPEN,
+
+        /**
+         * A single probe request is sent, other requests fail immediately.
+         */
+        HALF_OPEN
+    }
+
+    private final int failureThreshold;
+
+    private final long openMillis;
+
+    private final Logger log;
+
+    private final Object lock = new Object();
+
+    private State state = State.CLOSED;
+
+    private int failures;
+
+    private long openedAt;
+
+    private boolean isProbeInFlight;
+
+    private volatile boolean isNetworkUnavailable;
+
+    private InternetConnectionReceiver receiver;
+
+    /**
+     * Recommended constructor.
+     *
+     * @param failureThreshold Number of consecutive failures opening the breaker.
+     * @param openMillis       Time in milliseconds after which a probe request is sent to the services.
+     * @param log              Internal logger.
+     */
+    CircuitBreaker(int failureThreshold, long openMillis, @NonNull Logger log) {
+        this.failureThreshold = failureThreshold;
+        this.openMillis = openMillis;
+        this.log = log;
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+
+        if (isNetworkUnavailable) {
+            throw new CircuitOpenException("No network connection.");
+        }
+
+        final boolean isProbe = acquire();
+
+        boolean isRecorded = false;
+        try {
+            final Response response = chain.proceed(chain.request());
+            if (isServiceFailure(response.code())) {
+                onFailure(isProbe);
+            } else {
+                onSuccess(isProbe);
+            }
+            isRecorded = true;
+            return response;
+        } catch (IOException e) {
+            if (!chain.call().isCanceled()) {
+                onFailure(isProbe);
+                isRecorded = true;
+            }
+            throw e;
+        } finally {
+            if (!isRecorded) {
+                // cancelled call or a runtime exception down the chain, let the next request probe the services
+                release(isProbe);
+            }
+        }
+    }
+
+    /**
+     * Gets the breaker state.
+     *
+     * @return Breaker state.
+     */
+    State getState() {
+        synchronized (lock) {
+            return state;
+        }
+    }
+
+    @Override
+    public void onNetworkActive() {
+        isNetworkUnavailable = false;
+        synchronized (lock) {
+            if (state == State.OPEN) {
+                // connectivity change is a good moment to check if the services are back
+                openedAt = 0;
+            }
+        }
+    }
+
+    @Override
+    public void onNetworkUnavailable() {
+        if (!isNetworkUnavailable) {
+            log.i("Network unavailable, service calls will fail immediately.");
+        }
+        isNetworkUnavailable = true;
+    }
+
+    /**
+     * Creates application lifecycle callbacks listening to the network connectivity changes while the app is in the foreground.
+     *
+     * @return Application lifecycle callbacks.
+     */
+    LifecycleListener createLifecycleListener() {
+        return new LifecycleListener() {
+
+            @Override
+            @SuppressWarnings("deprecation")
+            public void onForegrounded(Context context) {
+                synchronized (lock) {
+                    if (receiver == null) {
+                        receiver = new InternetConnectionReceiver(CircuitBreaker.this);
+                        // sticky broadcast delivers the current connectivity state straight away
+                        context.registerReceiver(receiver, new IntentFilter(ConnectivityManager.CONNECTIVITY_ACTION));
+                    }
+                }
+            }
+
+            @Override
+            public void onBackgrounded(Context context) {
+                synchronized (lock) {
+                    if (receiver != null) {
+                        context.unregisterReceiver(receiver);
+                        receiver = null;
+                    }
+                }
+                // connectivity is not tracked in the background, let the calls find out
+                isNetworkUnavailable = false;
+            }
+        };
+    }
+
+    /**
+     * Checks if a request can be sent.
+     *
+     * @return True if the request is a probe deciding about closing the breaker.
+     * @throws CircuitOpenException If the request should fail immediately.
+     */
+    private boolean acquire() throws CircuitOpenException {
+
+        synchronized (lock) {
+            if (state == State.CLOSED) {
+                return false;
+            }
+            if (state == State.OPEN) {
+                if (System.currentTimeMillis() - openedAt < openMillis) {
+                    throw new CircuitOpenException("Services failing, next attempt in " + (openMillis - (System.currentTimeMillis() - openedAt)) + "ms.");
+                }
+                state = State.HALF_OPEN;
+                isProbeInFlight = false;
+            }
+            if (isProbeInFlight) {
+                throw new CircuitOpenException("Services failing, waiting for the probe request.");
+            }
+            isProbeInFlight = true;
+            return true;
+        }
+    }
+
+    private void release(boolean isProbe) {
+        if (isProbe) {
+            synchronized (lock) {
+                isProbeInFlight = false;
+            }
+        }
+    }
+
+    private void onSuccess(boolean isProbe) {
+        synchronized (lock) {
+            failures = 0;
+            if (state != State.CLOSED) {
+                log.i("Services available again, circuit breaker closed.");
+                state = State.CLOSED;
+            }
+            if (isProbe) {
+                isProbeInFlight = false;
+            }
+        }
+    }
+
+    private void onFailure(boolean isProbe) {
+        synchronized (lock) {
+            failures++;
+            if (isProbe || (state == State.CLOSED && failures >= failureThreshold)) {
+                log.w("Services failing, circuit breaker opened for " + openMillis + "ms after " + failures + " failures.");
+                state = State.OPEN;
+                openedAt = System.currentTimeMillis();
+                isProbeInFlight = false;
+            }
+        }
+    }
+
+    /**
+     * Checks if the response status means the services are not able to handle requests.
+     *
+     * @param code Response status code.
+     * @return True for server errors and gateway failures.
+     */
+    private static boolean isServiceFailure(int code) {
+        return code == 500 || code == 502 || code == 503 || code == 504;
+    }
+}
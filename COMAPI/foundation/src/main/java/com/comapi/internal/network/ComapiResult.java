@@ -25,6 +25,7 @@ import androidx.annotation.Nullable;
 import com.comapi.internal.Parser;
 import com.google.gson.annotations.SerializedName;
 
+import java.util.Date;
 import java.util.List;
 
 import retrofit2.Response;
@@ -49,6 +50,10 @@ public class ComapiResult<T> {
 
     private final String message;
 
+    private final String retryAfter;
+
+    private final Date retryAfterDate;
+
     /**
      * Constructor for testing purpose.
      *
@@ -66,6 +71,8 @@ public class ComapiResult<T> {
         this.code = code;
         this.message = message;
         this.errorBody = errorBody;
+        this.retryAfter = null;
+        this.retryAfterDate = null;
     }
 
     /**
@@ -79,6 +86,8 @@ public class ComapiResult<T> {
         isSuccessful = response.isSuccessful();
         code = response.code();
         message = response.message();
+        retryAfter = response.headers().get("Retry-After");
+        retryAfterDate = response.headers().getDate("Retry-After");
         try {
             if (response.errorBody() != null) {
                 errorBody = response.errorBody().string();
@@ -100,6 +109,8 @@ public class ComapiResult<T> {
         code = result.getCode();
         message = result.getMessage();
         errorBody = result.errorBody;
+        retryAfter = result.retryAfter;
+        retryAfterDate = result.retryAfterDate;
         this.result = result.getResult();
     }
 
@@ -117,6 +128,8 @@ public class ComapiResult<T> {
         code = result.getCode();
         message = result.getMessage();
         errorBody = result.errorBody;
+        retryAfter = result.retryAfter;
+        retryAfterDate = result.retryAfterDate;
     }
 
     /**
@@ -163,6 +176,24 @@ public class ComapiResult<T> {
         return errorBody;
     }
 
+    /**
+     * Value of 'Retry-After' header of the service response.
+     *
+     * @return Delay in seconds or HTTP date after which the call can be repeated. Can be null.
+     */
+    public String getRetryAfter() {
+        return retryAfter;
+    }
+
+    /**
+     * Value of 'Retry-After' header of the service response if it was sent as HTTP date.
+     *
+     * @return Date after which the call can be repeated. Null if not available or the delay was sent in seconds.
+     */
+    Date getRetryAfterDate() {
+        return retryAfterDate;
+    }
+
     /**
      * Get API call validation failures details.
      *
@@ -22,12 +22,23 @@ package com.comapi.internal.network;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
+
+import android.content.ContentResolver;
+import android.content.Context;
+import android.database.Cursor;
+import android.net.Uri;
+import android.provider.OpenableColumns;
 import android.text.TextUtils;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
 
 import okhttp3.MediaType;
 import okhttp3.RequestBody;
+import okio.BufferedSink;
+import okio.HashingSink;
+import okio.Okio;
 
 /**
  * Content data object.
@@ -41,6 +52,13 @@ public class ContentData {
 
     private String name;
 
+    private UploadProgressListener progressListener;
+
+    /**
+     * Default mime type of streamed content if the type is not known.
+     */
+    private static final String DEFAULT_TYPE = "application/octet-stream";
+
     /**
      * Create data object to send from a file.
      *
@@ -74,6 +92,59 @@ public class ContentData {
         return new ContentData(RequestBody.create(MediaType.parse(type), data), name);
     }
 
+    /**
+     * Create data object streaming the content from an input stream. The content is never loaded into memory as a whole.
+     * The stream is closed once sent and cannot be sent again e.g. after an authentication challenge, use {@link #create(Context, Uri, String, String)} where possible.
+     *
+     * @param data   Stream with the content to upload.
+     * @param length Size of the content in bytes, -1 if not known.
+     * @param type   Mime type of the data.
+     * @param name   Content name.
+     * @return Data object to send.
+     */
+    public static ContentData create(@NonNull InputStream data, long length, @NonNull String type, @Nullable String name) {
+        return new ContentData(new StreamRequestBody(MediaType.parse(type), data, length < 0 ? -1 : length), name);
+    }
+
+    /**
+     * Create data object streaming the content from a content Uri e.g. gallery image or video. The content is never loaded into memory as a whole
+     * and is opened again whenever the upload has to be repeated. Size, name and mime type are taken from the content provider if available.
+     *
+     * @param context Application context.
+     * @param uri     Uri of the content to upload.
+     * @param type    Mime type of the data, null to use the type reported by the content provider.
+     * @param name    Content name, null to use the display name reported by the content provider.
+     * @return Data object to send.
+     */
+    public static ContentData create(@NonNull Context context, @NonNull Uri uri, @Nullable String type, @Nullable String name) {
+
+        final ContentResolver resolver = context.getContentResolver();
+
+        long length = -1;
+        String displayName = null;
+        Cursor cursor = null;
+        try {
+            cursor = resolver.query(uri, new String[]{OpenableColumns.SIZE, OpenableColumns.DISPLAY_NAME}, null, null, null);
+            if (cursor != null && cursor.moveToFirst()) {
+                if (!cursor.isNull(0)) {
+                    length = cursor.getLong(0);
+                }
+                displayName = cursor.getString(1);
+            }
+        } catch (Exception e) {
+            // size is optional, the content will be sent with chunked encoding
+        } finally {
+            if (cursor != null) {
+                cursor.close();
+            }
+        }
+
+        String mimeType = !TextUtils.isEmpty(type) ? type : resolver.getType(uri);
+        MediaType mediaType = MediaType.parse(!TextUtils.isEmpty(mimeType) ? mimeType : DEFAULT_TYPE);
+
+        return new ContentData(new StreamRequestBody(mediaType, resolver, uri, length), !TextUtils.isEmpty(name) ? name : displayName);
+    }
+
     private ContentData(RequestBody body, String name) {
         this.body = body;
         this.name = name;
@@ -85,7 +156,41 @@ public class ContentData {
      * @return Request body for REST API.
      */
     RequestBody getBody() {
-        return body;
+        return progressListener != null ? new ProgressRequestBody(body, progressListener) : body;
+    }
+
+    /**
+     * Checks if the content can be read more than once e.g. to calculate its hash before the upload.
+     *
+     * @return True if the content can be read again.
+     */
+    boolean isRepeatable() {
+        return !(body instanceof StreamRequestBody) || ((StreamRequestBody) body).isRepeatable();
+    }
+
+    /**
+     * Calculates SHA-256 hash of the content. The content is streamed through the digest and never loaded into memory as a whole.
+     *
+     * @return Hex encoded hash of the content.
+     * @throws IOException If the content cannot be read.
+     */
+    String getContentHash() throws IOException {
+        HashingSink hashingSink = HashingSink.sha256(Okio.blackhole());
+        BufferedSink sink = Okio.buffer(hashingSink);
+        body.writeTo(sink);
+        sink.flush();
+        return hashingSink.hash().hex();
+    }
+
+    /**
+     * Sets listener for the upload progress of this content.
+     *
+     * @param progressListener Listener called on the network thread as the content is being sent.
+     * @return Content data object.
+     */
+    public ContentData setProgressListener(@Nullable UploadProgressListener progressListener) {
+        this.progressListener = progressListener;
+        return this;
     }
 
     /**
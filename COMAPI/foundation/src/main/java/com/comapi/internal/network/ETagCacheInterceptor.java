@@ -0,0 +1,236 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Comapi (trading name of Dynmark International Limited)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons
+ * to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.comapi.internal.network;
+
+import androidx.annotation.NonNull;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+
+/**
+ * In-memory cache of conversation, conversations list, participants and profile responses revalidated with the ETag header.
+ * Cached request is sent with If-None-Match header and when the server responds with 304 Not Modified the cached body is
+ * returned to the caller instead. Entries are invalidated by requests modifying the resource and by socket events, see {@link ResponseCacheInvalidator}.
+ *
+ * @author Marcin Swierczek
+ * @since 1.8.0
+ */
+class ETagCacheInterceptor implements Interceptor {
+
+    /**
+     * Bodies larger than this are not cached.
+     */
+    private static final long MAX_ENTRY_BYTES = 256 * 1024;
+
+    private static final String HEADER_ETAG = "ETag";
+
+    private static final String HEADER_IF_NONE_MATCH = "If-None-Match";
+
+    private static final String CONVERSATIONS = "conversations";
+
+    private final Map<String, Entry> entries;
+
+    /**
+     * Recommended constructor.
+     *
+     * @param maxEntries Maximum number of responses kept in memory.
+     */
+    ETagCacheInterceptor(final int maxEntries) {
+        entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+
+        Request request = chain.request();
+        String resource = resource(request.url().pathSegments());
+
+        if (resource == null) {
+            return chain.proceed(request);
+        }
+
+        if (!"GET".equals(request.method())) {
+            Response response = chain.proceed(request);
+            if (response.isSuccessful()) {
+                invalidate(resource);
+            }
+            return response;
+        }
+
+        final String key = request.url().toString();
+        final Entry cached;
+        synchronized (entries) {
+            cached = entries.get(key);
+        }
+
+        if (cached != null && request.header(HEADER_IF_NONE_MATCH) == null) {
+            request = request.newBuilder().header(HEADER_IF_NONE_MATCH, cached.eTag).build();
+        }
+
+        Response response = chain.proceed(request);
+
+        if (response.code() == HttpURLConnection.HTTP_NOT_MODIFIED && cached != null) {
+            if (response.body() != null) {
+                response.body().close();
+            }
+            return response.newBuilder()
+                    .code(HttpURLConnection.HTTP_OK)
+                    .message("OK")
+                    .header(HEADER_ETAG, cached.eTag)
+                    .body(ResponseBody.create(cached.contentType, cached.body))
+                    .build();
+        }
+
+        String eTag = response.header(HEADER_ETAG);
+        ResponseBody body = response.body();
+        if (response.code() != HttpURLConnection.HTTP_OK || eTag == null || body == null || body.contentLength() > MAX_ENTRY_BYTES) {
+            synchronized (entries) {
+                entries.remove(key);
+            }
+            return response;
+        }
+
+        MediaType contentType = body.contentType();
+        byte[] bytes = body.bytes();
+        synchronized (entries) {
+            if (bytes.length <= MAX_ENTRY_BYTES) {
+                entries.put(key, new Entry(resource, eTag, contentType, bytes));
+            } else {
+                entries.remove(key);
+            }
+        }
+
+        return response.newBuilder().body(ResponseBody.create(contentType, bytes)).build();
+    }
+
+    /**
+     * Removes cached conversation details and participants and all cached conversation lists.
+     *
+     * @param conversationId Conversation unique identifier.
+     */
+    void invalidateConversation(String conversationId) {
+        invalidate(CONVERSATIONS);
+        invalidate(CONVERSATIONS + "/" + conversationId);
+        invalidate(CONVERSATIONS + "/" + conversationId + "/participants");
+    }
+
+    /**
+     * Removes cached profile details.
+     *
+     * @param profileId Profile unique identifier.
+     */
+    void invalidateProfile(String profileId) {
+        invalidate("profiles/" + profileId);
+    }
+
+    /**
+     * Removes all cached responses e.g. when the session changes.
+     */
+    void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    /**
+     * Removes all responses cached for a resource. Modifying a conversation also modifies conversation lists.
+     *
+     * @param resource Resource path relative to the api space.
+     */
+    private void invalidate(@NonNull String resource) {
+        synchronized (entries) {
+            Iterator<Entry> iterator = entries.values().iterator();
+            while (iterator.hasNext()) {
+                String cached = iterator.next().resource;
+                if (cached.equals(resource) || (resource.startsWith(CONVERSATIONS + "/") && cached.equals(CONVERSATIONS))) {
+                    iterator.remove();
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the cacheable resource the request path points to.
+     *
+     * @param segments Request URL path segments.
+     * @return Resource path relative to the api space or null if responses for this path are not cached.
+     */
+    private static String resource(List<String> segments) {
+
+        int i = segments.indexOf("apispaces");
+        if (i < 0 || segments.size() < i + 3) {
+            return null;
+        }
+
+        List<String> path = segments.subList(i + 2, segments.size());
+        String type = path.get(0);
+
+        if (CONVERSATIONS.equals(type)) {
+            if (path.size() == 1) {
+                return CONVERSATIONS;
+            } else if (path.size() == 2) {
+                return CONVERSATIONS + "/" + path.get(1);
+            } else if (path.size() == 3 && "participants".equals(path.get(2))) {
+                return CONVERSATIONS + "/" + path.get(1) + "/participants";
+            }
+        } else if ("profiles".equals(type) && path.size() == 2) {
+            return "profiles/" + path.get(1);
+        }
+
+        return null;
+    }
+
+    /**
+     * Cached response.
+     */
+    private static class Entry {
+
+        final String resource;
+
+        final String eTag;
+
+        final MediaType contentType;
+
+        final byte[] body;
+
+        Entry(String resource, String eTag, MediaType contentType, byte[] body) {
+            this.resource = resource;
+            this.eTag = eTag;
+            this.contentType = contentType;
+            this.body = body;
+        }
+    }
+}
@@ -0,0 +1,248 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Comapi (trading name of Dynmark International Limited)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons
+ * to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.comapi.internal.network;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Traffic statistics of a single service endpoint e.g. 'GET /apispaces/{id}/conversations/{id}/messages'.
+ *
+ * @author Marcin Swierczek
+ * @since 1.8.0
+ */
+public class EndpointMetrics {
+
+    /**
+     * Upper bounds in milliseconds of the latency histogram buckets. The last histogram bucket counts slower requests.
+     */
+    private static final long[] LATENCY_BUCKETS = {50, 100, 200, 500, 1000, 2000, 5000, 10000};
+
+    private final String endpoint;
+
+    private long requestCount;
+
+    private long failureCount;
+
+    private long requestBytes;
+
+    private long responseBytes;
+
+    private long authChallenges;
+
+    private final long[] latencyHistogram;
+
+    private final Map<Integer, Long> statusCodes;
+
+    /**
+     * Recommended constructor.
+     *
+     * @param endpoint Endpoint template.
+     */
+    EndpointMetrics(String endpoint) {
+        this.endpoint = endpoint;
+        this.latencyHistogram = new long[LATENCY_BUCKETS.length + 1];
+        this.statusCodes = new TreeMap<>();
+    }
+
+    /**
+     * Copy constructor.
+     *
+     * @param metrics Metrics to copy from.
+     */
+    private EndpointMetrics(EndpointMetrics metrics) {
+        this.endpoint = metrics.endpoint;
+        this.requestCount = metrics.requestCount;
+        this.failureCount = metrics.failureCount;
+        this.requestBytes = metrics.requestBytes;
+        this.responseBytes = metrics.responseBytes;
+        this.authChallenges = metrics.authChallenges;
+        this.latencyHistogram = metrics.latencyHistogram.clone();
+        this.statusCodes = new TreeMap<>(metrics.statusCodes);
+    }
+
+    /**
+     * Records service response.
+     *
+     * @param code          Response status code.
+     * @param latencyMillis Time between sending the request and receiving response headers.
+     * @param bytesSent     Size of the request body.
+     */
+    synchronized void onResponse(int code, long latencyMillis, long bytesSent) {
+        requestCount++;
+        requestBytes += bytesSent;
+        Long count = statusCodes.get(code);
+        statusCodes.put(code, count != null ? count + 1 : 1);
+        latencyHistogram[bucket(latencyMillis)]++;
+    }
+
+    /**
+     * Records request that failed without service response.
+     *
+     * @param latencyMillis Time between sending the request and the failure.
+     * @param bytesSent     Size of the request body.
+     */
+    synchronized void onFailure(long latencyMillis, long bytesSent) {
+        requestCount++;
+        failureCount++;
+        requestBytes += bytesSent;
+        latencyHistogram[bucket(latencyMillis)]++;
+    }
+
+    /**
+     * Records response body bytes read by the SDK.
+     *
+     * @param bytes Number of bytes.
+     */
+    synchronized void onResponseBytes(long bytes) {
+        responseBytes += bytes;
+    }
+
+    /**
+     * Records authentication challenge.
+     */
+    synchronized void onAuthChallenge() {
+        authChallenges++;
+    }
+
+    /**
+     * Creates copy of current values.
+     *
+     * @return Metrics snapshot.
+     */
+    synchronized EndpointMetrics copy() {
+        return new EndpointMetrics(this);
+    }
+
+    private static int bucket(long latencyMillis) {
+        for (int i = 0; i < LATENCY_BUCKETS.length; i++) {
+            if (latencyMillis <= LATENCY_BUCKETS[i]) {
+                return i;
+            }
+        }
+        return LATENCY_BUCKETS.length;
+    }
+
+    /**
+     * Gets endpoint template, HTTP method and path with ids replaced by '{id}'.
+     *
+     * @return Endpoint template.
+     */
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    /**
+     * Gets number of requests sent to the endpoint.
+     *
+     * @return Number of requests.
+     */
+    public long getRequestCount() {
+        return requestCount;
+    }
+
+    /**
+     * Gets number of requests that failed without service response e.g. because of a timeout.
+     *
+     * @return Number of failed requests.
+     */
+    public long getFailureCount() {
+        return failureCount;
+    }
+
+    /**
+     * Gets number of request body bytes sent.
+     *
+     * @return Request bytes.
+     */
+    public long getRequestBytes() {
+        return requestBytes;
+    }
+
+    /**
+     * Gets number of response body bytes received.
+     *
+     * @return Response bytes.
+     */
+    public long getResponseBytes() {
+        return responseBytes;
+    }
+
+    /**
+     * Gets number of 401 responses that triggered session refresh.
+     *
+     * @return Number of authentication challenges.
+     */
+    public long getAuthChallenges() {
+        return authChallenges;
+    }
+
+    /**
+     * Gets number of responses for each status code.
+     *
+     * @return Map of status code to number of responses.
+     */
+    public Map<Integer, Long> getStatusCodes() {
+        return new TreeMap<>(statusCodes);
+    }
+
+    /**
+     * Gets upper bounds of the latency histogram buckets.
+     *
+     * @return Bucket upper bounds in milliseconds. Histogram has one more bucket for slower requests.
+     */
+    public static long[] getLatencyBuckets() {
+        return LATENCY_BUCKETS.clone();
+    }
+
+    /**
+     * Gets latency histogram.
+     *
+     * @return Number of requests in each bucket of {@link #getLatencyBuckets()}, the last element counts requests slower than the last bound.
+     */
+    public long[] getLatencyHistogram() {
+        return latencyHistogram.clone();
+    }
+
+    /**
+     * Gets approximate latency percentile.
+     *
+     * @param percentile Percentile between 0 and 100 e.g. 95.
+     * @return Upper bound of the histogram bucket with the percentile, {@link Long#MAX_VALUE} if slower than the last bound, 0 if there are no requests.
+     */
+    public long getLatencyPercentile(double percentile) {
+        long total = 0;
+        for (long count : latencyHistogram) {
+            total += count;
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(total * Math.min(100, Math.max(0, percentile)) / 100));
+        long seen = 0;
+        for (int i = 0; i < LATENCY_BUCKETS.length; i++) {
+            seen += latencyHistogram[i];
+            if (seen >= rank) {
+                return LATENCY_BUCKETS[i];
+            }
+        }
+        return Long.MAX_VALUE;
+    }
+}
@@ -20,6 +20,8 @@
 
 package com.comapi.internal.network;
 
+import android.content.Context;
+import android.net.Uri;
 import android.os.Handler;
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
@@ -39,8 +41,10 @@ import com.comapi.internal.ISessionListener;
 import com.comapi.internal.ListenerListAdapter;
 import com.comapi.internal.data.DataManager;
 import com.comapi.internal.data.SessionData;
+import com.comapi.internal.data.UploadState;
 import com.comapi.internal.helpers.APIHelper;
 import com.comapi.internal.helpers.DeviceHelper;
+import com.comapi.internal.lifecycle.LifecycleListener;
 import com.comapi.internal.log.LogLevel;
 import com.comapi.internal.log.Logger;
 import com.comapi.internal.network.api.ComapiService;
@@ -60,16 +64,26 @@ import com.comapi.internal.network.model.messaging.MessageToSend;
 import com.comapi.internal.network.model.messaging.MessagesQueryResponse;
 import com.comapi.internal.network.model.messaging.UploadContentResponse;
 import com.comapi.internal.network.model.profile.ComapiProfile;
+import com.comapi.internal.network.sockets.EventExecutors;
 import com.comapi.internal.network.sockets.SocketController;
 import com.comapi.internal.push.PushManager;
 
+import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
+import okhttp3.Authenticator;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
 import retrofit2.Response;
 import rx.Observable;
+import rx.schedulers.Schedulers;
 
 /**
  * Manages all service calls checking session state and redirecting to appropriate controllers.
@@ -91,11 +105,41 @@ public class InternalService extends ServiceQueue implements ComapiService, RxCo
 
     private SessionController sessionController;
 
+    private AttachmentCache attachmentCache;
+
     /**
      * App package name.
      */
     private final String packageName;
 
+    /**
+     * Shares results of identical read requests being in flight at the same time.
+     */
+    private final RequestCoalescer coalescer = new RequestCoalescer();
+
+    /**
+     * Batches message status updates, null if batching is disabled.
+     */
+    private final StatusUpdateBatcher statusBatcher;
+
+    /**
+     * Throttles typing events, null if every typing event should be sent.
+     */
+    private final TypingController typingController;
+
+    /**
+     * Revalidates cached conversation, participants and profile responses, null if the cache is disabled.
+     */
+    private final ETagCacheInterceptor responseCache;
+
+    /**
+     * Estimates the services clock from response Date headers.
+     */
+    /**
+     * Fails service calls immediately when offline or when the services keep failing, null if disabled.
+     */
+    private final CircuitBreaker circuitBreaker;
+
     /**
      * Recommended constructor.
      *
@@ -107,10 +151,29 @@ public class InternalService extends ServiceQueue implements ComapiService, RxCo
      * @param log         Internal logger.
      */
     public InternalService(@NonNull CallbackAdapter adapter, @NonNull final DataManager dataMgr, PushManager pushMgr, String apiSpaceId, @NonNull final String packageName, @NonNull final Logger log) {
-        super(apiSpaceId, dataMgr, log);
+        this(adapter, dataMgr, pushMgr, apiSpaceId, packageName, new NetworkConfig(), log);
+    }
+
+    /**
+     * Recommended constructor.
+     *
+     * @param adapter       Observables to callbacks adapter.
+     * @param dataMgr       Internal data storage access.
+     * @param pushMgr       Push messaging manager.
+     * @param apiSpaceId    Comapi API Space.
+     * @param packageName   App package name.
+     * @param networkConfig Network layer configuration.
+     * @param log           Internal logger.
+     */
+    public InternalService(@NonNull CallbackAdapter adapter, @NonNull final DataManager dataMgr, PushManager pushMgr, String apiSpaceId, @NonNull final String packageName, @NonNull final NetworkConfig networkConfig, @NonNull final Logger log) {
+        super(apiSpaceId, dataMgr, networkConfig, log);
         this.adapter = adapter;
         this.pushMgr = pushMgr;
         this.packageName = packageName;
+        this.statusBatcher = networkConfig.getStatusUpdatesWindowMillis() > 0 ? new StatusUpdateBatcher(this::sendMessageStatus, networkConfig.getStatusUpdatesWindowMillis(), networkConfig.getStatusUpdatesBatchSize(), Schedulers.computation(), log) : null;
+        this.typingController = networkConfig.getTypingThrottleMillis() > 0 ? new TypingController(this::sendTyping, networkConfig.getTypingThrottleMillis(), networkConfig.getTypingIdleMillis(), Schedulers.computation(), log) : null;
+        this.responseCache = networkConfig.getResponseCacheSize() > 0 ? new ETagCacheInterceptor(networkConfig.getResponseCacheSize()) : null;
+        this.circuitBreaker = networkConfig.getCircuitBreakerThreshold() > 0 ? new CircuitBreaker(networkConfig.getCircuitBreakerThreshold(), TimeUnit.SECONDS.toMillis(networkConfig.getCircuitBreakerOpenSeconds()), log) : null;
     }
 
     /**
@@ -127,9 +190,15 @@ public class InternalService extends ServiceQueue implements ComapiService, RxCo
             protected Observable<SessionData> restartSession() {
                 return reAuthenticate();
             }
+
+            @Override
+            protected String getAccessToken() {
+                SessionData session = dataMgr.getSessionDAO().session();
+                return session != null ? session.getAccessToken() : null;
+            }
         };
 
-        restClient = new RestClient(new OkHttpAuthenticator(authManager), logLevelNet, baseURIs.getService().toString());
+        restClient = new RestClient(new OkHttpAuthenticator(authManager, getNetworkMetrics()), logLevelNet, baseURIs.getService().toString(), networkConfig, responseCache, getServerClock(), getNetworkMetrics(), circuitBreaker);
         service = restClient.getService();
         setService(service);
         return service;
@@ -156,7 +225,7 @@ public class InternalService extends ServiceQueue implements ComapiService, RxCo
                                                          @NonNull Handler handler,
                                                          boolean fcmEnabled, @NonNull
                                                          final ISessionListener sessionListener) {
-        sessionController = new SessionController(sessionCreateManager, pushMgr, state, dataMgr, auth, restApi, packageName, handler, log, getTaskQueue(), fcmEnabled, sessionListener);
+        sessionController = new SessionController(sessionCreateManager, pushMgr, state, dataMgr, auth, restApi, packageName, handler, log, getTaskQueue(), fcmEnabled, sessionListener, getServerClock(), TimeUnit.SECONDS.toMillis(networkConfig.getTokenRefreshLeadSeconds()));
         return sessionController;
     }
 
@@ -169,7 +238,20 @@ public class InternalService extends ServiceQueue implements ComapiService, RxCo
      * @return Client for managing socket connections.
      */
     public SocketController initialiseSocketClient(@NonNull SessionController sessionController, ListenerListAdapter listener, APIConfig.BaseURIs baseURIs) {
-        SocketController socketController = new SocketController(dataMgr, listener, log, baseURIs.getSocket(), baseURIs.getProxy());
+        return initialiseSocketClient(sessionController, listener, baseURIs, EventExecutors.mainThread());
+    }
+
+    /**
+     * Initialise client for managing socket connections.
+     *
+     * @param sessionController Controller for creating and managing session.
+     * @param listener          Listener for socket events.
+     * @param baseURIs          APIs baseURIs.
+     * @param eventExecutor     Executor on which socket events are delivered to the listener.
+     * @return Client for managing socket connections.
+     */
+    public SocketController initialiseSocketClient(@NonNull SessionController sessionController, ListenerListAdapter listener, APIConfig.BaseURIs baseURIs, @NonNull Executor eventExecutor) {
+        SocketController socketController = new SocketController(dataMgr, listener, log, baseURIs.getSocket(), baseURIs.getProxy(), getServerClock(), eventExecutor);
         sessionController.setSocketController(socketController);
         if (isSessionValid()) {
             socketController.connectSocket();
@@ -177,12 +259,21 @@ public class InternalService extends ServiceQueue implements ComapiService, RxCo
         return socketController;
     }
 
+    /**
+     * Replays service calls journaled in the outbox by a previous process that has been killed before the session was created.
+     */
+    public void replayOutbox() {
+        getTaskQueue().replayOutbox();
+        getTaskQueue().executePending();
+    }
+
     /**
      * Create and start new Comapi session.
      *
      * @return True if session was started.
      */
     public Observable<Session> startSession() {
+        clearResponseCache();
         return wrapObservable(sessionController.startSession().map(Session::new));
     }
 
@@ -201,12 +292,20 @@ public class InternalService extends ServiceQueue implements ComapiService, RxCo
      * @return Observable to end current session.
      */
     public Observable<ComapiResult<Void>> endSession() {
-        if (isSessionValid()) {
-            return wrapObservable(sessionController.endSession().map(mapToComapiResult()));
-        } else {
-            //return Observable.onError(getSessionStateErrorDescription());
-            return Observable.just(null);
-        }
+        return Observable.defer(() -> {
+            if (isSessionValid()) {
+                // send buffered status updates and wait for them while the session is still valid
+                final Observable<ComapiResult<Void>> flushed = statusBatcher != null ? statusBatcher.flushAll().ignoreElements().onErrorResumeNext(Observable.empty()) : Observable.empty();
+                if (typingController != null) {
+                    typingController.reset();
+                }
+                clearResponseCache();
+                return wrapObservable(Observable.concat(flushed, sessionController.endSession().map(mapToComapiResult())));
+            } else {
+                //return Observable.onError(getSessionStateErrorDescription());
+                return Observable.just(null);
+            }
+        });
     }
 
     /**
@@ -264,11 +363,11 @@ public class InternalService extends ServiceQueue implements ComapiService, RxCo
         final String token = getToken();
 
         if (sessionController.isCreatingSession()) {
-            return getTaskQueue().queueGetProfile(profileId);
+            return coalescer.coalesce("queueGetProfile:" + profileId, () -> getTaskQueue().queueGetProfile(profileId));
         } else if (TextUtils.isEmpty(token)) {
             return Observable.error(getSessionStateErrorDescription());
         } else {
-            return doGetProfile(token, profileId);
+            return coalescer.coalesce("getProfile:" + token + ":" + profileId, () -> doGetProfile(token, profileId));
         }
     }
 
@@ -293,11 +392,11 @@ public class InternalService extends ServiceQueue implements ComapiService, RxCo
         final String token = getToken();
 
         if (sessionController.isCreatingSession()) {
-            return getTaskQueue().queueQueryProfiles(queryString);
+            return coalescer.coalesce("queueQueryProfiles:" + queryString, () -> getTaskQueue().queueQueryProfiles(queryString));
         } else if (TextUtils.isEmpty(token)) {
             return Observable.error(getSessionStateErrorDescription());
         } else {
-            return doQueryProfiles(token, queryString);
+            return coalescer.coalesce("queryProfiles:" + token + ":" + queryString, () -> doQueryProfiles(token, queryString));
         }
     }
 
@@ -478,11 +577,11 @@ public class InternalService extends ServiceQueue implements ComapiService, RxCo
         final String token = getToken();
 
         if (sessionController.isCreatingSession()) {
-            return getTaskQueue().queueGetConversation(conversationId);
+            return coalescer.coalesce("queueGetConversation:" + conversationId, () -> getTaskQueue().queueGetConversation(conversationId));
         } else if (TextUtils.isEmpty(token)) {
             return Observable.error(getSessionStateErrorDescription());
         } else {
-            return doGetConversation(token, conversationId);
+            return coalescer.coalesce("getConversation:" + token + ":" + conversationId, () -> doGetConversation(token, conversationId));
         }
     }
 
@@ -640,11 +739,11 @@ public class InternalService extends ServiceQueue implements ComapiService, RxCo
         final String token = getToken();
 
         if (sessionController.isCreatingSession()) {
-            return getTaskQueue().queueGetParticipants(conversationId);
+            return coalescer.coalesce("queueGetParticipants:" + conversationId, () -> getTaskQueue().queueGetParticipants(conversationId));
         } else if (TextUtils.isEmpty(token)) {
             return Observable.error(getSessionStateErrorDescription());
         } else {
-            return doGetParticipants(token, conversationId);
+            return coalescer.coalesce("getParticipants:" + token + ":" + conversationId, () -> doGetParticipants(token, conversationId));
         }
     }
 
@@ -771,8 +870,102 @@ public class InternalService extends ServiceQueue implements ComapiService, RxCo
         } else if (TextUtils.isEmpty(token)) {
             return Observable.error(getSessionStateErrorDescription());
         } else {
-            return doUploadContent(token, folder, data.getName(), data);
+            return doUploadContentIfNew(token, folder, data);
+        }
+    }
+
+    /**
+     * Creates upload of a content Uri that can be resumed after a failure or process restart. Call {@link ResumableUpload#start()} to send the content.
+     *
+     * @param context Application context.
+     * @param folder  Folder name to put the file in.
+     * @param uri     Uri of the content to upload.
+     * @param type    Mime type of the data, null to use the type reported by the content provider.
+     * @param name    Content name, null to use the display name reported by the content provider.
+     * @return Resumable upload handle.
+     */
+    public ResumableUpload createResumableUpload(@NonNull final Context context, @NonNull final String folder, @NonNull final Uri uri, @Nullable final String type, @Nullable final String name) {
+
+        ContentData data = ContentData.create(context, uri, type, name);
+        MediaType mediaType = data.getBody().contentType();
+        long length;
+        try {
+            length = data.getBody().contentLength();
+        } catch (IOException e) {
+            length = -1;
+        }
+
+        final SessionData session = dataMgr.getSessionDAO().session();
+        UploadState state = new UploadState(UUID.randomUUID().toString(), session != null ? session.getProfileId() : null, folder, data.getName(), mediaType != null ? mediaType.toString() : "application/octet-stream", uri.toString(), length, networkConfig.getUploadPartSize());
+        dataMgr.getUploadDAO().save(state);
+        return createResumableUpload(context, state);
+    }
+
+    /**
+     * Gets uploads started by the current session owner that have not finished before e.g. the process has been killed. Call {@link ResumableUpload#start()} to resume them
+     * or {@link ResumableUpload#discard()} if they are no longer needed. Uploads started by a different profile are discarded.
+     *
+     * @param context Application context.
+     * @return Unfinished resumable uploads.
+     */
+    public List<ResumableUpload> getResumableUploads(@NonNull final Context context) {
+        List<ResumableUpload> uploads = new ArrayList<>();
+        final SessionData session = dataMgr.getSessionDAO().session();
+        final String profileId = session != null ? session.getProfileId() : null;
+        if (TextUtils.isEmpty(profileId)) {
+            return uploads;
+        }
+        for (UploadState state : dataMgr.getUploadDAO().uploads()) {
+            if (profileId.equals(state.getProfileId())) {
+                uploads.add(createResumableUpload(context, state));
+            } else {
+                dataMgr.getUploadDAO().remove(state.getId());
+            }
+        }
+        return uploads;
+    }
+
+    private ResumableUpload createResumableUpload(@NonNull final Context context, @NonNull final UploadState state) {
+        return new ResumableUpload(context, this, dataMgr.getUploadDAO(), state, networkConfig.getPartUploader(), networkConfig.getUploadPartsConcurrency(), adapter, log);
+    }
+
+    /**
+     * Gets message attachment e.g. content referenced by {@link com.comapi.internal.network.model.messaging.Part#getUrl()} from the disk cache
+     * or downloads it to the cache if not cached yet.
+     *
+     * @param context  Application context.
+     * @param url      Attachment url.
+     * @param callback Callback with the cached attachment file.
+     */
+    public void fetchAttachment(@NonNull final Context context, @NonNull final String url, @Nullable Callback<File> callback) {
+        adapter.adapt(fetchAttachment(context, url), callback);
+    }
+
+    /**
+     * Gets message attachment e.g. content referenced by {@link com.comapi.internal.network.model.messaging.Part#getUrl()} from the disk cache
+     * or downloads it to the cache if not cached yet.
+     *
+     * @param context Application context.
+     * @param url     Attachment url.
+     * @return Observable emitting the cached attachment file.
+     */
+    public Observable<File> fetchAttachment(@NonNull final Context context, @NonNull final String url) {
+
+        AttachmentCache cache = getAttachmentCache(context);
+        if (cache == null) {
+            return Observable.error(new ComapiException("Attachment cache not available before the SDK is initialised."));
+        }
+        return cache.fetch(url);
+    }
+
+    private synchronized AttachmentCache getAttachmentCache(@NonNull final Context context) {
+
+        if (attachmentCache == null && restClient != null) {
+            // attachments can be hosted outside of the services, the SDK interceptors and authentication must not be applied to them
+            OkHttpClient client = restClient.getBaseHttpClient().newBuilder().authenticator(Authenticator.NONE).build();
+            attachmentCache = new AttachmentCache(new File(context.getCacheDir(), "comapi.attachments." + apiSpaceId), networkConfig.getAttachmentCacheSize(), client, log);
         }
+        return attachmentCache;
     }
 
     /**
@@ -786,6 +979,28 @@ public class InternalService extends ServiceQueue implements ComapiService, RxCo
 
         final String token = getToken();
 
+        if (sessionController.isCreatingSession()) {
+            return getTaskQueue().queueUpdateMessageStatus(conversationId, msgStatusList);
+        } else if (TextUtils.isEmpty(token)) {
+            return Observable.error(getSessionStateErrorDescription());
+        } else if (statusBatcher != null) {
+            return statusBatcher.add(conversationId, msgStatusList);
+        } else {
+            return doUpdateMessageStatus(token, conversationId, msgStatusList);
+        }
+    }
+
+    /**
+     * Sends a batch of message status updates.
+     *
+     * @param conversationId ID of a conversation to modify.
+     * @param msgStatusList  List of status modifications.
+     * @return Observable to modify message statuses.
+     */
+    private Observable<ComapiResult<Void>> sendMessageStatus(@NonNull final String conversationId, @NonNull final List<MessageStatusUpdate> msgStatusList) {
+
+        final String token = getToken();
+
         if (sessionController.isCreatingSession()) {
             return getTaskQueue().queueUpdateMessageStatus(conversationId, msgStatusList);
         } else if (TextUtils.isEmpty(token)) {
@@ -795,6 +1010,42 @@ public class InternalService extends ServiceQueue implements ComapiService, RxCo
         }
     }
 
+    /**
+     * Creates application lifecycle callbacks sending buffered message status updates when the app goes to the background.
+     *
+     * @return Application lifecycle callbacks or null if status updates are not batched.
+     */
+    public LifecycleListener createLifecycleListener() {
+        return statusBatcher != null ? statusBatcher.createLifecycleListener() : null;
+    }
+
+    /**
+     * Creates application lifecycle callbacks tracking network connectivity for the circuit breaker while the app is in the foreground.
+     *
+     * @return Application lifecycle callbacks or null if the circuit breaker is disabled.
+     */
+    public LifecycleListener createConnectivityLifecycleListener() {
+        return circuitBreaker != null ? circuitBreaker.createLifecycleListener() : null;
+    }
+
+    /**
+     * Creates socket event listener removing cached responses for conversations, participants and profiles that have changed.
+     *
+     * @return Socket event listener or null if the response cache is disabled.
+     */
+    public ResponseCacheInvalidator createResponseCacheInvalidator() {
+        return responseCache != null ? new ResponseCacheInvalidator(responseCache) : null;
+    }
+
+    /**
+     * Removes all cached responses so they are not revalidated on behalf of a different session.
+     */
+    private void clearResponseCache() {
+        if (responseCache != null) {
+            responseCache.clear();
+        }
+    }
+
     /**
      * Sets statuses for sets of messages.
      *
@@ -932,14 +1183,7 @@ public class InternalService extends ServiceQueue implements ComapiService, RxCo
      * @return Observable to send event.
      */
     public Observable<ComapiResult<Void>> isTyping(@NonNull final String conversationId) {
-
-        final String token = getToken();
-
-        if (sessionController.isCreatingSession() || TextUtils.isEmpty(token)) {
-            return Observable.error(getSessionStateErrorDescription());
-        } else {
-            return doIsTyping(token, conversationId, true);
-        }
+        return isTyping(conversationId, true);
     }
 
     /**
@@ -963,6 +1207,26 @@ public class InternalService extends ServiceQueue implements ComapiService, RxCo
 
         final String token = getToken();
 
+        if (sessionController.isCreatingSession() || TextUtils.isEmpty(token)) {
+            return Observable.error(getSessionStateErrorDescription());
+        } else if (typingController != null) {
+            return typingController.setTyping(conversationId, isTyping);
+        } else {
+            return doIsTyping(token, conversationId, isTyping);
+        }
+    }
+
+    /**
+     * Sends participant typing event for a specified conversation.
+     *
+     * @param conversationId ID of a conversation.
+     * @param isTyping       True if participant is typing, false if he has stopped typing.
+     * @return Observable to send event.
+     */
+    private Observable<ComapiResult<Void>> sendTyping(@NonNull final String conversationId, final boolean isTyping) {
+
+        final String token = getToken();
+
         if (sessionController.isCreatingSession() || TextUtils.isEmpty(token)) {
             return Observable.error(getSessionStateErrorDescription());
         } else {
@@ -0,0 +1,127 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Comapi (trading name of Dynmark International Limited)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons
+ * to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.comapi.internal.network;
+
+import com.comapi.internal.network.model.messaging.MessageStatus;
+import com.comapi.internal.network.model.messaging.MessageStatusUpdate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Merges message status updates for a single conversation. Every message id is reported once with the most advanced status
+ * e.g. 'read' status replaces 'delivered' for the same message. Every message keeps the timestamp of its own status update,
+ * message ids are grouped into a single update per status and timestamp.
+ *
+ * @author Marcin Swierczek
+ * @since 1.8.0
+ */
+class MessageStatusMerger {
+
+    private MessageStatusMerger() {
+    }
+
+    /**
+     * Merges message status updates.
+     *
+     * @param updates Message status updates for a single conversation.
+     * @return List with a single status update per message status and timestamp.
+     */
+    static List<MessageStatusUpdate> merge(List<MessageStatusUpdate> updates) {
+
+        Map<String, MessageStatus> statusById = new LinkedHashMap<>();
+        Map<String, String> timestampById = new HashMap<>();
+        List<MessageStatusUpdate> unknown = new ArrayList<>();
+
+        for (MessageStatusUpdate update : updates) {
+
+            MessageStatus status = parse(update.getStatus());
+            if (status == null) {
+                // unknown status, pass it through unchanged
+                unknown.add(update);
+                continue;
+            }
+
+            if (update.getMessageIds() != null) {
+                for (String id : update.getMessageIds()) {
+                    MessageStatus current = statusById.get(id);
+                    // statuses are declared in order of progression, the first report of a status keeps its timestamp
+                    if (current == null || status.ordinal() > current.ordinal()) {
+                        statusById.put(id, status);
+                        timestampById.put(id, update.getTimestamp());
+                    }
+                }
+            }
+        }
+
+        Map<MessageStatus, Map<String, Set<String>>> idsByStatus = new LinkedHashMap<>();
+        for (Map.Entry<String, MessageStatus> entry : statusById.entrySet()) {
+            Map<String, Set<String>> idsByTimestamp = idsByStatus.get(entry.getValue());
+            if (idsByTimestamp == null) {
+                idsByTimestamp = new LinkedHashMap<>();
+                idsByStatus.put(entry.getValue(), idsByTimestamp);
+            }
+            String timestamp = timestampById.get(entry.getKey());
+            Set<String> ids = idsByTimestamp.get(timestamp);
+            if (ids == null) {
+                ids = new LinkedHashSet<>();
+                idsByTimestamp.put(timestamp, ids);
+            }
+            ids.add(entry.getKey());
+        }
+
+        List<MessageStatusUpdate> result = new ArrayList<>();
+        for (Map.Entry<MessageStatus, Map<String, Set<String>>> status : idsByStatus.entrySet()) {
+            for (Map.Entry<String, Set<String>> entry : status.getValue().entrySet()) {
+                result.add(MessageStatusUpdate.builder()
+                        .setMessagesIds(entry.getValue())
+                        .setStatus(status.getKey())
+                        .setTimestamp(entry.getKey())
+                        .build());
+            }
+        }
+        result.addAll(unknown);
+
+        return result;
+    }
+
+    /**
+     * Parses message status.
+     *
+     * @param status Message status name.
+     * @return Message status or null if unknown.
+     */
+    private static MessageStatus parse(String status) {
+        if (status != null) {
+            for (MessageStatus value : MessageStatus.values()) {
+                if (value.name().equals(status)) {
+                    return value;
+                }
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Comapi (trading name of Dynmark International Limited)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons
+ * to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.comapi.internal.network;
+
+import java.io.IOException;
+
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.BufferedSource;
+import okio.ForwardingSource;
+import okio.Okio;
+
+/**
+ * Network interceptor recording latency, transferred bytes and status codes of every request sent to the services.
+ *
+ * @author Marcin Swierczek
+ * @since 1.8.0
+ */
+class MetricsInterceptor implements Interceptor {
+
+    private final NetworkMetrics metrics;
+
+    /**
+     * Recommended constructor.
+     *
+     * @param metrics Statistics of the SDK traffic.
+     */
+    MetricsInterceptor(NetworkMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+
+        final Request request = chain.request();
+        final EndpointMetrics endpoint = metrics.endpoint(NetworkMetrics.getEndpointTemplate(request.method(), request.url()));
+        final long bytesSent = request.body() != null ? Math.max(0, request.body().contentLength()) : 0;
+        final long start = System.nanoTime();
+
+        Response response;
+        try {
+            response = chain.proceed(request);
+        } catch (IOException e) {
+            endpoint.onFailure((System.nanoTime() - start) / 1000000, bytesSent);
+            throw e;
+        }
+
+        endpoint.onResponse(response.code(), (System.nanoTime() - start) / 1000000, bytesSent);
+
+        final ResponseBody body = response.body();
+        if (body == null) {
+            return response;
+        }
+
+        // count bytes as the body is consumed, it is never buffered here
+        BufferedSource source = Okio.buffer(new ForwardingSource(body.source()) {
+            @Override
+            public long read(Buffer sink, long byteCount) throws IOException {
+                long read = super.read(sink, byteCount);
+                if (read > 0) {
+                    endpoint.onResponseBytes(read);
+                }
+                return read;
+            }
+        });
+
+        return response.newBuilder().body(ResponseBody.create(body.contentType(), body.contentLength(), source)).build();
+    }
+}
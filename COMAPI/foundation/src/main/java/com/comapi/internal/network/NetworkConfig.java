@@ -0,0 +1,730 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Comapi (trading name of Dynmark International Limited)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons
+ * to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.comapi.internal.network;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+
+/**
+ * Network layer configuration.
+ *
+ * @author Marcin Swierczek
+ * @since 1.8.0
+ */
+public class NetworkConfig {
+
+    /**
+     * Default number of queued service calls executed in parallel once the session has been authenticated.
+     */
+    private static final int DEFAULT_PENDING_CALLS_CONCURRENCY = 4;
+
+    /**
+     * Default number of background priority requests (e.g. content upload, message status updates) executed in parallel.
+     */
+    private static final int DEFAULT_BACKGROUND_REQUESTS_CONCURRENCY = 2;
+
+    /**
+     * Default maximum time in seconds a service call can wait for the session before it fails.
+     */
+    private static final int DEFAULT_PENDING_CALLS_MAX_WAIT = 300;
+
+    /**
+     * Default time window in milliseconds to collect message status updates before they are sent.
+     */
+    private static final int DEFAULT_STATUS_UPDATES_WINDOW = 1000;
+
+    /**
+     * Default number of message ids in a status updates batch that triggers sending it straight away.
+     */
+    private static final int DEFAULT_STATUS_UPDATES_BATCH_SIZE = 100;
+
+    /**
+     * Default minimal interval in milliseconds between two 'typing' events sent for the same conversation.
+     */
+    private static final int DEFAULT_TYPING_THROTTLE = 3000;
+
+    /**
+     * Default time in milliseconds without typing after which 'typing off' event is sent.
+     */
+    private static final int DEFAULT_TYPING_IDLE = 5000;
+
+    /**
+     * Default maximum number of conversation, participants and profile responses kept for ETag revalidation.
+     */
+    private static final int DEFAULT_RESPONSE_CACHE_SIZE = 100;
+
+    /**
+     * Default time in seconds before the session expiry when the SDK re-authenticates.
+     */
+    private static final int DEFAULT_TOKEN_REFRESH_LEAD = 60;
+
+    /**
+     * Default maximum number of body bytes logged for a request or response when network logs are on debug level.
+     */
+    private static final int DEFAULT_LOG_BODY_MAX_BYTES = 4096;
+
+    /**
+     * Default sample rate of bodies larger than the logging cap. One in this many is logged.
+     */
+    private static final int DEFAULT_LOG_LARGE_BODY_SAMPLE_RATE = 10;
+
+    /**
+     * Default size in bytes of parts of resumable uploads.
+     */
+    private static final int DEFAULT_UPLOAD_PART_SIZE = 8 * 1024 * 1024;
+
+    /**
+     * Default number of parts of a resumable upload sent in parallel.
+     */
+    private static final int DEFAULT_UPLOAD_PARTS_CONCURRENCY = 2;
+
+    /**
+     * Default time in seconds for which details of uploaded content are reused for uploads of identical content.
+     */
+    private static final int DEFAULT_UPLOAD_DEDUPE_TTL = 24 * 60 * 60;
+
+    /**
+     * Default maximum size in bytes of the disk cache of message attachments.
+     */
+    private static final long DEFAULT_ATTACHMENT_CACHE_SIZE = 50 * 1024 * 1024;
+
+    /**
+     * Default number of consecutive service failures after which service calls fail immediately.
+     */
+    private static final int DEFAULT_CIRCUIT_BREAKER_THRESHOLD = 5;
+
+    /**
+     * Default time in seconds after which a probe request is sent to the failing services.
+     */
+    private static final int DEFAULT_CIRCUIT_BREAKER_OPEN = 30;
+
+    private int pendingCallsConcurrency;
+
+    private int pendingCallsMaxWaitSeconds;
+
+    private int backgroundRequestsConcurrency;
+
+    private int statusUpdatesWindowMillis;
+
+    private int statusUpdatesBatchSize;
+
+    private int typingThrottleMillis;
+
+    private int typingIdleMillis;
+
+    private int responseCacheSize;
+
+    private int tokenRefreshLeadSeconds;
+
+    private int logBodyMaxBytes;
+
+    private int logLargeBodySampleRate;
+
+    private PartUploader partUploader;
+
+    private int uploadPartSize;
+
+    private int uploadPartsConcurrency;
+
+    private int uploadDedupeTtlSeconds;
+
+    private long attachmentCacheSize;
+
+    private int circuitBreakerThreshold;
+
+    private int circuitBreakerOpenSeconds;
+
+    private OkHttpClient okHttpClient;
+
+    private Integer connectTimeoutSeconds;
+
+    private Integer readTimeoutSeconds;
+
+    private Integer writeTimeoutSeconds;
+
+    private Integer maxIdleConnections;
+
+    private Integer keepAliveSeconds;
+
+    private List<Protocol> protocols;
+
+    private final Map<CallClass, RetryPolicy> retryPolicies;
+
+    /**
+     * Default constructor.
+     */
+    public NetworkConfig() {
+        pendingCallsConcurrency = DEFAULT_PENDING_CALLS_CONCURRENCY;
+        pendingCallsMaxWaitSeconds = DEFAULT_PENDING_CALLS_MAX_WAIT;
+        backgroundRequestsConcurrency = DEFAULT_BACKGROUND_REQUESTS_CONCURRENCY;
+        statusUpdatesWindowMillis = DEFAULT_STATUS_UPDATES_WINDOW;
+        statusUpdatesBatchSize = DEFAULT_STATUS_UPDATES_BATCH_SIZE;
+        typingThrottleMillis = DEFAULT_TYPING_THROTTLE;
+        typingIdleMillis = DEFAULT_TYPING_IDLE;
+        responseCacheSize = DEFAULT_RESPONSE_CACHE_SIZE;
+        tokenRefreshLeadSeconds = DEFAULT_TOKEN_REFRESH_LEAD;
+        logBodyMaxBytes = DEFAULT_LOG_BODY_MAX_BYTES;
+        logLargeBodySampleRate = DEFAULT_LOG_LARGE_BODY_SAMPLE_RATE;
+        uploadPartSize = DEFAULT_UPLOAD_PART_SIZE;
+        uploadPartsConcurrency = DEFAULT_UPLOAD_PARTS_CONCURRENCY;
+        uploadDedupeTtlSeconds = DEFAULT_UPLOAD_DEDUPE_TTL;
+        attachmentCacheSize = DEFAULT_ATTACHMENT_CACHE_SIZE;
+        circuitBreakerThreshold = DEFAULT_CIRCUIT_BREAKER_THRESHOLD;
+        circuitBreakerOpenSeconds = DEFAULT_CIRCUIT_BREAKER_OPEN;
+        retryPolicies = new EnumMap<>(CallClass.class);
+        for (CallClass callClass : CallClass.values()) {
+            retryPolicies.put(callClass, new RetryPolicy());
+        }
+    }
+
+    /**
+     * Gets maximum number of service calls queued during session authentication that can be executed in parallel.
+     *
+     * @return Maximum number of queued service calls executed in parallel.
+     */
+    public int getPendingCallsConcurrency() {
+        return pendingCallsConcurrency;
+    }
+
+    /**
+     * Sets maximum number of service calls queued during session authentication that can be executed in parallel.
+     * Calls for the same conversation or profile are always executed in the order they were made. Set to 1 to replay all queued calls one at a time.
+     *
+     * @param pendingCallsConcurrency Maximum number of queued service calls executed in parallel.
+     * @return Network configuration.
+     */
+    public NetworkConfig setPendingCallsConcurrency(int pendingCallsConcurrency) {
+        this.pendingCallsConcurrency = Math.max(1, pendingCallsConcurrency);
+        return this;
+    }
+
+    /**
+     * Gets maximum time in seconds a service call can wait for the session to be authenticated.
+     *
+     * @return Maximum waiting time in seconds, 0 if there is no limit.
+     */
+    public int getPendingCallsMaxWaitSeconds() {
+        return pendingCallsMaxWaitSeconds;
+    }
+
+    /**
+     * Sets maximum time in seconds a service call can wait for the session to be authenticated. Calls waiting longer
+     * fail with an error instead of being sent when the session is eventually created.
+     *
+     * @param pendingCallsMaxWaitSeconds Maximum waiting time in seconds, 0 for no limit.
+     * @return Network configuration.
+     */
+    public NetworkConfig setPendingCallsMaxWaitSeconds(int pendingCallsMaxWaitSeconds) {
+        this.pendingCallsMaxWaitSeconds = Math.max(0, pendingCallsMaxWaitSeconds);
+        return this;
+    }
+
+    /**
+     * Gets maximum number of background priority requests (message status updates), and separately of content uploads, executed in parallel.
+     *
+     * @return Maximum number of background requests executed in parallel.
+     */
+    public int getBackgroundRequestsConcurrency() {
+        return backgroundRequestsConcurrency;
+    }
+
+    /**
+     * Sets maximum number of background priority requests (message status updates) executed in parallel. Content uploads are limited
+     * to the same number separately. Further background requests wait for a free slot, and for interactive requests in flight, up to 10 seconds
+     * and then fail with a timeout error. Interactive and normal priority requests are never limited.
+     *
+     * @param backgroundRequestsConcurrency Maximum number of background requests executed in parallel.
+     * @return Network configuration.
+     */
+    public NetworkConfig setBackgroundRequestsConcurrency(int backgroundRequestsConcurrency) {
+        this.backgroundRequestsConcurrency = Math.max(1, backgroundRequestsConcurrency);
+        return this;
+    }
+
+    /**
+     * Gets time window in milliseconds in which message status updates for a conversation are collected and sent as a single request.
+     *
+     * @return Time window in milliseconds, 0 if batching is disabled.
+     */
+    public int getStatusUpdatesWindowMillis() {
+        return statusUpdatesWindowMillis;
+    }
+
+    /**
+     * Sets time window in milliseconds in which message status updates for a conversation are collected and sent as a single request.
+     * Buffered updates are also sent when the app goes to the background.
+     *
+     * @param statusUpdatesWindowMillis Time window in milliseconds, 0 to send every update straight away.
+     * @return Network configuration.
+     */
+    public NetworkConfig setStatusUpdatesWindowMillis(int statusUpdatesWindowMillis) {
+        this.statusUpdatesWindowMillis = Math.max(0, statusUpdatesWindowMillis);
+        return this;
+    }
+
+    /**
+     * Gets number of message ids in a status updates batch that triggers sending it before the time window elapses.
+     *
+     * @return Maximum number of message ids in a status updates batch.
+     */
+    public int getStatusUpdatesBatchSize() {
+        return statusUpdatesBatchSize;
+    }
+
+    /**
+     * Sets number of message ids in a status updates batch that triggers sending it before the time window elapses.
+     *
+     * @param statusUpdatesBatchSize Maximum number of message ids in a status updates batch.
+     * @return Network configuration.
+     */
+    public NetworkConfig setStatusUpdatesBatchSize(int statusUpdatesBatchSize) {
+        this.statusUpdatesBatchSize = Math.max(1, statusUpdatesBatchSize);
+        return this;
+    }
+
+    /**
+     * Gets minimal interval in milliseconds between two 'typing' events sent for the same conversation.
+     *
+     * @return Minimal interval between 'typing' events, 0 if every event is sent.
+     */
+    public int getTypingThrottleMillis() {
+        return typingThrottleMillis;
+    }
+
+    /**
+     * Sets minimal interval in milliseconds between two 'typing' events sent for the same conversation. Calls in between
+     * and calls that wouldn't change the typing state already sent complete successfully without sending a request.
+     *
+     * @param typingThrottleMillis Minimal interval between 'typing' events, 0 to send every event.
+     * @return Network configuration.
+     */
+    public NetworkConfig setTypingThrottleMillis(int typingThrottleMillis) {
+        this.typingThrottleMillis = Math.max(0, typingThrottleMillis);
+        return this;
+    }
+
+    /**
+     * Gets time in milliseconds without typing after which 'typing off' event is sent automatically.
+     *
+     * @return Time without typing after which 'typing off' event is sent.
+     */
+    public int getTypingIdleMillis() {
+        return typingIdleMillis;
+    }
+
+    /**
+     * Sets time in milliseconds without typing after which 'typing off' event is sent automatically.
+     *
+     * @param typingIdleMillis Time without typing after which 'typing off' event is sent.
+     * @return Network configuration.
+     */
+    public NetworkConfig setTypingIdleMillis(int typingIdleMillis) {
+        this.typingIdleMillis = Math.max(1, typingIdleMillis);
+        return this;
+    }
+
+    /**
+     * Gets maximum number of conversation, participants and profile responses kept in memory for ETag revalidation.
+     *
+     * @return Maximum number of cached responses.
+     */
+    public int getResponseCacheSize() {
+        return responseCacheSize;
+    }
+
+    /**
+     * Sets maximum number of conversation, participants and profile responses kept in memory for ETag revalidation.
+     * Cached responses are revalidated with If-None-Match and served from memory when the server responds with 304 Not Modified.
+     *
+     * @param responseCacheSize Maximum number of cached responses, 0 to disable the cache.
+     * @return Network configuration.
+     */
+    public NetworkConfig setResponseCacheSize(int responseCacheSize) {
+        this.responseCacheSize = Math.max(0, responseCacheSize);
+        return this;
+    }
+
+    /**
+     * Gets time in seconds before the session expiry when the SDK re-authenticates.
+     *
+     * @return Time before the session expiry when the SDK re-authenticates.
+     */
+    public int getTokenRefreshLeadSeconds() {
+        return tokenRefreshLeadSeconds;
+    }
+
+    /**
+     * Sets time in seconds before the session expiry when the SDK re-authenticates, so calls made just before the expiry
+     * don't fail with 401 and wait for a new session. Session expiry is compared with the services clock estimated from
+     * service responses, not the device clock. For short sessions at most half of the session lifetime is used.
+     *
+     * @param tokenRefreshLeadSeconds Time before the session expiry when the SDK re-authenticates, 0 to re-authenticate at the expiry.
+     * @return Network configuration.
+     */
+    public NetworkConfig setTokenRefreshLeadSeconds(int tokenRefreshLeadSeconds) {
+        this.tokenRefreshLeadSeconds = Math.max(0, tokenRefreshLeadSeconds);
+        return this;
+    }
+
+    /**
+     * Gets maximum number of body bytes logged for a request or response when network logs are on debug level.
+     *
+     * @return Maximum number of logged body bytes.
+     */
+    public int getLogBodyMaxBytes() {
+        return logBodyMaxBytes;
+    }
+
+    /**
+     * Sets maximum number of body bytes logged for a request or response when network logs are on debug level. Only the beginning of larger bodies is logged,
+     * binary bodies e.g. uploaded images are never logged. Zero logs request lines and headers only.
+     *
+     * @param logBodyMaxBytes Maximum number of logged body bytes.
+     * @return Network configuration.
+     */
+    public NetworkConfig setLogBodyMaxBytes(int logBodyMaxBytes) {
+        this.logBodyMaxBytes = Math.max(0, logBodyMaxBytes);
+        return this;
+    }
+
+    /**
+     * Gets sample rate of logging bodies larger than {@link #getLogBodyMaxBytes()}.
+     *
+     * @return One in this many large bodies is logged.
+     */
+    public int getLogLargeBodySampleRate() {
+        return logLargeBodySampleRate;
+    }
+
+    /**
+     * Sets sample rate of logging bodies larger than {@link #getLogBodyMaxBytes()}. One in this many large bodies is logged, 1 logs every body.
+     *
+     * @param logLargeBodySampleRate One in this many large bodies is logged.
+     * @return Network configuration.
+     */
+    public NetworkConfig setLogLargeBodySampleRate(int logLargeBodySampleRate) {
+        this.logLargeBodySampleRate = Math.max(1, logLargeBodySampleRate);
+        return this;
+    }
+
+    /**
+     * Gets uploader of resumable upload parts.
+     *
+     * @return Part uploader or null if resumable uploads are sent in a single request.
+     */
+    public PartUploader getPartUploader() {
+        return partUploader;
+    }
+
+    /**
+     * Sets uploader of resumable upload parts e.g. for a backend supporting multipart uploads. Without it resumable uploads are sent to Comapi content API in a single request.
+     *
+     * @param partUploader Part uploader.
+     * @return Network configuration.
+     */
+    public NetworkConfig setPartUploader(PartUploader partUploader) {
+        this.partUploader = partUploader;
+        return this;
+    }
+
+    /**
+     * Gets size in bytes of parts of resumable uploads.
+     *
+     * @return Part size in bytes.
+     */
+    public int getUploadPartSize() {
+        return uploadPartSize;
+    }
+
+    /**
+     * Sets size in bytes of parts of resumable uploads. At least 64KB.
+     *
+     * @param uploadPartSize Part size in bytes.
+     * @return Network configuration.
+     */
+    public NetworkConfig setUploadPartSize(int uploadPartSize) {
+        this.uploadPartSize = Math.max(64 * 1024, uploadPartSize);
+        return this;
+    }
+
+    /**
+     * Gets number of parts of a resumable upload sent in parallel.
+     *
+     * @return Number of parts sent in parallel.
+     */
+    public int getUploadPartsConcurrency() {
+        return uploadPartsConcurrency;
+    }
+
+    /**
+     * Sets number of parts of a resumable upload sent in parallel.
+     *
+     * @param uploadPartsConcurrency Number of parts sent in parallel.
+     * @return Network configuration.
+     */
+    public NetworkConfig setUploadPartsConcurrency(int uploadPartsConcurrency) {
+        this.uploadPartsConcurrency = Math.max(1, uploadPartsConcurrency);
+        return this;
+    }
+
+    /**
+     * Gets time in seconds for which details of uploaded content are reused when identical content is uploaded to the same folder again.
+     *
+     * @return Time in seconds, 0 if uploads are never deduplicated.
+     */
+    public int getUploadDedupeTtlSeconds() {
+        return uploadDedupeTtlSeconds;
+    }
+
+    /**
+     * Sets time in seconds for which details of uploaded content are reused when identical content is uploaded to the same folder again.
+     * Content streamed from an {@link java.io.InputStream} is always uploaded as it can be read only once.
+     *
+     * @param uploadDedupeTtlSeconds Time in seconds, 0 to upload the content every time.
+     * @return Network configuration.
+     */
+    public NetworkConfig setUploadDedupeTtlSeconds(int uploadDedupeTtlSeconds) {
+        this.uploadDedupeTtlSeconds = Math.max(0, uploadDedupeTtlSeconds);
+        return this;
+    }
+
+    /**
+     * Gets maximum size in bytes of the disk cache of message attachments.
+     *
+     * @return Cache size in bytes.
+     */
+    public long getAttachmentCacheSize() {
+        return attachmentCacheSize;
+    }
+
+    /**
+     * Sets maximum size in bytes of the disk cache of message attachments. Least recently used attachments are removed when the cache grows above this size.
+     *
+     * @param attachmentCacheSize Cache size in bytes.
+     * @return Network configuration.
+     */
+    public NetworkConfig setAttachmentCacheSize(long attachmentCacheSize) {
+        this.attachmentCacheSize = Math.max(0, attachmentCacheSize);
+        return this;
+    }
+
+    /**
+     * Gets number of consecutive service failures (connection errors, 500, 502, 503, 504) after which service calls fail immediately.
+     *
+     * @return Number of failures, 0 if the circuit breaker is disabled.
+     */
+    public int getCircuitBreakerThreshold() {
+        return circuitBreakerThreshold;
+    }
+
+    /**
+     * Sets number of consecutive service failures (connection errors, 500, 502, 503, 504) after which service calls fail immediately.
+     * While the circuit breaker is enabled service calls also fail immediately when the device is offline.
+     *
+     * @param circuitBreakerThreshold Number of failures, 0 to disable the circuit breaker.
+     * @return Network configuration.
+     */
+    public NetworkConfig setCircuitBreakerThreshold(int circuitBreakerThreshold) {
+        this.circuitBreakerThreshold = Math.max(0, circuitBreakerThreshold);
+        return this;
+    }
+
+    /**
+     * Gets time in seconds after which a single probe request is sent to the failing services.
+     *
+     * @return Time in seconds.
+     */
+    public int getCircuitBreakerOpenSeconds() {
+        return circuitBreakerOpenSeconds;
+    }
+
+    /**
+     * Sets time in seconds after which a single probe request is sent to the failing services. Service calls fail immediately until then.
+     *
+     * @param circuitBreakerOpenSeconds Time in seconds.
+     * @return Network configuration.
+     */
+    public NetworkConfig setCircuitBreakerOpenSeconds(int circuitBreakerOpenSeconds) {
+        this.circuitBreakerOpenSeconds = Math.max(1, circuitBreakerOpenSeconds);
+        return this;
+    }
+
+    /**
+     * Gets retry policy for a class of service calls.
+     *
+     * @param callClass Class of service calls.
+     * @return Retry policy.
+     */
+    public RetryPolicy getRetryPolicy(CallClass callClass) {
+        return retryPolicies.get(callClass);
+    }
+
+    /**
+     * Sets retry policy for a class of service calls e.g. {@link RetryPolicy#none()} to disable retries of message sending.
+     * By default every class is retried up to 3 times with exponential backoff. Calls that are not idempotent are retried only when the services
+     * have not processed the request.
+     *
+     * @param callClass   Class of service calls.
+     * @param retryPolicy Retry policy.
+     * @return Network configuration.
+     */
+    public NetworkConfig setRetryPolicy(CallClass callClass, RetryPolicy retryPolicy) {
+        retryPolicies.put(callClass, retryPolicy != null ? retryPolicy : RetryPolicy.none());
+        return this;
+    }
+
+    /**
+     * Gets OkHttp client supplied by the app.
+     *
+     * @return OkHttp client supplied by the app or null if SDK should create its own.
+     */
+    public OkHttpClient getOkHttpClient() {
+        return okHttpClient;
+    }
+
+    /**
+     * Sets OkHttp client the SDK should derive its REST client from. The SDK calls {@link OkHttpClient#newBuilder()} so it shares
+     * connection pool, dispatcher, cache and TLS configuration of the app client and adds its own interceptors and authenticator.
+     * Timeouts, connection pool and dispatcher of the app client are used unless set explicitly in this configuration.
+     *
+     * @param okHttpClient OkHttp client of the app.
+     * @return Network configuration.
+     */
+    public NetworkConfig setOkHttpClient(OkHttpClient okHttpClient) {
+        this.okHttpClient = okHttpClient;
+        return this;
+    }
+
+    /**
+     * Gets connection timeout in seconds.
+     *
+     * @return Connection timeout in seconds or null if not set.
+     */
+    public Integer getConnectTimeoutSeconds() {
+        return connectTimeoutSeconds;
+    }
+
+    /**
+     * Sets connection timeout in seconds. Defaults to 60 seconds if there is no app OkHttp client.
+     *
+     * @param connectTimeoutSeconds Connection timeout in seconds.
+     * @return Network configuration.
+     */
+    public NetworkConfig setConnectTimeoutSeconds(int connectTimeoutSeconds) {
+        this.connectTimeoutSeconds = Math.max(0, connectTimeoutSeconds);
+        return this;
+    }
+
+    /**
+     * Gets read timeout in seconds.
+     *
+     * @return Read timeout in seconds or null if not set.
+     */
+    public Integer getReadTimeoutSeconds() {
+        return readTimeoutSeconds;
+    }
+
+    /**
+     * Sets read timeout in seconds. Defaults to 90 seconds if there is no app OkHttp client.
+     *
+     * @param readTimeoutSeconds Read timeout in seconds.
+     * @return Network configuration.
+     */
+    public NetworkConfig setReadTimeoutSeconds(int readTimeoutSeconds) {
+        this.readTimeoutSeconds = Math.max(0, readTimeoutSeconds);
+        return this;
+    }
+
+    /**
+     * Gets write timeout in seconds.
+     *
+     * @return Write timeout in seconds or null if not set.
+     */
+    public Integer getWriteTimeoutSeconds() {
+        return writeTimeoutSeconds;
+    }
+
+    /**
+     * Sets write timeout in seconds. Defaults to 90 seconds if there is no app OkHttp client.
+     *
+     * @param writeTimeoutSeconds Write timeout in seconds.
+     * @return Network configuration.
+     */
+    public NetworkConfig setWriteTimeoutSeconds(int writeTimeoutSeconds) {
+        this.writeTimeoutSeconds = Math.max(0, writeTimeoutSeconds);
+        return this;
+    }
+
+    /**
+     * Gets maximum number of idle connections kept in the connection pool.
+     *
+     * @return Maximum number of idle connections or null if not set.
+     */
+    public Integer getMaxIdleConnections() {
+        return maxIdleConnections;
+    }
+
+    /**
+     * Gets time in seconds an idle connection is kept in the connection pool.
+     *
+     * @return Keep alive time in seconds or null if not set.
+     */
+    public Integer getKeepAliveSeconds() {
+        return keepAliveSeconds;
+    }
+
+    /**
+     * Sets connection pool size and keep alive time. Ignored if the app OkHttp client was supplied, the SDK then shares the app connection pool.
+     *
+     * @param maxIdleConnections Maximum number of idle connections kept in the pool.
+     * @param keepAliveSeconds   Time in seconds an idle connection is kept in the pool.
+     * @return Network configuration.
+     */
+    public NetworkConfig setConnectionPool(int maxIdleConnections, int keepAliveSeconds) {
+        this.maxIdleConnections = Math.max(0, maxIdleConnections);
+        this.keepAliveSeconds = Math.max(1, keepAliveSeconds);
+        return this;
+    }
+
+    /**
+     * Gets protocols used to communicate with the services.
+     *
+     * @return Protocols or null if not set.
+     */
+    public List<Protocol> getProtocols() {
+        return protocols;
+    }
+
+    /**
+     * Sets protocols used to communicate with the services e.g. to enable or disable HTTP/2. See {@link OkHttpClient.Builder#protocols(List)}.
+     *
+     * @param protocols Protocols to use, must contain {@link Protocol#HTTP_1_1}.
+     * @return Network configuration.
+     */
+    public NetworkConfig setProtocols(List<Protocol> protocols) {
+        this.protocols = protocols;
+        return this;
+    }
+}
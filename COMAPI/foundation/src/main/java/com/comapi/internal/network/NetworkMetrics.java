@@ -0,0 +1,157 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Comapi (trading name of Dynmark International Limited)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons
+ * to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.comapi.internal.network;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import okhttp3.HttpUrl;
+
+/**
+ * Statistics of the SDK traffic to Comapi services. Latency histogram, transferred bytes and status codes are collected for each endpoint template,
+ * retries for each class of service calls. Apps can read them with {@link com.comapi.ComapiClient#getNetworkMetrics()} and forward to their own telemetry.
+ *
+ * @author Marcin Swierczek
+ * @since 1.8.0
+ */
+public class NetworkMetrics {
+
+    /**
+     * Path segments of the service APIs. Other segments are ids replaced by '{id}' in endpoint templates.
+     */
+    private static final Set<String> PATH_KEYWORDS = new HashSet<>(Arrays.asList("apispaces", "sessions", "start", "push", "profiles",
+            "conversations", "typing", "participants", "messages", "statusupdates", "events", "content", "channels", "facebook", "state"));
+
+    private final Map<String, EndpointMetrics> endpoints;
+
+    private final Map<CallClass, Long> retries;
+
+    private long authRefreshes;
+
+    /**
+     * Default constructor.
+     */
+    public NetworkMetrics() {
+        endpoints = new HashMap<>();
+        retries = new EnumMap<>(CallClass.class);
+    }
+
+    /**
+     * Gets metrics of the endpoint, creates new entry if there is none.
+     *
+     * @param endpoint Endpoint template.
+     * @return Metrics of the endpoint.
+     */
+    synchronized EndpointMetrics endpoint(String endpoint) {
+        EndpointMetrics metrics = endpoints.get(endpoint);
+        if (metrics == null) {
+            metrics = new EndpointMetrics(endpoint);
+            endpoints.put(endpoint, metrics);
+        }
+        return metrics;
+    }
+
+    /**
+     * Records retry of a service call.
+     *
+     * @param callClass Class of the retried call.
+     */
+    synchronized void onRetry(CallClass callClass) {
+        Long count = retries.get(callClass);
+        retries.put(callClass, count != null ? count + 1 : 1);
+    }
+
+    /**
+     * Records session refresh triggered by an authentication challenge.
+     *
+     * @param endpoint Endpoint template of the challenged request.
+     */
+    void onAuthRefresh(String endpoint) {
+        synchronized (this) {
+            authRefreshes++;
+        }
+        endpoint(endpoint).onAuthChallenge();
+    }
+
+    /**
+     * Gets snapshot of metrics for every endpoint called since the SDK initialisation or the last {@link #reset()}.
+     *
+     * @return Endpoint metrics.
+     */
+    public synchronized List<EndpointMetrics> getEndpoints() {
+        List<EndpointMetrics> snapshot = new ArrayList<>(endpoints.size());
+        for (EndpointMetrics metrics : endpoints.values()) {
+            snapshot.add(metrics.copy());
+        }
+        return snapshot;
+    }
+
+    /**
+     * Gets number of retries of a class of service calls.
+     *
+     * @param callClass Class of service calls.
+     * @return Number of retries.
+     */
+    public synchronized long getRetries(CallClass callClass) {
+        Long count = retries.get(callClass);
+        return count != null ? count : 0;
+    }
+
+    /**
+     * Gets number of session refreshes triggered by authentication challenges.
+     *
+     * @return Number of session refreshes.
+     */
+    public synchronized long getAuthRefreshes() {
+        return authRefreshes;
+    }
+
+    /**
+     * Clears collected metrics e.g. after they have been sent to telemetry.
+     */
+    public synchronized void reset() {
+        endpoints.clear();
+        retries.clear();
+        authRefreshes = 0;
+    }
+
+    /**
+     * Creates endpoint template from a request e.g. 'GET /apispaces/{id}/conversations/{id}/messages'.
+     *
+     * @param method HTTP method.
+     * @param url    Request URL.
+     * @return Endpoint template.
+     */
+    static String getEndpointTemplate(String method, HttpUrl url) {
+        StringBuilder template = new StringBuilder(method).append(' ');
+        for (String segment : url.pathSegments()) {
+            if (!segment.isEmpty()) {
+                template.append('/').append(PATH_KEYWORDS.contains(segment) ? segment : "{id}");
+            }
+        }
+        return template.toString();
+    }
+}
@@ -20,6 +20,9 @@
 
 package com.comapi.internal.network;
 
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
 import okhttp3.Authenticator;
 import okhttp3.Request;
 import okhttp3.Response;
@@ -27,7 +30,8 @@ import okhttp3.Route;
 
 
 /**
- * Internal interceptor for OkHttp authentication challenges.
+ * Internal interceptor for OkHttp authentication challenges. Concurrent challenges share a single session refresh, requests
+ * failed with a token that has already been replaced are retried with the current token straight away.
  *
  * @author Marcin Swierczek
  * @since 1.0.0
@@ -36,15 +40,40 @@ class OkHttpAuthenticator implements Authenticator {
 
     private final static int MAX_AUTH_COUNT = 3;
 
+    /**
+     * Maximum time in seconds a challenged request waits for a session refresh started by another request.
+     */
+    private final static int MAX_WAIT = 60;
+
     private final AuthManager mgr;
 
+    private final NetworkMetrics metrics;
+
+    private final Object lock = new Object();
+
+    /**
+     * Session refresh in progress, null if there is none.
+     */
+    private Refresh refresh;
+
     /**
      * Recommended constructor.
      *
      * @param mgr Authentication manager
      */
     OkHttpAuthenticator(AuthManager mgr) {
+        this(mgr, null);
+    }
+
+    /**
+     * Recommended constructor.
+     *
+     * @param mgr     Authentication manager
+     * @param metrics Statistics of the SDK traffic recording session refreshes, null if not recorded.
+     */
+    OkHttpAuthenticator(AuthManager mgr, NetworkMetrics metrics) {
         this.mgr = mgr;
+        this.metrics = metrics;
     }
 
     @Override
@@ -54,20 +83,78 @@ class OkHttpAuthenticator implements Authenticator {
             return null; // If we've failed N times, give up.
         }
 
-        //Obtain new Comapi access token and retry request with updated header.
+        final String failedHeader = response.request().header("Authorization");
 
-        String credential = mgr.restartSession().toBlocking().single().getAccessToken();
+        final Refresh current;
+        final boolean isOwner;
 
-        if (!credential.equals(response.request().header("Authorization"))) {
+        synchronized (lock) {
 
-            return response.request().newBuilder()
-                    .header("Authorization", AuthManager.addAuthPrefix(credential))
-                    .build();
+            // Session has been refreshed since this request was sent.
+            String token = mgr.getAccessToken();
+            if (failedHeader != null && token != null && !AuthManager.addAuthPrefix(token).equals(failedHeader)) {
+                return withToken(response, token);
+            }
+
+            if (refresh == null) {
+                refresh = new Refresh();
+                isOwner = true;
+            } else {
+                isOwner = false;
+            }
+            current = refresh;
+        }
+
+        if (isOwner) {
+
+            if (metrics != null) {
+                metrics.onAuthRefresh(NetworkMetrics.getEndpointTemplate(response.request().method(), response.request().url()));
+            }
+
+            //Obtain new Comapi access token and retry request with updated header.
+            try {
+                current.token = mgr.restartSession().toBlocking().single().getAccessToken();
+            } finally {
+                synchronized (lock) {
+                    refresh = null;
+                }
+                current.done.countDown();
+            }
+
+        } else {
+
+            try {
+                if (!current.done.await(MAX_WAIT, TimeUnit.SECONDS)) {
+                    return null;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+        }
+
+        String credential = current.token;
+
+        if (credential != null && !AuthManager.addAuthPrefix(credential).equals(failedHeader)) {
+            return withToken(response, credential);
         }
 
         return null;
     }
 
+    /**
+     * Creates retry request with updated access token.
+     *
+     * @param response Service call response.
+     * @param token    Access token.
+     * @return Request to retry.
+     */
+    private Request withToken(Response response, String token) {
+        return response.request().newBuilder()
+                .header("Authorization", AuthManager.addAuthPrefix(token))
+                .build();
+    }
+
     /**
      * Counts how many times we made this service call.
      *
@@ -81,4 +168,14 @@ class OkHttpAuthenticator implements Authenticator {
         }
         return result;
     }
-}
\ No newline at end of file
+
+    /**
+     * Session refresh shared by concurrently challenged requests.
+     */
+    private static class Refresh {
+
+        final CountDownLatch done = new CountDownLatch(1);
+
+        volatile String token;
+    }
+}
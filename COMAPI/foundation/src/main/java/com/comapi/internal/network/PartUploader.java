@@ -0,0 +1,69 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Comapi (trading name of Dynmark International Limited)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons
+ * to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.comapi.internal.network;
+
+import androidx.annotation.NonNull;
+
+import com.comapi.internal.network.model.messaging.UploadContentResponse;
+
+import okhttp3.RequestBody;
+import rx.Observable;
+
+/**
+ * Uploads content in fixed-size parts for {@link ResumableUpload}. Comapi content API accepts content in a single request, set an implementation
+ * in {@link NetworkConfig#setPartUploader(PartUploader)} to upload large attachments through a backend supporting multipart uploads.
+ * Parts of the same upload can be uploaded in parallel and the same part can be uploaded more than once.
+ *
+ * @author Marcin Swierczek
+ * @since 1.8.0
+ */
+public interface PartUploader {
+
+    /**
+     * Starts multipart upload.
+     *
+     * @param folder Folder name to put the file in.
+     * @param name   Content name.
+     * @param type   Mime type of the content.
+     * @param length Size of the content.
+     * @return Observable emitting identifier of the multipart upload.
+     */
+    Observable<String> begin(@NonNull String folder, String name, @NonNull String type, long length);
+
+    /**
+     * Uploads single part of the content.
+     *
+     * @param uploadId Identifier of the multipart upload.
+     * @param index    Zero based index of the part.
+     * @param offset   Offset of the part in the content.
+     * @param part     Part body.
+     * @return Observable completing when the part has been uploaded.
+     */
+    Observable<Void> uploadPart(@NonNull String uploadId, int index, long offset, @NonNull RequestBody part);
+
+    /**
+     * Completes multipart upload once all parts have been uploaded.
+     *
+     * @param uploadId  Identifier of the multipart upload.
+     * @param partCount Number of uploaded parts.
+     * @return Observable emitting details of uploaded content.
+     */
+    Observable<UploadContentResponse> complete(@NonNull String uploadId, int partCount);
+}
@@ -0,0 +1,151 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Comapi (trading name of Dynmark International Limited)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons
+ * to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.comapi.internal.network;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.Interceptor;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Admits requests to the network according to their {@link CallPriority}. Background requests are limited to a configured
+ * number of concurrent requests so e.g. a status updates backlog doesn't compete with interactive calls. Content uploads
+ * have a separate limit, so a long running upload doesn't hold back small background requests. Interactive requests are
+ * never limited and while any of them is in flight no new background request or upload is admitted. A request that is not
+ * admitted within the maximum wait time fails with {@link SocketTimeoutException}, so it can be retried later instead
+ * of exceeding the limit.
+ *
+ * @author Marcin Swierczek
+ * @since 1.8.0
+ */
+class PriorityInterceptor implements Interceptor {
+
+    /**
+     * Default maximum time in milliseconds a background request waits for admission.
+     */
+    static final long MAX_WAIT_MILLIS = 10 * 1000;
+
+    private final long maxWaitMillis;
+
+    private final Semaphore backgroundPermits;
+
+    private final Semaphore uploadPermits;
+
+    private final Object lock = new Object();
+
+    private int interactiveInFlight;
+
+    /**
+     * Recommended constructor.
+     *
+     * @param maxBackgroundRequests Maximum number of background requests, and separately of content uploads, executed at the same time.
+     * @param maxWaitMillis         Maximum time in milliseconds a background request waits for admission.
+     */
+    PriorityInterceptor(int maxBackgroundRequests, long maxWaitMillis) {
+        this.maxWaitMillis = maxWaitMillis;
+        backgroundPermits = new Semaphore(Math.max(1, maxBackgroundRequests), true);
+        uploadPermits = new Semaphore(Math.max(1, maxBackgroundRequests), true);
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+
+        Request request = chain.request();
+        String priority = request.header(CallPriority.HEADER);
+        if (priority == null) {
+            return chain.proceed(request);
+        }
+
+        request = request.newBuilder().removeHeader(CallPriority.HEADER).build();
+
+        if (CallPriority.UPLOAD.equalsIgnoreCase(priority)) {
+            return proceed(chain, request, uploadPermits);
+        } else if (CallPriority.BACKGROUND.name().equalsIgnoreCase(priority)) {
+            return proceed(chain, request, backgroundPermits);
+        } else if (CallPriority.INTERACTIVE.name().equalsIgnoreCase(priority)) {
+            return proceedInteractive(chain, request);
+        }
+
+        return chain.proceed(request);
+    }
+
+    /**
+     * Sends interactive request straight away holding back admission of background requests until it finishes.
+     *
+     * @param chain   Interceptor chain.
+     * @param request Request to send.
+     * @return Response.
+     * @throws IOException If the request failed.
+     */
+    private Response proceedInteractive(Chain chain, Request request) throws IOException {
+        synchronized (lock) {
+            interactiveInFlight++;
+        }
+        try {
+            return chain.proceed(request);
+        } finally {
+            synchronized (lock) {
+                interactiveInFlight--;
+                lock.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Sends the request when no interactive request is in flight and a permit is available.
+     *
+     * @param chain   Interceptor chain.
+     * @param request Request to send.
+     * @param permits Permits limiting concurrent requests of the request class.
+     * @return Response.
+     * @throws IOException If the request failed or was not admitted in time.
+     */
+    private Response proceed(Chain chain, Request request, Semaphore permits) throws IOException {
+        final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+        try {
+            boolean isAdmitted;
+            synchronized (lock) {
+                long remaining = deadline - System.nanoTime();
+                while (interactiveInFlight > 0 && remaining > 0) {
+                    TimeUnit.NANOSECONDS.timedWait(lock, remaining);
+                    remaining = deadline - System.nanoTime();
+                }
+                isAdmitted = interactiveInFlight == 0;
+            }
+            if (!isAdmitted || !permits.tryAcquire(deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+                throw new SocketTimeoutException("Timed out waiting for a background request slot.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a background request slot.");
+        }
+        try {
+            return chain.proceed(request);
+        } finally {
+            permits.release();
+        }
+    }
+}
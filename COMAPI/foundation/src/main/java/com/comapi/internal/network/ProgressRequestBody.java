@@ -0,0 +1,120 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Comapi (trading name of Dynmark International Limited)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons
+ * to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.comapi.internal.network;
+
+import java.io.IOException;
+
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.ForwardingSink;
+import okio.Okio;
+
+/**
+ * Request body reporting how many bytes of the wrapped body have been written to the network.
+ *
+ * @author Marcin Swierczek
+ * @since 1.8.0
+ */
+class ProgressRequestBody extends RequestBody {
+
+    /**
+     * Minimal number of bytes between two progress reports.
+     */
+    private static final long MIN_REPORT_STEP = 64 * 1024;
+
+    private final RequestBody body;
+
+    private final UploadProgressListener listener;
+
+    /**
+     * Recommended constructor.
+     *
+     * @param body     Request body to send.
+     * @param listener Listener for upload progress.
+     */
+    ProgressRequestBody(RequestBody body, UploadProgressListener listener) {
+        this.body = body;
+        this.listener = listener;
+    }
+
+    @Override
+    public MediaType contentType() {
+        return body.contentType();
+    }
+
+    @Override
+    public long contentLength() throws IOException {
+        return body.contentLength();
+    }
+
+    @Override
+    public void writeTo(BufferedSink sink) throws IOException {
+        CountingSink countingSink = new CountingSink(sink, contentLength());
+        BufferedSink bufferedSink = Okio.buffer(countingSink);
+        body.writeTo(bufferedSink);
+        bufferedSink.flush();
+        countingSink.complete();
+    }
+
+    /**
+     * Sink counting bytes written to the network. Reports at most every percent of the content or every {@link #MIN_REPORT_STEP} bytes.
+     */
+    private class CountingSink extends ForwardingSink {
+
+        private final long length;
+
+        private final long step;
+
+        private long written;
+
+        private long reported;
+
+        CountingSink(BufferedSink delegate, long length) {
+            super(delegate);
+            this.length = length;
+            this.step = Math.max(MIN_REPORT_STEP, length / 100);
+        }
+
+        @Override
+        public void write(Buffer source, long byteCount) throws IOException {
+            super.write(source, byteCount);
+            written += byteCount;
+            if (written - reported >= step) {
+                report();
+            }
+        }
+
+        /**
+         * Reports remaining progress once the whole body has been written.
+         */
+        void complete() {
+            if (written != reported || written == 0) {
+                report();
+            }
+        }
+
+        private void report() {
+            reported = written;
+            listener.onProgress(written, length);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Comapi (trading name of Dynmark International Limited)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons
+ * to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.comapi.internal.network;
+
+import android.content.ContentResolver;
+import android.net.Uri;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.BufferedSink;
+import okio.BufferedSource;
+import okio.Okio;
+
+/**
+ * Request body streaming a byte range of a content Uri. Used to upload a single part of a resumable upload.
+ *
+ * @author Marcin Swierczek
+ * @since 1.8.0
+ */
+class RangeRequestBody extends RequestBody {
+
+    private final MediaType contentType;
+
+    private final ContentResolver resolver;
+
+    private final Uri uri;
+
+    private final long offset;
+
+    private final long length;
+
+    /**
+     * Recommended constructor.
+     *
+     * @param contentType Mime type of the content.
+     * @param resolver    Content resolver to open the Uri.
+     * @param uri         Content Uri.
+     * @param offset      Offset of the first byte to send.
+     * @param length      Number of bytes to send.
+     */
+    RangeRequestBody(MediaType contentType, ContentResolver resolver, Uri uri, long offset, long length) {
+        this.contentType = contentType;
+        this.resolver = resolver;
+        this.uri = uri;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    @Override
+    public MediaType contentType() {
+        return contentType;
+    }
+
+    @Override
+    public long contentLength() {
+        return length;
+    }
+
+    @Override
+    public void writeTo(BufferedSink sink) throws IOException {
+
+        InputStream input = resolver.openInputStream(uri);
+        if (input == null) {
+            throw new IOException("Unable to open " + uri);
+        }
+
+        try {
+            // file backed streams seek rather than read skipped bytes
+            long skipped = 0;
+            while (skipped < offset) {
+                long count = input.skip(offset - skipped);
+                if (count <= 0) {
+                    break;
+                }
+                skipped += count;
+            }
+            BufferedSource source = Okio.buffer(Okio.source(input));
+            source.skip(offset - skipped);
+            sink.write(source, length);
+        } finally {
+            input.close();
+        }
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Comapi (trading name of Dynmark International Limited)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons
+ * to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.comapi.internal.network;
+
+import androidx.annotation.NonNull;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import rx.Observable;
+import rx.Subscription;
+import rx.functions.Func0;
+import rx.subjects.ReplaySubject;
+
+/**
+ * Merges identical read requests that are in flight at the same time. Subscribers asking for the same resource while the
+ * request is still pending share the result of a single service call.
+ *
+ * @author Marcin Swierczek
+ * @since 1.8.0
+ */
+class RequestCoalescer {
+
+    private final Map<String, InFlight<?>> inFlight = new HashMap<>();
+
+    private final Object lock = new Object();
+
+    /**
+     * Returns observable sharing the result of a service call with all the subscribers asking for the same key before the call finishes.
+     * The result is replayed, so a subscriber joining just before the call finishes gets it without sending another request.
+     * The call is cancelled when all the subscribers unsubscribe before it finishes.
+     *
+     * @param key     Unique key of the request e.g. endpoint name and call arguments.
+     * @param factory Creates the service call observable if there is no call in flight for the key.
+     * @param <T>     Type of the service call result.
+     * @return Observable emitting the service call result.
+     */
+    <T> Observable<T> coalesce(@NonNull final String key, @NonNull final Func0<Observable<T>> factory) {
+
+        return Observable.defer(() -> {
+
+            final InFlight<T> call;
+            final boolean isNew;
+            synchronized (lock) {
+                @SuppressWarnings("unchecked")
+                InFlight<T> existing = (InFlight<T>) inFlight.get(key);
+                isNew = existing == null;
+                call = isNew ? new InFlight<>() : existing;
+                if (isNew) {
+                    inFlight.put(key, call);
+                }
+                call.subscribers++;
+            }
+
+            if (isNew) {
+                call.upstream = Observable.defer(factory)
+                        .doOnTerminate(() -> remove(key, call))
+                        .subscribe(call.result);
+            }
+
+            return call.result.doOnUnsubscribe(() -> release(key, call));
+        });
+    }
+
+    /**
+     * Removes finished call, new subscribers will send another request.
+     */
+    private void remove(String key, InFlight<?> call) {
+        synchronized (lock) {
+            if (inFlight.get(key) == call) {
+                inFlight.remove(key);
+            }
+        }
+    }
+
+    /**
+     * Cancels the call if the last subscriber unsubscribed before it finished.
+     */
+    private void release(String key, InFlight<?> call) {
+        final Subscription upstream;
+        synchronized (lock) {
+            call.subscribers--;
+            if (call.subscribers > 0 || inFlight.get(key) != call) {
+                return;
+            }
+            inFlight.remove(key);
+            upstream = call.upstream;
+        }
+        if (upstream != null) {
+            upstream.unsubscribe();
+        }
+    }
+
+    /**
+     * Service call shared between subscribers.
+     *
+     * @param <T> Type of the service call result.
+     */
+    private static class InFlight<T> {
+
+        final ReplaySubject<T> result = ReplaySubject.create();
+
+        volatile Subscription upstream;
+
+        int subscribers;
+    }
+}
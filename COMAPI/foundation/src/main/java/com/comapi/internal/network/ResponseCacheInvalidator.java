@@ -0,0 +1,102 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Comapi (trading name of Dynmark International Limited)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons
+ * to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.comapi.internal.network;
+
+import com.comapi.MessagingListener;
+import com.comapi.internal.IProfileListener;
+import com.comapi.internal.network.model.events.ProfileUpdateEvent;
+import com.comapi.internal.network.model.events.conversation.ConversationCreateEvent;
+import com.comapi.internal.network.model.events.conversation.ConversationDeleteEvent;
+import com.comapi.internal.network.model.events.conversation.ConversationUndeleteEvent;
+import com.comapi.internal.network.model.events.conversation.ConversationUpdateEvent;
+import com.comapi.internal.network.model.events.conversation.ParticipantAddedEvent;
+import com.comapi.internal.network.model.events.conversation.ParticipantRemovedEvent;
+import com.comapi.internal.network.model.events.conversation.ParticipantUpdatedEvent;
+
+/**
+ * Invalidates responses cached by {@link ETagCacheInterceptor} when socket events report that a conversation,
+ * its participants or a profile has changed.
+ *
+ * @author Marcin Swierczek
+ * @since 1.8.0
+ */
+public class ResponseCacheInvalidator extends MessagingListener implements IProfileListener {
+
+    private final ETagCacheInterceptor cache;
+
+    /**
+     * Recommended constructor.
+     *
+     * @param cache Response cache to invalidate.
+     */
+    ResponseCacheInvalidator(ETagCacheInterceptor cache) {
+        this.cache = cache;
+    }
+
+    @Override
+    public void onParticipantAdded(ParticipantAddedEvent event) {
+        invalidateConversation(event.getConversationId());
+    }
+
+    @Override
+    public void onParticipantUpdated(ParticipantUpdatedEvent event) {
+        invalidateConversation(event.getConversationId());
+    }
+
+    @Override
+    public void onParticipantRemoved(ParticipantRemovedEvent event) {
+        invalidateConversation(event.getConversationId());
+    }
+
+    @Override
+    @SuppressWarnings("deprecation")
+    public void onConversationCreated(ConversationCreateEvent event) {
+        invalidateConversation(event.getConversationId());
+    }
+
+    @Override
+    public void onConversationUpdated(ConversationUpdateEvent event) {
+        invalidateConversation(event.getConversationId());
+    }
+
+    @Override
+    public void onConversationDeleted(ConversationDeleteEvent event) {
+        invalidateConversation(event.getConversationId());
+    }
+
+    @Override
+    public void onConversationUndeleted(ConversationUndeleteEvent event) {
+        invalidateConversation(event.getConversationId());
+    }
+
+    @Override
+    public void onProfileUpdate(ProfileUpdateEvent event) {
+        if (event.getProfileId() != null) {
+            cache.invalidateProfile(event.getProfileId());
+        }
+    }
+
+    private void invalidateConversation(String conversationId) {
+        if (conversationId != null) {
+            cache.invalidateConversation(conversationId);
+        }
+    }
+}
@@ -22,16 +22,14 @@ package com.comapi.internal.network;
 
 import androidx.annotation.NonNull;
 
+import com.comapi.internal.Parser;
 import com.comapi.internal.log.LogLevelConst;
 import com.comapi.internal.network.api.RestApi;
-import com.google.gson.ExclusionStrategy;
-import com.google.gson.FieldAttributes;
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
-import com.google.gson.annotations.SerializedName;
 
 import java.util.concurrent.TimeUnit;
 
+import okhttp3.ConnectionPool;
+import okhttp3.Interceptor;
 import okhttp3.OkHttpClient;
 import okhttp3.logging.HttpLoggingInterceptor;
 import retrofit2.Retrofit;
@@ -67,6 +65,16 @@ class RestClient {
      */
     private RestApi service;
 
+    /**
+     * HTTP client used by the REST API.
+     */
+    private OkHttpClient client;
+
+    /**
+     * HTTP client without the SDK interceptors sharing connection pool and dispatcher with the REST API client.
+     */
+    private OkHttpClient baseClient;
+
     /**
      * Recommended constructor.
      *
@@ -74,8 +82,25 @@ class RestClient {
      * @param baseUrl  Base URL endpoint for services.
      */
     RestClient(final OkHttpAuthenticator authenticator, int logLevel, String baseUrl) {
+        this(authenticator, logLevel, baseUrl, new NetworkConfig(), null, null, null, null);
+    }
+
+    /**
+     * Recommended constructor.
+     *
+     * @param logLevel       Log level threshold for logging service requests and responses.
+     * @param baseUrl        Base URL endpoint for services.
+     * @param networkConfig  Network layer configuration.
+     * @param responseCache  Cache of conversation, participants and profile responses revalidated with ETags, null to disable.
+     * @param serverClock    Clock estimating the services time from response Date headers, null to disable.
+     * @param metrics        Statistics of the SDK traffic, null to disable.
+     * @param circuitBreaker Breaker failing service calls immediately when offline or when the services keep failing, null to disable.
+     */
+    RestClient(final OkHttpAuthenticator authenticator, int logLevel, String baseUrl, @NonNull NetworkConfig networkConfig, ETagCacheInterceptor responseCache, ServerClock serverClock, NetworkMetrics metrics, CircuitBreaker circuitBreaker) {
         if (service == null) {
-            createService(createOkHttpClient(authenticator, logLevel), baseUrl);
+            baseClient = createBaseOkHttpClient(networkConfig);
+            client = createOkHttpClient(baseClient, authenticator, logLevel, networkConfig, responseCache, serverClock, metrics, circuitBreaker);
+            createService(client, baseUrl);
         }
     }
 
@@ -89,44 +114,114 @@ class RestClient {
     }
 
     /**
-     * Create and configure OkHTTP client.
+     * Gets HTTP client used by the service APIs.
+     *
+     * @return HTTP client.
+     */
+    OkHttpClient getHttpClient() {
+        return client;
+    }
+
+    /**
+     * Gets HTTP client sharing connection pool, dispatcher and timeouts with the service APIs client, but without the interceptors
+     * and authenticator specific to Comapi services.
+     *
+     * @return HTTP client.
+     */
+    OkHttpClient getBaseHttpClient() {
+        return baseClient;
+    }
+
+    /**
+     * Create OkHTTP client with the app client settings, timeouts and connection setup, but without the SDK interceptors.
      *
-     * @param authenticator Class to intercept unauthorised responses and authenticate.
-     * @param logLevel      Log level threshold for logging service requests and responses.
+     * @param networkConfig Network layer configuration.
      * @return OkHTTP client.
      */
-    private OkHttpClient createOkHttpClient(OkHttpAuthenticator authenticator, int logLevel) {
+    private OkHttpClient createBaseOkHttpClient(NetworkConfig networkConfig) {
+
+        final OkHttpClient appClient = networkConfig.getOkHttpClient();
 
-        OkHttpClient.Builder builder = new OkHttpClient.Builder()
-                .addInterceptor(loggingInterceptor(logLevel))
-                .connectTimeout(CONNECT_TIMEOUT, TimeUnit.SECONDS)
-                .writeTimeout(WRITE_TIMEOUT, TimeUnit.SECONDS)
-                .readTimeout(READ_TIMEOUT, TimeUnit.SECONDS)
-                .authenticator(authenticator);
+        // derived client shares connection pool, dispatcher and TLS setup with the app client
+        OkHttpClient.Builder builder = appClient != null ? appClient.newBuilder() : new OkHttpClient.Builder();
+
+        if (appClient == null || networkConfig.getConnectTimeoutSeconds() != null) {
+            builder.connectTimeout(valueOrDefault(networkConfig.getConnectTimeoutSeconds(), CONNECT_TIMEOUT), TimeUnit.SECONDS);
+        }
+        if (appClient == null || networkConfig.getWriteTimeoutSeconds() != null) {
+            builder.writeTimeout(valueOrDefault(networkConfig.getWriteTimeoutSeconds(), WRITE_TIMEOUT), TimeUnit.SECONDS);
+        }
+        if (appClient == null || networkConfig.getReadTimeoutSeconds() != null) {
+            builder.readTimeout(valueOrDefault(networkConfig.getReadTimeoutSeconds(), READ_TIMEOUT), TimeUnit.SECONDS);
+        }
+        if (appClient == null && networkConfig.getMaxIdleConnections() != null && networkConfig.getKeepAliveSeconds() != null) {
+            // the app connection pool is never replaced, so the SDK doesn't detach from it
+            builder.connectionPool(new ConnectionPool(networkConfig.getMaxIdleConnections(), networkConfig.getKeepAliveSeconds(), TimeUnit.SECONDS));
+        }
+        if (networkConfig.getProtocols() != null && !networkConfig.getProtocols().isEmpty()) {
+            builder.protocols(networkConfig.getProtocols());
+        }
 
         return builder.build();
     }
 
     /**
-     * Create and configure HTTP interceptor that will log the bodies of requests and responses.
+     * Create and configure OkHTTP client for Comapi services.
      *
-     * @param logLevel Log level threshold for logging service requests and responses.
-     * @return Interceptor to be used to configure the OkHTTP client.
+     * @param baseClient     Client with the connection setup to add the SDK interceptors to.
+     * @param authenticator  Class to intercept unauthorised responses and authenticate.
+     * @param logLevel       Log level threshold for logging service requests and responses.
+     * @param networkConfig  Network layer configuration.
+     * @param responseCache  Cache of responses revalidated with ETags, null if disabled.
+     * @param serverClock    Clock estimating the services time, null if disabled.
+     * @param metrics        Statistics of the SDK traffic, null if disabled.
+     * @param circuitBreaker Breaker failing service calls immediately, null if disabled.
+     * @return OkHTTP client.
      */
-    private HttpLoggingInterceptor loggingInterceptor(int logLevel) {
+    private OkHttpClient createOkHttpClient(OkHttpClient baseClient, OkHttpAuthenticator authenticator, int logLevel, NetworkConfig networkConfig, ETagCacheInterceptor responseCache, ServerClock serverClock, NetworkMetrics metrics, CircuitBreaker circuitBreaker) {
+
+        OkHttpClient.Builder builder = baseClient.newBuilder();
+
+        if (circuitBreaker != null) {
+            // fail before the call takes a slot of the background requests limit
+            builder.addInterceptor(circuitBreaker);
+        }
+
+        builder.addInterceptor(new PriorityInterceptor(networkConfig.getBackgroundRequestsConcurrency(), PriorityInterceptor.MAX_WAIT_MILLIS));
 
-        HttpLoggingInterceptor interceptor = new HttpLoggingInterceptor();
+        if (serverClock != null) {
+            builder.addInterceptor(serverClock);
+        }
 
-        switch (logLevel) {
-            case LogLevelConst.DEBUG:
-                interceptor.setLevel(HttpLoggingInterceptor.Level.BODY);
-                break;
-            default:
-                interceptor.setLevel(HttpLoggingInterceptor.Level.NONE);
-                break;
+        if (responseCache != null) {
+            builder.addInterceptor(responseCache);
         }
 
-        return interceptor;
+        if (logLevel == LogLevelConst.DEBUG) {
+            builder.addInterceptor(loggingInterceptor(networkConfig));
+        }
+
+        builder.authenticator(authenticator);
+
+        if (metrics != null) {
+            builder.addNetworkInterceptor(new MetricsInterceptor(metrics));
+        }
+
+        return builder.build();
+    }
+
+    private static int valueOrDefault(Integer value, int defaultValue) {
+        return value != null ? value : defaultValue;
+    }
+
+    /**
+     * Create and configure HTTP interceptor that will log requests and responses with capped bodies.
+     *
+     * @param networkConfig Network layer configuration with the body logging cap and sample rate.
+     * @return Interceptor to be used to configure the OkHTTP client.
+     */
+    private Interceptor loggingInterceptor(NetworkConfig networkConfig) {
+        return new BodyLoggingInterceptor(HttpLoggingInterceptor.Logger.DEFAULT, networkConfig.getLogBodyMaxBytes(), networkConfig.getLogLargeBodySampleRate());
     }
 
     /**
@@ -138,7 +233,7 @@ class RestClient {
 
         Retrofit retrofit = new Retrofit.Builder()
                 .baseUrl(baseUrl)
-                .addConverterFactory(GsonConverterFactory.create(createGson()))
+                .addConverterFactory(GsonConverterFactory.create(Parser.getGson()))
                 .addCallAdapterFactory(RxJavaCallAdapterFactory.create())
                 .client(client)
                 .build();
@@ -146,28 +241,4 @@ class RestClient {
         service = retrofit.create(RestApi.class);
     }
 
-    /**
-     * Create Gson converter for the service.
-     *
-     * @return Gson converter.
-     */
-    private Gson createGson() {
-
-        GsonBuilder gsonBuilder = new GsonBuilder().disableHtmlEscaping().setLenient().
-
-                addSerializationExclusionStrategy(new ExclusionStrategy() {
-                    @Override
-                    public boolean shouldSkipField(FieldAttributes f) {
-                        return f.getAnnotation(SerializedName.class) == null;
-                    }
-
-                    @Override
-                    public boolean shouldSkipClass(Class<?> clazz) {
-                        return false;
-                    }
-                });
-
-        return gsonBuilder.create();
-    }
-
 }
@@ -0,0 +1,212 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Comapi (trading name of Dynmark International Limited)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons
+ * to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.comapi.internal.network;
+
+import android.content.Context;
+import android.net.Uri;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.comapi.Callback;
+import com.comapi.internal.CallbackAdapter;
+import com.comapi.internal.data.UploadDAO;
+import com.comapi.internal.data.UploadState;
+import com.comapi.internal.log.Logger;
+import com.comapi.internal.network.model.messaging.UploadContentResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import okhttp3.MediaType;
+import rx.Observable;
+
+/**
+ * Handle of a content upload that survives failures and process restarts. Progress is persisted after every uploaded part, starting the upload again
+ * sends only the missing parts. Content is split into parts only if {@link NetworkConfig#setPartUploader(PartUploader)} has been set and the content size is known,
+ * otherwise it is sent to Comapi content API in a single request which is repeated from the beginning when resumed.
+ *
+ * @author Marcin Swierczek
+ * @since 1.8.0
+ */
+public class ResumableUpload {
+
+    private final Context context;
+
+    private final InternalService service;
+
+    private final UploadDAO dao;
+
+    private final UploadState state;
+
+    private final PartUploader uploader;
+
+    private final int concurrency;
+
+    private final CallbackAdapter adapter;
+
+    private final Logger log;
+
+    private UploadProgressListener progressListener;
+
+    /**
+     * Recommended constructor.
+     *
+     * @param context     Application context.
+     * @param service     Service APIs uploading whole content and adding retries to part uploads.
+     * @param dao         Persistent storage for the upload progress.
+     * @param state       Upload progress.
+     * @param uploader    Multipart uploader, null if content should be sent in a single request.
+     * @param concurrency Maximum number of parts uploaded in parallel.
+     * @param adapter     Adapter for callback style calls.
+     * @param log         Internal logger.
+     */
+    ResumableUpload(@NonNull Context context, @NonNull InternalService service, @NonNull UploadDAO dao, @NonNull UploadState state,
+                    @Nullable PartUploader uploader, int concurrency, @NonNull CallbackAdapter adapter, @NonNull Logger log) {
+        this.context = context.getApplicationContext() != null ? context.getApplicationContext() : context;
+        this.service = service;
+        this.dao = dao;
+        this.state = state;
+        this.uploader = uploader;
+        this.concurrency = Math.max(1, concurrency);
+        this.adapter = adapter;
+        this.log = log;
+    }
+
+    /**
+     * Gets unique identifier of the upload. Use it to find the upload after process restart.
+     *
+     * @return Unique identifier of the upload.
+     */
+    public String getId() {
+        return state.getId();
+    }
+
+    /**
+     * Gets size of the content.
+     *
+     * @return Size of the content, -1 if not known.
+     */
+    public long getLength() {
+        return state.getLength();
+    }
+
+    /**
+     * Gets number of bytes in the parts uploaded so far.
+     *
+     * @return Number of uploaded bytes.
+     */
+    public long getUploadedBytes() {
+        return state.getUploadedBytes();
+    }
+
+    /**
+     * Sets listener for the upload progress.
+     *
+     * @param progressListener Listener for the upload progress called on a network thread.
+     * @return Resumable upload handle.
+     */
+    public ResumableUpload setProgressListener(@Nullable UploadProgressListener progressListener) {
+        this.progressListener = progressListener;
+        return this;
+    }
+
+    /**
+     * Starts or resumes the upload. Only parts that have not been uploaded yet are sent.
+     *
+     * @return Observable emitting details of uploaded content.
+     */
+    public Observable<ComapiResult<UploadContentResponse>> start() {
+        return Observable.defer(() -> isMultipart() ? uploadParts() : uploadWhole())
+                .doOnNext(result -> {
+                    if (result.isSuccessful()) {
+                        dao.remove(state.getId());
+                    }
+                });
+    }
+
+    /**
+     * Starts or resumes the upload. Only parts that have not been uploaded yet are sent.
+     *
+     * @param callback Callback with the details of uploaded content.
+     */
+    public void start(@Nullable Callback<ComapiResult<UploadContentResponse>> callback) {
+        adapter.adapt(start(), callback);
+    }
+
+    /**
+     * Removes persisted progress of the upload. The upload cannot be resumed afterwards.
+     */
+    public void discard() {
+        dao.remove(state.getId());
+    }
+
+    private boolean isMultipart() {
+        return uploader != null && state.getLength() > 0;
+    }
+
+    private Observable<ComapiResult<UploadContentResponse>> uploadWhole() {
+        ContentData data = ContentData.create(context, Uri.parse(state.getUri()), state.getType(), state.getName()).setProgressListener(progressListener);
+        return service.uploadContent(state.getFolder(), data);
+    }
+
+    private Observable<ComapiResult<UploadContentResponse>> uploadParts() {
+
+        final Observable<String> uploadId = state.getUploadId() != null ? Observable.just(state.getUploadId()) :
+                uploader.begin(state.getFolder(), state.getName(), state.getType(), state.getLength())
+                        .doOnNext(id -> dao.save(state.setUploadId(id)));
+
+        return uploadId.flatMap(id -> {
+            List<Integer> pending = new ArrayList<>();
+            for (int i = 0; i < state.getPartCount(); i++) {
+                if (!state.isPartCompleted(i)) {
+                    pending.add(i);
+                }
+            }
+            log.d("Uploading " + pending.size() + " of " + state.getPartCount() + " parts of " + state.getId());
+            return Observable.from(pending)
+                    .flatMap(index -> uploadPart(id, index), concurrency)
+                    .toList()
+                    .flatMap(parts -> uploader.complete(id, state.getPartCount()))
+                    .map(response -> new ComapiResult<>(response, true, null, 200, "OK", null));
+        });
+    }
+
+    private Observable<Integer> uploadPart(final String id, final int index) {
+
+        final long offset = index * state.getPartSize();
+        final long size = Math.min(state.getPartSize(), state.getLength() - offset);
+        final MediaType type = MediaType.parse(state.getType());
+
+        Observable<Void> part = Observable.defer(() -> uploader.uploadPart(id, index, offset,
+                new RangeRequestBody(type, context.getContentResolver(), Uri.parse(state.getUri()), offset, size)));
+
+        return service.addRetries(part, log, "Uploading part " + index + " of " + state.getId(), CallClass.UPDATE)
+                .ignoreElements()
+                .map(ignored -> index)
+                .concatWith(Observable.fromCallable(() -> {
+                    dao.save(state.addCompletedPart(index));
+                    if (progressListener != null) {
+                        progressListener.onProgress(state.getUploadedBytes(), state.getLength());
+                    }
+                    return index;
+                }));
+    }
+}
@@ -0,0 +1,241 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Comapi (trading name of Dynmark International Limited)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons
+ * to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.comapi.internal.network;
+
+import androidx.annotation.NonNull;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.SocketTimeoutException;
+import java.net.UnknownHostException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Retry policy for a class of service calls. Failed calls are retried with exponential backoff and full jitter,
+ * 'Retry-After' header of 429 and 503 responses is honoured.
+ *
+ * @author Marcin Swierczek
+ * @since 1.8.0
+ */
+public class RetryPolicy {
+
+    /**
+     * Default number of retries after the first attempt.
+     */
+    private static final int DEFAULT_MAX_RETRIES = 3;
+
+    /**
+     * Default backoff before the first retry in milliseconds.
+     */
+    private static final int DEFAULT_BASE_DELAY = 500;
+
+    /**
+     * Default maximum backoff and 'Retry-After' wait in milliseconds.
+     */
+    private static final int DEFAULT_MAX_DELAY = 20000;
+
+    /**
+     * Returned when the call should not be retried.
+     */
+    static final long NO_RETRY = -1;
+
+    private static final Random random = new Random();
+
+    private int maxRetries;
+
+    private int baseDelayMillis;
+
+    private int maxDelayMillis;
+
+    /**
+     * Default constructor.
+     */
+    public RetryPolicy() {
+        maxRetries = DEFAULT_MAX_RETRIES;
+        baseDelayMillis = DEFAULT_BASE_DELAY;
+        maxDelayMillis = DEFAULT_MAX_DELAY;
+    }
+
+    /**
+     * Creates policy that never retries failed calls.
+     *
+     * @return Retry policy.
+     */
+    public static RetryPolicy none() {
+        return new RetryPolicy().setMaxRetries(0);
+    }
+
+    /**
+     * Gets maximum number of retries after the first attempt.
+     *
+     * @return Maximum number of retries.
+     */
+    public int getMaxRetries() {
+        return maxRetries;
+    }
+
+    /**
+     * Sets maximum number of retries after the first attempt. Zero disables retries.
+     *
+     * @param maxRetries Maximum number of retries.
+     * @return Retry policy.
+     */
+    public RetryPolicy setMaxRetries(int maxRetries) {
+        this.maxRetries = Math.max(0, maxRetries);
+        return this;
+    }
+
+    /**
+     * Gets backoff before the first retry in milliseconds.
+     *
+     * @return Backoff before the first retry in milliseconds.
+     */
+    public int getBaseDelayMillis() {
+        return baseDelayMillis;
+    }
+
+    /**
+     * Sets backoff before the first retry in milliseconds. The backoff doubles with every retry and the actual delay is random between zero and the backoff.
+     *
+     * @param baseDelayMillis Backoff before the first retry in milliseconds.
+     * @return Retry policy.
+     */
+    public RetryPolicy setBaseDelayMillis(int baseDelayMillis) {
+        this.baseDelayMillis = Math.max(0, baseDelayMillis);
+        return this;
+    }
+
+    /**
+     * Gets maximum backoff in milliseconds.
+     *
+     * @return Maximum backoff in milliseconds.
+     */
+    public int getMaxDelayMillis() {
+        return maxDelayMillis;
+    }
+
+    /**
+     * Sets maximum backoff in milliseconds. Responses asking with 'Retry-After' header to wait longer than that are passed to the app.
+     *
+     * @param maxDelayMillis Maximum backoff in milliseconds.
+     * @return Retry policy.
+     */
+    public RetryPolicy setMaxDelayMillis(int maxDelayMillis) {
+        this.maxDelayMillis = Math.max(0, maxDelayMillis);
+        return this;
+    }
+
+    /**
+     * Gets delay before retrying a call that finished with a service response.
+     *
+     * @param attempt   Number of retries made so far.
+     * @param callClass Class of the service call.
+     * @param result    Service call result.
+     * @param now       Current time according to the services clock.
+     * @return Delay in milliseconds or {@link #NO_RETRY} if the call should not be retried.
+     */
+    long getRetryDelay(int attempt, @NonNull CallClass callClass, @NonNull ComapiResult<?> result, long now) {
+
+        if (attempt >= maxRetries) {
+            return NO_RETRY;
+        }
+
+        final int code = result.getCode();
+        if (code == 429 || code == 503) {
+            // the services refused to process the request
+            long retryAfter = getRetryAfter(result, now);
+            if (retryAfter > maxDelayMillis) {
+                return NO_RETRY;
+            }
+            return Math.max(retryAfter, backoff(attempt));
+        } else if (callClass != CallClass.SEND && (code == 408 || code == 502 || code == 504)) {
+            return backoff(attempt);
+        }
+
+        return NO_RETRY;
+    }
+
+    /**
+     * Gets delay before retrying a call that failed with an exception.
+     *
+     * @param attempt   Number of retries made so far.
+     * @param callClass Class of the service call.
+     * @param t         Call error.
+     * @return Delay in milliseconds or {@link #NO_RETRY} if the call should not be retried.
+     */
+    long getRetryDelay(int attempt, @NonNull CallClass callClass, @NonNull Throwable t) {
+
+        if (attempt >= maxRetries || !(t instanceof IOException)) {
+            return NO_RETRY;
+        }
+
+        if (t instanceof CircuitOpenException) {
+            // offline or the services keep failing, the circuit breaker decides when to try again
+            return NO_RETRY;
+        }
+
+        if (t instanceof InterruptedIOException && !(t instanceof SocketTimeoutException)) {
+            // call has been cancelled
+            return NO_RETRY;
+        }
+
+        if (callClass == CallClass.SEND && !(t instanceof ConnectException || t instanceof UnknownHostException || t instanceof NoRouteToHostException)) {
+            // request might have reached the services
+            return NO_RETRY;
+        }
+
+        return backoff(attempt);
+    }
+
+    /**
+     * Exponential backoff with full jitter. Spreads retries of many clients after an outage.
+     *
+     * @param attempt Number of retries made so far.
+     * @return Random delay between zero and the exponential backoff.
+     */
+    private long backoff(int attempt) {
+        long cap = Math.min(maxDelayMillis, (long) baseDelayMillis << Math.min(attempt, 30));
+        return cap > 0 ? (long) (random.nextDouble() * cap) : 0;
+    }
+
+    /**
+     * Gets delay requested by the 'Retry-After' header of the service response.
+     *
+     * @param result Service call result.
+     * @param now    Current time according to the services clock, used when the header is a HTTP date.
+     * @return Delay in milliseconds, zero if not available.
+     */
+    static long getRetryAfter(@NonNull ComapiResult<?> result, long now) {
+
+        final String value = result.getRetryAfter();
+        if (value == null) {
+            return 0;
+        }
+
+        try {
+            return TimeUnit.SECONDS.toMillis(Math.max(0, Long.parseLong(value.trim())));
+        } catch (NumberFormatException e) {
+            return result.getRetryAfterDate() != null ? Math.max(0, result.getRetryAfterDate().getTime() - now) : 0;
+        }
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Comapi (trading name of Dynmark International Limited)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons
+ * to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.comapi.internal.network;
+
+import java.io.IOException;
+import java.util.Date;
+
+import okhttp3.Interceptor;
+import okhttp3.Response;
+
+/**
+ * Estimates the offset between the device clock and the Comapi services clock from Date headers of service responses.
+ * Used to compare session expiry times issued by the services with the current time on devices with a skewed clock.
+ *
+ * @author Marcin Swierczek
+ * @since 1.8.0
+ */
+public class ServerClock implements Interceptor {
+
+    /**
+     * Date header has a one second precision, on average the server time is half a second later than the header value.
+     */
+    private static final long DATE_HEADER_PRECISION_CORRECTION = 500;
+
+    /**
+     * Responses with a longer round trip are not precise enough to estimate the offset.
+     */
+    private static final long MAX_ROUND_TRIP = 10000;
+
+    private final Object lock = new Object();
+
+    private boolean hasEstimate;
+
+    private long offset;
+
+    /**
+     * Gets current time according to the services clock.
+     *
+     * @return Estimated services time in milliseconds since epoch.
+     */
+    public long currentTimeMillis() {
+        return System.currentTimeMillis() + getOffset();
+    }
+
+    /**
+     * Gets estimated offset of the services clock relative to the device clock.
+     *
+     * @return Offset in milliseconds, positive if the device clock is behind the services clock.
+     */
+    public long getOffset() {
+        synchronized (lock) {
+            return offset;
+        }
+    }
+
+    /**
+     * Updates the offset estimate with a new response.
+     *
+     * @param serverDate Value of the response Date header in milliseconds since epoch.
+     * @param sentAt     Device time when the request was sent.
+     * @param receivedAt Device time when the response was received.
+     */
+    void update(long serverDate, long sentAt, long receivedAt) {
+
+        if (receivedAt < sentAt || receivedAt - sentAt > MAX_ROUND_TRIP) {
+            return;
+        }
+
+        long sample = serverDate + DATE_HEADER_PRECISION_CORRECTION - (sentAt + (receivedAt - sentAt) / 2);
+
+        synchronized (lock) {
+            if (hasEstimate) {
+                // smooth out the header precision and network jitter
+                offset += (sample - offset) / 4;
+            } else {
+                offset = sample;
+                hasEstimate = true;
+            }
+        }
+    }
+
+    @Override
+    public Response intercept(Chain chain) throws IOException {
+
+        Response response = chain.proceed(chain.request());
+
+        Date date = response.headers().getDate("Date");
+        if (date != null && response.sentRequestAtMillis() > 0) {
+            update(date.getTime(), response.sentRequestAtMillis(), response.receivedResponseAtMillis());
+        }
+
+        return response;
+    }
+}
@@ -25,7 +25,6 @@ import androidx.annotation.Nullable;
 import android.text.TextUtils;
 
 import com.comapi.QueryBuilder;
-import com.comapi.internal.Parser;
 import com.comapi.internal.log.Logger;
 import com.comapi.internal.network.api.RestApi;
 import com.comapi.internal.network.model.conversation.ConversationCreate;
@@ -71,6 +70,17 @@ class ServiceApiWrapper extends ApiWrapper {
      * @param apiSpaceId  Comapi Api Space in which the SDK operates.
      */
     ServiceApiWrapper(@NonNull String apiSpaceId, @NonNull Logger log) {
+        this(apiSpaceId, new NetworkConfig(), log);
+    }
+
+    /**
+     * Recommended constructor.
+     *
+     * @param apiSpaceId    Comapi Api Space in which the SDK operates.
+     * @param networkConfig Network layer configuration with retry policies for classes of service calls.
+     */
+    ServiceApiWrapper(@NonNull String apiSpaceId, @NonNull NetworkConfig networkConfig, @NonNull Logger log) {
+        super(networkConfig);
         this.apiSpaceId = apiSpaceId;
         this.log = log;
     }
@@ -93,7 +103,7 @@ class ServiceApiWrapper extends ApiWrapper {
      * @return Observable to send message to a conversation.
      */
     Observable<ComapiResult<MessageSentResponse>> doSendMessage(@NonNull final String token, @NonNull final String conversationId, @NonNull final MessageToSend message) {
-        return wrapObservable(service.sendMessage(AuthManager.addAuthPrefix(token), apiSpaceId, conversationId, message).map(mapToComapiResult()), log, "Sending message to conversation " + conversationId);
+        return wrapObservable(service.sendMessage(AuthManager.addAuthPrefix(token), apiSpaceId, conversationId, message).map(mapToComapiResult()), log, "Sending message to conversation " + conversationId, CallClass.SEND);
     }
 
     /**
@@ -105,7 +115,13 @@ class ServiceApiWrapper extends ApiWrapper {
      * @return Observable emitting details of uploaded content.
      */
     Observable<ComapiResult<UploadContentResponse>> doUploadContent(@NonNull final String token, @NonNull final String folder, @Nullable final String name, @NonNull final ContentData data) {
-        return wrapObservable(service.uploadContent(AuthManager.addAuthPrefix(token), apiSpaceId, folder, name, data.getBody()).map(mapToComapiResult()), log, "Uploading content " + name);
+        final Observable<ComapiResult<UploadContentResponse>> upload = service.uploadContent(AuthManager.addAuthPrefix(token), apiSpaceId, folder, name, data.getBody()).map(mapToComapiResult());
+        if (data.isRepeatable()) {
+            return wrapObservable(upload, log, "Uploading content " + name, CallClass.SEND);
+        } else {
+            // one-shot stream can't be sent again, the service response is passed to the caller
+            return wrapObservable(upload, log, "Uploading content " + name);
+        }
     }
 
     /**
@@ -116,7 +132,7 @@ class ServiceApiWrapper extends ApiWrapper {
      * @return Profile details from the service.
      */
     Observable<ComapiResult<Map<String, Object>>> doGetProfile(@NonNull final String token, @NonNull final String profileId) {
-        return wrapObservable(service.getProfile(AuthManager.addAuthPrefix(token), apiSpaceId, profileId).map(mapToComapiResult()), log, "Getting profile " + profileId);
+        return wrapObservable(service.getProfile(AuthManager.addAuthPrefix(token), apiSpaceId, profileId).map(mapToComapiResult()), log, "Getting profile " + profileId, CallClass.QUERY);
     }
 
     /**
@@ -128,7 +144,7 @@ class ServiceApiWrapper extends ApiWrapper {
      */
     Observable<ComapiResult<List<Map<String, Object>>>> doQueryProfiles(@NonNull final String token, @NonNull final String queryString) {
         final String uri = "/apispaces/" + apiSpaceId + "/profiles" + queryString;
-        return wrapObservable(service.queryProfiles(AuthManager.addAuthPrefix(token), uri).map(mapToComapiResult()), log, "Query profiles " + queryString);
+        return wrapObservable(service.queryProfiles(AuthManager.addAuthPrefix(token), uri).map(mapToComapiResult()), log, "Query profiles " + queryString, CallClass.QUERY);
     }
 
     /**
@@ -140,7 +156,7 @@ class ServiceApiWrapper extends ApiWrapper {
      */
     Observable<ComapiResult<Map<String, Object>>> doUpdateProfile(@NonNull final String token, @NonNull final String profileId, @NonNull final Map<String, Object> profileDetails, final String eTag) {
         return wrapObservable(!TextUtils.isEmpty(eTag) ? service.updateProfile(AuthManager.addAuthPrefix(token), eTag, apiSpaceId, profileId, profileDetails).map(mapToComapiResult()) : service.updateProfile(AuthManager.addAuthPrefix(token), apiSpaceId, profileId, profileDetails)
-                .map(mapToComapiResult()), log, "Updating profiles " + profileId);
+                .map(mapToComapiResult()), log, "Updating profiles " + profileId, CallClass.UPDATE);
     }
 
     /**
@@ -152,7 +168,7 @@ class ServiceApiWrapper extends ApiWrapper {
      */
     Observable<ComapiResult<Map<String, Object>>> doPatchProfile(@NonNull final String token, @NonNull final String profileId, @NonNull final Map<String, Object> profileDetails, final String eTag) {
         return wrapObservable(!TextUtils.isEmpty(eTag) ? service.patchProfile(AuthManager.addAuthPrefix(token), eTag, apiSpaceId, profileId, profileDetails).map(mapToComapiResult()) : service.patchProfile(AuthManager.addAuthPrefix(token), apiSpaceId, profileId, profileDetails)
-                .map(mapToComapiResult()), log, "Updating profiles " + profileId);
+                .map(mapToComapiResult()), log, "Updating profiles " + profileId, CallClass.UPDATE);
     }
 
     /**
@@ -164,7 +180,7 @@ class ServiceApiWrapper extends ApiWrapper {
      */
     Observable<ComapiResult<ConversationDetails>> doCreateConversation(@NonNull final String token, @NonNull final ConversationCreate request) {
         return wrapObservable(service.createConversation(AuthManager.addAuthPrefix(token), apiSpaceId, request)
-                .map(mapToComapiResult()), log, "Creating conversation" + request.getName());
+                .map(mapToComapiResult()), log, "Creating conversation" + request.getName(), CallClass.SEND);
     }
 
     /**
@@ -177,7 +193,7 @@ class ServiceApiWrapper extends ApiWrapper {
      */
     Observable<ComapiResult<Void>> doDeleteConversation(@NonNull final String token, @NonNull final String conversationId, final String eTag) {
         return wrapObservable(!TextUtils.isEmpty(eTag) ? service.deleteConversation(AuthManager.addAuthPrefix(token), eTag, apiSpaceId, conversationId).map(mapToComapiResult()) : service.deleteConversation(AuthManager.addAuthPrefix(token), apiSpaceId, conversationId)
-                .map(mapToComapiResult()), log, "Deleting conversation " + conversationId);
+                .map(mapToComapiResult()), log, "Deleting conversation " + conversationId, CallClass.UPDATE);
     }
 
     /**
@@ -188,7 +204,7 @@ class ServiceApiWrapper extends ApiWrapper {
      * @return Observable to to create a conversation.
      */
     Observable<ComapiResult<ConversationDetails>> doGetConversation(@NonNull final String token, @NonNull final String conversationId) {
-        return wrapObservable(service.getConversation(AuthManager.addAuthPrefix(token), apiSpaceId, conversationId).map(mapToComapiResult()), log, "Getting conversation" + conversationId);
+        return wrapObservable(service.getConversation(AuthManager.addAuthPrefix(token), apiSpaceId, conversationId).map(mapToComapiResult()), log, "Getting conversation" + conversationId, CallClass.QUERY);
     }
 
     /**
@@ -199,7 +215,7 @@ class ServiceApiWrapper extends ApiWrapper {
      * @return Observable to to create a conversation.
      */
     Observable<ComapiResult<List<Conversation>>> doGetConversations(@NonNull final String token, @NonNull final String profileId, @NonNull final Scope scope) {
-        return wrapObservable(service.getConversations(AuthManager.addAuthPrefix(token), apiSpaceId, scope.getValue(), profileId).map(mapToComapiResult()), log, "Getting conversations " + profileId + " " + scope.name());
+        return wrapObservable(service.getConversations(AuthManager.addAuthPrefix(token), apiSpaceId, scope.getValue(), profileId).map(mapToComapiResult()), log, "Getting conversations " + profileId + " " + scope.name(), CallClass.QUERY);
     }
 
     /**
@@ -213,7 +229,7 @@ class ServiceApiWrapper extends ApiWrapper {
      */
     Observable<ComapiResult<ConversationDetails>> doUpdateConversation(@NonNull final String token, @NonNull final String conversationId, @NonNull final ConversationUpdate request, final String eTag) {
         return wrapObservable(!TextUtils.isEmpty(eTag) ? service.updateConversation(AuthManager.addAuthPrefix(token), eTag, apiSpaceId, conversationId, request).map(mapToComapiResult()) : service.updateConversation(AuthManager.addAuthPrefix(token), apiSpaceId, conversationId, request)
-                .map(mapToComapiResult()), log, "Updating conversation " + conversationId);
+                .map(mapToComapiResult()), log, "Updating conversation " + conversationId, CallClass.UPDATE);
     }
 
     /**
@@ -225,7 +241,7 @@ class ServiceApiWrapper extends ApiWrapper {
      * @return Observable to remove list of participants from a conversation.
      */
     Observable<ComapiResult<Void>> doRemoveParticipants(@NonNull final String token, @NonNull final String conversationId, @NonNull final List<String> ids) {
-        return wrapObservable(service.deleteParticipants(AuthManager.addAuthPrefix(token), apiSpaceId, conversationId, ids).map(mapToComapiResult()), log, "Removing participants from " + conversationId);
+        return wrapObservable(service.deleteParticipants(AuthManager.addAuthPrefix(token), apiSpaceId, conversationId, ids).map(mapToComapiResult()), log, "Removing participants from " + conversationId, CallClass.UPDATE);
     }
 
     /**
@@ -236,7 +252,7 @@ class ServiceApiWrapper extends ApiWrapper {
      * @return Observable to get a list of conversation participants.
      */
     Observable<ComapiResult<List<Participant>>> doGetParticipants(@NonNull final String token, @NonNull final String conversationId) {
-        return wrapObservable(service.getParticipants(AuthManager.addAuthPrefix(token), apiSpaceId, conversationId).map(mapToComapiResult()), log, "Getting participants for " + conversationId);
+        return wrapObservable(service.getParticipants(AuthManager.addAuthPrefix(token), apiSpaceId, conversationId).map(mapToComapiResult()), log, "Getting participants for " + conversationId, CallClass.QUERY);
     }
 
     /**
@@ -248,7 +264,7 @@ class ServiceApiWrapper extends ApiWrapper {
      * @return Observable to add participants to a conversation.
      */
     Observable<ComapiResult<Void>> doAddParticipants(@NonNull final String token, @NonNull final String conversationId, @NonNull final List<Participant> participants) {
-        return wrapObservable(service.addParticipants(AuthManager.addAuthPrefix(token), apiSpaceId, conversationId, participants).map(mapToComapiResult()), log, "Adding participants to " + conversationId);
+        return wrapObservable(service.addParticipants(AuthManager.addAuthPrefix(token), apiSpaceId, conversationId, participants).map(mapToComapiResult()), log, "Adding participants to " + conversationId, CallClass.UPDATE);
     }
 
     /**
@@ -260,7 +276,7 @@ class ServiceApiWrapper extends ApiWrapper {
      * @return Observable to modify message statuses.
      */
     Observable<ComapiResult<Void>> doUpdateMessageStatus(@NonNull final String token, @NonNull final String conversationId, @NonNull final List<MessageStatusUpdate> msgStatusList) {
-        return wrapObservable(service.updateMessageStatus(AuthManager.addAuthPrefix(token), apiSpaceId, conversationId, msgStatusList).map(mapToComapiResult()), log, "Updating message status in conversation " + conversationId);
+        return wrapObservable(service.updateMessageStatus(AuthManager.addAuthPrefix(token), apiSpaceId, conversationId, msgStatusList).map(mapToComapiResult()), log, "Updating message status in conversation " + conversationId, CallClass.UPDATE);
     }
 
     /**
@@ -272,7 +288,7 @@ class ServiceApiWrapper extends ApiWrapper {
      * @return Observable to modify message statuses.
      */
     Observable<ComapiResult<Void>> doUpdatePushMessageStatus(@NonNull final String token, @NonNull final String messageId, @NonNull final String status) {
-        return wrapObservable(service.updatePushMessageStatus(AuthManager.addAuthPrefix(token), apiSpaceId, messageId, status).map(mapToComapiResult()), log, "Updating message " + messageId + " to "+ status);
+        return wrapObservable(service.updatePushMessageStatus(AuthManager.addAuthPrefix(token), apiSpaceId, messageId, status).map(mapToComapiResult()), log, "Updating message " + messageId + " to "+ status, CallClass.UPDATE);
     }
 
     /**
@@ -285,9 +301,9 @@ class ServiceApiWrapper extends ApiWrapper {
      * @return Observable to get events in a conversation.
      */
     Observable<ComapiResult<EventsQueryResponse>> doQueryEvents(@NonNull final String token, @NonNull final String conversationId, @NonNull final Long from, @NonNull final Integer limit) {
-        return addLogging(service.queryEvents(AuthManager.addAuthPrefix(token), apiSpaceId, conversationId, from, limit).map(mapToComapiResult()), log, "Querying events in " + conversationId)
+        return addLogging(addRetries(service.queryEvents(AuthManager.addAuthPrefix(token), apiSpaceId, conversationId, from, limit).map(mapToComapiResult()), log, "Querying events in " + conversationId, CallClass.QUERY), log, "Querying events in " + conversationId)
                 .flatMap(result -> {
-                    EventsQueryResponse newResult = new EventsQueryResponse(result.getResult(), new Parser());
+                    EventsQueryResponse newResult = new EventsQueryResponse(result.getResult());
                     return wrapObservable(Observable.just(new ComapiResult<>(result, newResult)));
                 });
     }
@@ -302,9 +318,9 @@ class ServiceApiWrapper extends ApiWrapper {
      * @return Observable to get events in a conversation.
      */
     Observable<ComapiResult<ConversationEventsResponse>> doQueryConversationEvents(@NonNull final String token, @NonNull final String conversationId, @NonNull final Long from, @NonNull final Integer limit) {
-        return addLogging(service.queryEvents(AuthManager.addAuthPrefix(token), apiSpaceId, conversationId, from, limit).map(mapToComapiResult()), log, "Querying conversation events in " + conversationId)
+        return addLogging(addRetries(service.queryEvents(AuthManager.addAuthPrefix(token), apiSpaceId, conversationId, from, limit).map(mapToComapiResult()), log, "Querying conversation events in " + conversationId, CallClass.QUERY), log, "Querying conversation events in " + conversationId)
                 .flatMap(result -> {
-                    ConversationEventsResponse newResult = new ConversationEventsResponse(result.getResult(), new Parser());
+                    ConversationEventsResponse newResult = new ConversationEventsResponse(result.getResult());
                     return wrapObservable(Observable.just(new ComapiResult<>(result, newResult)));
                 });
     }
@@ -319,7 +335,7 @@ class ServiceApiWrapper extends ApiWrapper {
      * @return Observable to get messages in a conversation.
      */
     Observable<ComapiResult<MessagesQueryResponse>> doQueryMessages(@NonNull final String token, @NonNull final String conversationId, final Long from, @NonNull final Integer limit) {
-        return wrapObservable(service.queryMessages(AuthManager.addAuthPrefix(token), apiSpaceId, conversationId, from, limit).map(mapToComapiResult()), log, "Querying messages in " + conversationId);
+        return wrapObservable(service.queryMessages(AuthManager.addAuthPrefix(token), apiSpaceId, conversationId, from, limit).map(mapToComapiResult()), log, "Querying messages in " + conversationId, CallClass.QUERY);
     }
 
     /**
@@ -329,7 +345,7 @@ class ServiceApiWrapper extends ApiWrapper {
      * @return @return Observable to get Facebook data-ref.
      */
     Observable<ComapiResult<String>> doCreateFbOptInState(@NonNull final String token) {
-        return wrapObservable(service.createFbOptInState(AuthManager.addAuthPrefix(token), apiSpaceId, new Object()).map(mapToComapiResult()), log, "Creating fb opt in state.");
+        return wrapObservable(service.createFbOptInState(AuthManager.addAuthPrefix(token), apiSpaceId, new Object()).map(mapToComapiResult()), log, "Creating fb opt in state.", CallClass.SEND);
     }
 
     /**
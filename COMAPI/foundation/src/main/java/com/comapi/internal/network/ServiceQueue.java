@@ -21,8 +21,15 @@
 package com.comapi.internal.network;
 
 import androidx.annotation.NonNull;
+import android.text.TextUtils;
 
+import com.comapi.internal.ComapiException;
+import com.comapi.internal.Parser;
 import com.comapi.internal.data.DataManager;
+import com.comapi.internal.data.OutboxDAO;
+import com.comapi.internal.data.OutboxEntry;
+import com.comapi.internal.data.SessionData;
+import com.comapi.internal.data.UploadIndexDAO;
 import com.comapi.internal.log.Logger;
 import com.comapi.internal.network.model.conversation.ConversationCreate;
 import com.comapi.internal.network.model.conversation.ConversationDetails;
@@ -38,13 +45,28 @@ import com.comapi.internal.network.model.messaging.MessageToSend;
 import com.comapi.internal.network.model.messaging.MessagesQueryResponse;
 import com.comapi.internal.network.model.messaging.UploadContentResponse;
 
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.reflect.TypeToken;
+
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
 
+import okhttp3.MediaType;
 import rx.Observable;
+import rx.Scheduler;
 import rx.functions.Func1;
+import rx.observables.ConnectableObservable;
+import rx.schedulers.Schedulers;
 import rx.subjects.AsyncSubject;
 
 /**
@@ -59,6 +81,8 @@ class ServiceQueue extends ServiceApiWrapper {
 
     protected final Logger log;
 
+    final NetworkConfig networkConfig;
+
     private final TaskQueue taskQueue;
 
     /**
@@ -69,10 +93,23 @@ class ServiceQueue extends ServiceApiWrapper {
      * @param log         Internal logger.
      */
     ServiceQueue(@NonNull String apiSpaceId, @NonNull  DataManager dataMgr, @NonNull  Logger log) {
-        super(apiSpaceId, log);
+        this(apiSpaceId, dataMgr, new NetworkConfig(), log);
+    }
+
+    /**
+     * Recommended constructor.
+     *
+     * @param apiSpaceId    Comapi Api Space in which SDK operates.
+     * @param dataMgr       Manager for internal data storage.
+     * @param networkConfig Network layer configuration.
+     * @param log           Internal logger.
+     */
+    ServiceQueue(@NonNull String apiSpaceId, @NonNull DataManager dataMgr, @NonNull NetworkConfig networkConfig, @NonNull Logger log) {
+        super(apiSpaceId, networkConfig, log);
         this.dataMgr = dataMgr;
         this.log = log;
-        taskQueue = new TaskQueue();
+        this.networkConfig = networkConfig;
+        taskQueue = new TaskQueue(networkConfig.getPendingCallsConcurrency(), TimeUnit.SECONDS.toMillis(networkConfig.getPendingCallsMaxWaitSeconds()));
     }
 
     /**
@@ -94,310 +131,698 @@ class ServiceQueue extends ServiceApiWrapper {
     }
 
     /**
-     * Observables queue wrapper to store pending service calls.
+     * Upload content data unless identical content has been uploaded to the same folder before and its details are still in the upload index.
+     * The content hash is calculated on a background thread. Content that can be read only once is always uploaded.
+     *
+     * @param token  Comapi access token.
+     * @param folder Folder name to put the file in.
+     * @param data   Content data.
+     * @return Observable emitting details of uploaded content.
+     */
+    Observable<ComapiResult<UploadContentResponse>> doUploadContentIfNew(@NonNull final String token, @NonNull final String folder, @NonNull final ContentData data) {
+
+        final long ttl = TimeUnit.SECONDS.toMillis(networkConfig.getUploadDedupeTtlSeconds());
+        if (ttl <= 0 || !data.isRepeatable()) {
+            return doUploadContent(token, folder, data.getName(), data);
+        }
+
+        return Observable.fromCallable(() -> {
+            try {
+                return data.getContentHash();
+            } catch (IOException e) {
+                log.w("Unable to calculate hash of content " + data.getName() + ". " + e.getLocalizedMessage());
+                return null;
+            }
+        }).subscribeOn(Schedulers.io()).flatMap(hash -> {
+
+            final SessionData session = dataMgr.getSessionDAO().session();
+            final String profileId = session != null ? session.getProfileId() : null;
+            if (hash == null || TextUtils.isEmpty(profileId)) {
+                return doUploadContent(token, folder, data.getName(), data);
+            }
+
+            final UploadIndexDAO index = dataMgr.getUploadIndexDAO();
+            final MediaType type = data.getBody().contentType();
+            final String key = apiSpaceId + ":" + profileId + ":" + hash + ":" + (type != null ? type.toString() : "") + ":" + folder;
+
+            final String cached = index.get(key);
+            if (cached != null) {
+                try {
+                    UploadContentResponse response = Parser.getGson().fromJson(cached, UploadContentResponse.class);
+                    if (response != null) {
+                        log.d("Content " + data.getName() + " already uploaded to " + folder + ", reusing " + response.getUrl());
+                        return Observable.just(new ComapiResult<>(response, true, null, 200, null, null));
+                    }
+                } catch (JsonParseException e) {
+                    log.w("Invalid upload index entry for content " + data.getName() + ". " + e.getLocalizedMessage());
+                }
+            }
+
+            return doUploadContent(token, folder, data.getName(), data).doOnNext(result -> {
+                if (result.isSuccessful() && result.getResult() != null) {
+                    index.put(key, Parser.getGson().toJson(result.getResult()), System.currentTimeMillis() + ttl);
+                }
+            });
+        });
+    }
+
+    /**
+     * Observables queue wrapper to store pending service calls. When the session is ready the pending calls are released
+     * in arrival order but no more than a configured number of calls is executed at the same time. Calls sharing an ordering key
+     * (e.g. the same conversation) are never executed concurrently so their relative order is preserved.
      */
     class TaskQueue {
 
-        ConcurrentLinkedQueue<AsyncSubject<String>> queue = new ConcurrentLinkedQueue<>();
+        final ConcurrentLinkedQueue<Task> queue = new ConcurrentLinkedQueue<>();
+
+        /**
+         * Ordering keys of the released calls that didn't finish yet.
+         */
+        private final Set<String> keysInFlight = new HashSet<>();
+
+        /**
+         * Outbox entries journaling calls owned by this process.
+         */
+        private final Set<String> liveOutboxIds = new HashSet<>();
+
+        private final Gson gson = Parser.getGson();
+
+        private final Object lock = new Object();
+
+        private final int maxConcurrency;
+
+        private final long maxWaitMillis;
+
+        private final Scheduler clock;
+
+        private int inFlight;
+
+        /**
+         * Recommended constructor.
+         *
+         * @param maxConcurrency Maximum number of pending calls executed at the same time.
+         * @param maxWaitMillis  Maximum time a call can wait in the queue before it fails, 0 for no limit.
+         */
+        TaskQueue(int maxConcurrency, long maxWaitMillis) {
+            this(maxConcurrency, maxWaitMillis, Schedulers.immediate());
+        }
+
+        /**
+         * Constructor with a time source for the queue waiting time.
+         *
+         * @param maxConcurrency Maximum number of pending calls executed at the same time.
+         * @param maxWaitMillis  Maximum time a call can wait in the queue before it fails, 0 for no limit.
+         * @param clock          Scheduler providing the current time.
+         */
+        TaskQueue(int maxConcurrency, long maxWaitMillis, @NonNull Scheduler clock) {
+            this.maxConcurrency = Math.max(1, maxConcurrency);
+            this.maxWaitMillis = maxWaitMillis;
+            this.clock = clock;
+        }
 
         Observable<ComapiResult<MessageSentResponse>> queueSendMessage(@NonNull final String conversationId, @NonNull final MessageToSend message) {
 
-            return createNewTask()
-                    .flatMap(new Func1<String, Observable<ComapiResult<MessageSentResponse>>>() {
-                        @Override
-                        public Observable<ComapiResult<MessageSentResponse>> call(String token) {
-                            log.d("doSendMessage called from the service queue. " + queue.size() + " requests still pending.");
-                            return doSendMessage(token, conversationId, message);
-                        }
-                    })
-                    .doOnCompleted(this::executePending);
+            String outboxId = journal(OutboxEntry.TYPE_MESSAGE, conversationId, message);
+            return enqueue(CallPriority.INTERACTIVE, conversationKey(conversationId), outboxId, new Func1<String, Observable<ComapiResult<MessageSentResponse>>>() {
+                @Override
+                public Observable<ComapiResult<MessageSentResponse>> call(String token) {
+                    log.d("doSendMessage called from the service queue. " + queue.size() + " requests still pending.");
+                    return doSendMessage(token, conversationId, message);
+                }
+            });
 
         }
 
         Observable<ComapiResult<UploadContentResponse>> queueUploadContent(@NonNull final String folder, @NonNull final ContentData body) {
 
-            return createNewTask()
-                    .flatMap(new Func1<String, Observable<ComapiResult<UploadContentResponse>>>() {
-                        @Override
-                        public Observable<ComapiResult<UploadContentResponse>> call(String token) {
-                            log.d("doUploadContent called from the service queue. " + queue.size() + " requests still pending.");
-                            return doUploadContent(token, folder, body.getName(), body);
-                        }
-                    })
-                    .doOnCompleted(this::executePending);
+            return enqueue(CallPriority.BACKGROUND, null, null, new Func1<String, Observable<ComapiResult<UploadContentResponse>>>() {
+                @Override
+                public Observable<ComapiResult<UploadContentResponse>> call(String token) {
+                    log.d("doUploadContent called from the service queue. " + queue.size() + " requests still pending.");
+                    return doUploadContentIfNew(token, folder, body);
+                }
+            });
         }
 
         Observable<ComapiResult<Map<String, Object>>> queueGetProfile(String profileId) {
 
-            return createNewTask()
-                    .flatMap(new Func1<String, Observable<ComapiResult<Map<String, Object>>>>() {
-                        @Override
-                        public Observable<ComapiResult<Map<String, Object>>> call(String token) {
-                            log.d("doGetProfile called from the service queue. " + queue.size() + " requests still pending.");
-                            return doGetProfile(token, profileId);
-                        }
-                    })
-                    .doOnCompleted(this::executePending);
+            return enqueue(profileKey(profileId), new Func1<String, Observable<ComapiResult<Map<String, Object>>>>() {
+                @Override
+                public Observable<ComapiResult<Map<String, Object>>> call(String token) {
+                    log.d("doGetProfile called from the service queue. " + queue.size() + " requests still pending.");
+                    return doGetProfile(token, profileId);
+                }
+            });
         }
 
         Observable<ComapiResult<List<Map<String, Object>>>> queueQueryProfiles(String queryString) {
 
-            return createNewTask()
-                    .flatMap(new Func1<String, Observable<ComapiResult<List<Map<String, Object>>>>>() {
-                        @Override
-                        public Observable<ComapiResult<List<Map<String, Object>>>> call(String token) {
-                            log.d("doQueryProfiles called from the service queue. " + queue.size() + " requests still pending.");
-                            return doQueryProfiles(token, queryString);
-                        }
-                    })
-                    .doOnCompleted(this::executePending);
+            return enqueue(null, new Func1<String, Observable<ComapiResult<List<Map<String, Object>>>>>() {
+                @Override
+                public Observable<ComapiResult<List<Map<String, Object>>>> call(String token) {
+                    log.d("doQueryProfiles called from the service queue. " + queue.size() + " requests still pending.");
+                    return doQueryProfiles(token, queryString);
+                }
+            });
         }
 
         Observable<ComapiResult<Map<String, Object>>> queueUpdateProfile(Map<String, Object> profileDetails, String eTag) {
 
-            return createNewTask()
-                    .flatMap(new Func1<String, Observable<ComapiResult<Map<String, Object>>>>() {
-                        @Override
-                        public Observable<ComapiResult<Map<String, Object>>> call(String token) {
-                            log.d("doUpdateProfile called from the service queue. " + queue.size() + " requests still pending.");
-                            return doUpdateProfile(token, dataMgr.getSessionDAO().session().getProfileId(), profileDetails, eTag);
-                        }
-                    })
-                    .doOnCompleted(this::executePending);
+            return enqueue(sessionProfileKey(), new Func1<String, Observable<ComapiResult<Map<String, Object>>>>() {
+                @Override
+                public Observable<ComapiResult<Map<String, Object>>> call(String token) {
+                    log.d("doUpdateProfile called from the service queue. " + queue.size() + " requests still pending.");
+                    return doUpdateProfile(token, dataMgr.getSessionDAO().session().getProfileId(), profileDetails, eTag);
+                }
+            });
         }
 
         Observable<ComapiResult<Map<String, Object>>> queuePatchProfile(Map<String, Object> profileDetails, String eTag) {
 
-            return createNewTask()
-                    .flatMap(new Func1<String, Observable<ComapiResult<Map<String, Object>>>>() {
-                        @Override
-                        public Observable<ComapiResult<Map<String, Object>>> call(String token) {
-                            log.d("doPatchProfile called from the service queue. " + queue.size() + " requests still pending.");
-                            return doPatchProfile(token, dataMgr.getSessionDAO().session().getProfileId(), profileDetails, eTag);
-                        }
-                    })
-                    .doOnCompleted(this::executePending);
+            return enqueue(sessionProfileKey(), new Func1<String, Observable<ComapiResult<Map<String, Object>>>>() {
+                @Override
+                public Observable<ComapiResult<Map<String, Object>>> call(String token) {
+                    log.d("doPatchProfile called from the service queue. " + queue.size() + " requests still pending.");
+                    return doPatchProfile(token, dataMgr.getSessionDAO().session().getProfileId(), profileDetails, eTag);
+                }
+            });
         }
 
         Observable<ComapiResult<ConversationDetails>> queueCreateConversation(ConversationCreate request) {
 
-            return createNewTask()
-                    .flatMap(new Func1<String, Observable<ComapiResult<ConversationDetails>>>() {
-                        @Override
-                        public Observable<ComapiResult<ConversationDetails>> call(String token) {
-                            log.d("doCreateConversation called from the service queue. " + queue.size() + " requests still pending.");
-                            return doCreateConversation(token, request);
-                        }
-                    })
-                    .doOnCompleted(this::executePending);
+            return enqueue(CallPriority.INTERACTIVE, conversationKey(request.getId()), null, new Func1<String, Observable<ComapiResult<ConversationDetails>>>() {
+                @Override
+                public Observable<ComapiResult<ConversationDetails>> call(String token) {
+                    log.d("doCreateConversation called from the service queue. " + queue.size() + " requests still pending.");
+                    return doCreateConversation(token, request);
+                }
+            });
         }
 
         Observable<ComapiResult<Void>> queueDeleteConversation(String conversationId, String eTag) {
 
-            return createNewTask()
-                    .flatMap(new Func1<String, Observable<ComapiResult<Void>>>() {
-                        @Override
-                        public Observable<ComapiResult<Void>> call(String token) {
-                            log.d("doDeleteConversation called from the service queue. " + queue.size() + " requests still pending.");
-                            return doDeleteConversation(token, conversationId, eTag);
-                        }
-                    })
-                    .doOnCompleted(this::executePending);
+            return enqueue(conversationKey(conversationId), new Func1<String, Observable<ComapiResult<Void>>>() {
+                @Override
+                public Observable<ComapiResult<Void>> call(String token) {
+                    log.d("doDeleteConversation called from the service queue. " + queue.size() + " requests still pending.");
+                    return doDeleteConversation(token, conversationId, eTag);
+                }
+            });
         }
 
         Observable<ComapiResult<ConversationDetails>> queueGetConversation(String conversationId) {
 
-            return createNewTask()
-                    .flatMap(new Func1<String, Observable<ComapiResult<ConversationDetails>>>() {
-                        @Override
-                        public Observable<ComapiResult<ConversationDetails>> call(String token) {
-                            log.d("doGetConversation called from the service queue. " + queue.size() + " requests still pending.");
-                            return doGetConversation(token, conversationId);
-                        }
-                    })
-                    .doOnCompleted(this::executePending);
+            return enqueue(conversationKey(conversationId), new Func1<String, Observable<ComapiResult<ConversationDetails>>>() {
+                @Override
+                public Observable<ComapiResult<ConversationDetails>> call(String token) {
+                    log.d("doGetConversation called from the service queue. " + queue.size() + " requests still pending.");
+                    return doGetConversation(token, conversationId);
+                }
+            });
         }
 
         Observable<ComapiResult<List<ConversationDetails>>> queueGetConversations(Scope scope) {
 
-            return createNewTask()
-                    .flatMap(new Func1<String, Observable<ComapiResult<List<ConversationDetails>>>>() {
-                        @Override
-                        public Observable<ComapiResult<List<ConversationDetails>>> call(String token) {
-                            log.d("doGetConversations called from the service queue. " + queue.size() + " requests still pending.");
-                            return doGetConversations(token, dataMgr.getSessionDAO().session().getProfileId(), scope).map(result -> {
-                                List<ConversationDetails> newList = new ArrayList<>();
-                                List<Conversation> oldList = result.getResult();
-                                if (oldList != null && !oldList.isEmpty()) {
-                                    newList.addAll(oldList);
-                                }
-                                return new ComapiResult<>(result, newList);
-                            });
+            return enqueue(null, new Func1<String, Observable<ComapiResult<List<ConversationDetails>>>>() {
+                @Override
+                public Observable<ComapiResult<List<ConversationDetails>>> call(String token) {
+                    log.d("doGetConversations called from the service queue. " + queue.size() + " requests still pending.");
+                    return doGetConversations(token, dataMgr.getSessionDAO().session().getProfileId(), scope).map(result -> {
+                        List<ConversationDetails> newList = new ArrayList<>();
+                        List<Conversation> oldList = result.getResult();
+                        if (oldList != null && !oldList.isEmpty()) {
+                            newList.addAll(oldList);
                         }
-                    })
-                    .doOnCompleted(this::executePending);
+                        return new ComapiResult<>(result, newList);
+                    });
+                }
+            });
         }
 
         Observable<ComapiResult<List<Conversation>>> queueGetConversationsExt(Scope scope) {
 
-            return createNewTask()
-                    .flatMap(new Func1<String, Observable<ComapiResult<List<Conversation>>>>() {
-                        @Override
-                        public Observable<ComapiResult<List<Conversation>>> call(String token) {
-                            log.d("doGetConversations called from the service queue. " + queue.size() + " requests still pending.");
-                            return doGetConversations(token, dataMgr.getSessionDAO().session().getProfileId(), scope);
-                        }
-                    })
-                    .doOnCompleted(this::executePending);
+            return enqueue(null, new Func1<String, Observable<ComapiResult<List<Conversation>>>>() {
+                @Override
+                public Observable<ComapiResult<List<Conversation>>> call(String token) {
+                    log.d("doGetConversations called from the service queue. " + queue.size() + " requests still pending.");
+                    return doGetConversations(token, dataMgr.getSessionDAO().session().getProfileId(), scope);
+                }
+            });
         }
 
         Observable<ComapiResult<ConversationDetails>> queueUpdateConversation(String conversationId, ConversationUpdate request, String eTag) {
 
-            return createNewTask()
-                    .flatMap(new Func1<String, Observable<ComapiResult<ConversationDetails>>>() {
-                        @Override
-                        public Observable<ComapiResult<ConversationDetails>> call(String token) {
-                            log.d("doUpdateConversation called from the service queue. " + queue.size() + " requests still pending.");
-                            return doUpdateConversation(token, conversationId, request, eTag);
-                        }
-                    })
-                    .doOnCompleted(this::executePending);
+            return enqueue(conversationKey(conversationId), new Func1<String, Observable<ComapiResult<ConversationDetails>>>() {
+                @Override
+                public Observable<ComapiResult<ConversationDetails>> call(String token) {
+                    log.d("doUpdateConversation called from the service queue. " + queue.size() + " requests still pending.");
+                    return doUpdateConversation(token, conversationId, request, eTag);
+                }
+            });
         }
 
         Observable<ComapiResult<Void>> queueRemoveParticipants(String conversationId, List<String> ids) {
 
-            return createNewTask()
-                    .flatMap(new Func1<String, Observable<ComapiResult<Void>>>() {
-                        @Override
-                        public Observable<ComapiResult<Void>> call(String token) {
-                            log.d("doRemoveParticipants called from the service queue. " + queue.size() + " requests still pending.");
-                            return doRemoveParticipants(token, conversationId, ids);
-                        }
-                    })
-                    .doOnCompleted(this::executePending);
+            return enqueue(conversationKey(conversationId), new Func1<String, Observable<ComapiResult<Void>>>() {
+                @Override
+                public Observable<ComapiResult<Void>> call(String token) {
+                    log.d("doRemoveParticipants called from the service queue. " + queue.size() + " requests still pending.");
+                    return doRemoveParticipants(token, conversationId, ids);
+                }
+            });
         }
 
         Observable<ComapiResult<List<Participant>>> queueGetParticipants(String conversationId) {
 
-            return createNewTask()
-                    .flatMap(new Func1<String, Observable<ComapiResult<List<Participant>>>>() {
-                        @Override
-                        public Observable<ComapiResult<List<Participant>>> call(String token) {
-                            log.d("doGetParticipants called from the service queue. " + queue.size() + " requests still pending.");
-                            return doGetParticipants(token, conversationId);
-                        }
-                    })
-                    .doOnCompleted(this::executePending);
+            return enqueue(conversationKey(conversationId), new Func1<String, Observable<ComapiResult<List<Participant>>>>() {
+                @Override
+                public Observable<ComapiResult<List<Participant>>> call(String token) {
+                    log.d("doGetParticipants called from the service queue. " + queue.size() + " requests still pending.");
+                    return doGetParticipants(token, conversationId);
+                }
+            });
         }
 
         Observable<ComapiResult<Void>> queueAddParticipants(String conversationId, List<Participant> participants) {
 
-            return createNewTask()
-                    .flatMap(new Func1<String, Observable<ComapiResult<Void>>>() {
-                        @Override
-                        public Observable<ComapiResult<Void>> call(String token) {
-                            log.d("doAddParticipants called from the service queue. " + queue.size() + " requests still pending.");
-                            return doAddParticipants(token, conversationId, participants);
-                        }
-                    })
-                    .doOnCompleted(this::executePending);
+            return enqueue(conversationKey(conversationId), new Func1<String, Observable<ComapiResult<Void>>>() {
+                @Override
+                public Observable<ComapiResult<Void>> call(String token) {
+                    log.d("doAddParticipants called from the service queue. " + queue.size() + " requests still pending.");
+                    return doAddParticipants(token, conversationId, participants);
+                }
+            });
         }
 
         Observable<ComapiResult<Void>> queueUpdateMessageStatus(String conversationId, List<MessageStatusUpdate> msgStatusList) {
 
-            return createNewTask()
-                    .flatMap(new Func1<String, Observable<ComapiResult<Void>>>() {
-                        @Override
-                        public Observable<ComapiResult<Void>> call(String token) {
-                            log.d("doUpdateMessageStatus called from the service queue. " + queue.size() + " requests still pending.");
-                            return doUpdateMessageStatus(token, conversationId, msgStatusList);
-                        }
-                    })
-                    .doOnCompleted(this::executePending);
+            String outboxId = journal(OutboxEntry.TYPE_STATUS, conversationId, msgStatusList);
+            return enqueue(CallPriority.BACKGROUND, conversationKey(conversationId), outboxId, new Func1<String, Observable<ComapiResult<Void>>>() {
+                @Override
+                public Observable<ComapiResult<Void>> call(String token) {
+                    log.d("doUpdateMessageStatus called from the service queue. " + queue.size() + " requests still pending.");
+                    return doUpdateMessageStatus(token, conversationId, msgStatusList);
+                }
+            });
         }
 
         Observable<ComapiResult<Void>> queueUpdatePushMessageStatus(String messageId, String status) {
 
-            return createNewTask()
-                    .flatMap((Func1<String, Observable<ComapiResult<Void>>>) token -> {
-                        log.d("doUpdatePushMessageStatus called from the service queue. " + queue.size() + " requests still pending.");
-                        return doUpdatePushMessageStatus(token, messageId, status);
-                    })
-                    .doOnCompleted(this::executePending);
+            return enqueue(CallPriority.BACKGROUND, null, null, (Func1<String, Observable<ComapiResult<Void>>>) token -> {
+                log.d("doUpdatePushMessageStatus called from the service queue. " + queue.size() + " requests still pending.");
+                return doUpdatePushMessageStatus(token, messageId, status);
+            });
         }
 
         Observable<ComapiResult<EventsQueryResponse>> queueQueryEvents(String conversationId, Long from, Integer limit) {
 
-            return createNewTask()
-                    .flatMap(new Func1<String, Observable<ComapiResult<EventsQueryResponse>>>() {
-                        @Override
-                        public Observable<ComapiResult<EventsQueryResponse>> call(String token) {
-                            log.d("doQueryEvents called from the service queue. " + queue.size() + " requests still pending.");
-                            return doQueryEvents(token, conversationId, from, limit);
-                        }
-                    })
-                    .doOnCompleted(this::executePending);
+            return enqueue(conversationKey(conversationId), new Func1<String, Observable<ComapiResult<EventsQueryResponse>>>() {
+                @Override
+                public Observable<ComapiResult<EventsQueryResponse>> call(String token) {
+                    log.d("doQueryEvents called from the service queue. " + queue.size() + " requests still pending.");
+                    return doQueryEvents(token, conversationId, from, limit);
+                }
+            });
         }
 
         Observable<ComapiResult<ConversationEventsResponse>> queueQueryConversationEvents(String conversationId, Long from, Integer limit) {
 
-            return createNewTask()
-                    .flatMap(new Func1<String, Observable<ComapiResult<ConversationEventsResponse>>>() {
-                        @Override
-                        public Observable<ComapiResult<ConversationEventsResponse>> call(String token) {
-                            log.d("doQueryEvents called from the service queue. " + queue.size() + " requests still pending.");
-                            return doQueryConversationEvents(token, conversationId, from, limit);
-                        }
-                    })
-                    .doOnCompleted(this::executePending);
+            return enqueue(conversationKey(conversationId), new Func1<String, Observable<ComapiResult<ConversationEventsResponse>>>() {
+                @Override
+                public Observable<ComapiResult<ConversationEventsResponse>> call(String token) {
+                    log.d("doQueryEvents called from the service queue. " + queue.size() + " requests still pending.");
+                    return doQueryConversationEvents(token, conversationId, from, limit);
+                }
+            });
         }
 
         Observable<ComapiResult<MessagesQueryResponse>> queueQueryMessages(String conversationId, Long from, Integer limit) {
 
-            return createNewTask()
-                    .flatMap(new Func1<String, Observable<ComapiResult<MessagesQueryResponse>>>() {
-                        @Override
-                        public Observable<ComapiResult<MessagesQueryResponse>> call(String token) {
-                            log.d("doQueryMessages called from the service queue. " + queue.size() + " requests still pending.");
-                            return doQueryMessages(token, conversationId, from, limit);
-                        }
-                    })
-                    .doOnCompleted(this::executePending);
+            return enqueue(conversationKey(conversationId), new Func1<String, Observable<ComapiResult<MessagesQueryResponse>>>() {
+                @Override
+                public Observable<ComapiResult<MessagesQueryResponse>> call(String token) {
+                    log.d("doQueryMessages called from the service queue. " + queue.size() + " requests still pending.");
+                    return doQueryMessages(token, conversationId, from, limit);
+                }
+            });
         }
 
         Observable<ComapiResult<String>> createFbOptInState() {
 
-            return createNewTask()
-                    .flatMap(new Func1<String, Observable<ComapiResult<String>>>() {
-                        @Override
-                        public Observable<ComapiResult<String>> call(String token) {
-                            log.d("createFbOptInState called from the service queue. " + queue.size() + " requests still pending.");
-                            return doCreateFbOptInState(token);
-                        }
-                    })
-                    .doOnCompleted(this::executePending);
+            return enqueue(null, new Func1<String, Observable<ComapiResult<String>>>() {
+                @Override
+                public Observable<ComapiResult<String>> call(String token) {
+                    log.d("createFbOptInState called from the service queue. " + queue.size() + " requests still pending.");
+                    return doCreateFbOptInState(token);
+                }
+            });
         }
 
         /**
-         * Executes pending service calls.
+         * Executes pending service calls. Releases as many queued calls as the concurrency limit allows, remaining calls will be released when the running ones finish.
          */
         void executePending() {
-            AsyncSubject<String> next = queue.poll();
-            if (next != null) {
-                next.onNext(dataMgr.getSessionDAO().session().getAccessToken());
-                next.onCompleted();
+
+            final List<Task> toRelease = new ArrayList<>();
+            final List<Task> expired = new ArrayList<>();
+
+            synchronized (lock) {
+                if (maxWaitMillis > 0) {
+                    final long now = clock.now();
+                    Iterator<Task> iterator = queue.iterator();
+                    while (iterator.hasNext()) {
+                        Task task = iterator.next();
+                        if (now - task.createdOn > maxWaitMillis) {
+                            iterator.remove();
+                            expired.add(task);
+                        }
+                    }
+                }
+                for (CallPriority priority : CallPriority.values()) {
+                    // keys of calls waiting in front of the current one, calls with the same key are released in the order they were queued
+                    Set<String> keysWaiting = new HashSet<>();
+                    Iterator<Task> iterator = queue.iterator();
+                    while (inFlight < maxConcurrency && iterator.hasNext()) {
+                        Task task = iterator.next();
+                        if (task.finished) {
+                            // abandoned before it was released
+                            iterator.remove();
+                        } else if (task.priority == priority && (task.key == null || (!keysInFlight.contains(task.key) && !keysWaiting.contains(task.key)))) {
+                            iterator.remove();
+                            task.started = true;
+                            inFlight++;
+                            if (task.key != null) {
+                                keysInFlight.add(task.key);
+                            }
+                            toRelease.add(task);
+                        } else if (task.key != null) {
+                            keysWaiting.add(task.key);
+                        }
+                    }
+                }
+            }
+
+            if (!expired.isEmpty()) {
+                log.w(expired.size() + " queued service calls expired waiting for the session.");
+                fail(expired, new ComapiException("Service call waited for the session longer than " + maxWaitMillis + "ms."));
+            }
+
+            if (!toRelease.isEmpty()) {
+                final String token = dataMgr.getSessionDAO().session().getAccessToken();
+                for (Task task : toRelease) {
+                    for (String id : task.outboxIds) {
+                        dataMgr.getOutboxDAO().markAttempted(id);
+                    }
+                    if (!task.subject.hasObservers()) {
+                        // nobody subscribed for the result of a call that isn't journaled, free the slot straight away
+                        onTaskFinished(task);
+                    }
+                    task.subject.onNext(token);
+                    task.subject.onCompleted();
+                }
             }
         }
 
         /**
-         * Creates AsyncSubject representing new pending task in a queue. Will be mapped to pending service call and blocked till session controller finishes authentication process.
+         * Fails all service calls waiting in the queue e.g. when the session couldn't be created.
          *
-         * @return New pending task.
+         * @param cause Reason of the failure.
          */
-        private AsyncSubject<String> createNewTask() {
-            AsyncSubject<String> subject = AsyncSubject.create();
-            queue.add(subject);
-            return subject;
+        void failPending(Throwable cause) {
+            final List<Task> pending;
+            synchronized (lock) {
+                pending = new ArrayList<>(queue);
+                queue.clear();
+            }
+            if (!pending.isEmpty()) {
+                log.w("Failing " + pending.size() + " queued service calls.");
+                fail(pending, new ComapiException("Session couldn't be created, queued service call cancelled.", cause));
+            }
+        }
+
+        /**
+         * Notifies queued calls about an error.
+         *
+         * @param tasks Tasks removed from the queue.
+         * @param error Error to deliver to the callers.
+         */
+        private void fail(List<Task> tasks, Throwable error) {
+            for (Task task : tasks) {
+                if (!task.finished) {
+                    task.subject.onError(error);
+                    onTaskFinished(task);
+                }
+            }
+        }
+
+        /**
+         * Replays service calls journaled in the outbox by a previous process that was killed before the session has been created.
+         * Replayed calls are put in front of the queue. Message status updates for the same conversation are merged into a single call.
+         * Messages that could have reached the server already are not sent again.
+         */
+        void replayOutbox() {
+
+            final OutboxDAO outbox = dataMgr.getOutboxDAO();
+            final SessionData session = dataMgr.getSessionDAO().session();
+            if (outbox == null || session == null) {
+                return;
+            }
+
+            final List<Task> replayed = new ArrayList<>();
+            final Map<String, List<OutboxEntry>> statusEntries = new LinkedHashMap<>();
+
+            synchronized (lock) {
+                for (OutboxEntry entry : outbox.entries()) {
+                    if (liveOutboxIds.contains(entry.getId())) {
+                        continue;
+                    }
+                    if (session.getProfileId() == null || !session.getProfileId().equals(entry.getProfileId())) {
+                        outbox.remove(entry.getId());
+                    } else if (OutboxEntry.TYPE_MESSAGE.equals(entry.getType())) {
+                        if (entry.isAttempted()) {
+                            log.w("Message queued for conversation " + entry.getConversationId() + " could have been sent by a previous process. Not sending it again.");
+                            outbox.remove(entry.getId());
+                        } else {
+                            final MessageToSend message = gson.fromJson(entry.getPayload(), MessageToSend.class);
+                            replayed.add(createReplayTask(CallPriority.INTERACTIVE, entry.getConversationId(), Collections.singletonList(entry.getId()), token -> doSendMessage(token, entry.getConversationId(), message)));
+                        }
+                    } else if (OutboxEntry.TYPE_STATUS.equals(entry.getType())) {
+                        List<OutboxEntry> entries = statusEntries.get(entry.getConversationId());
+                        if (entries == null) {
+                            entries = new ArrayList<>();
+                            statusEntries.put(entry.getConversationId(), entries);
+                        }
+                        entries.add(entry);
+                    } else {
+                        outbox.remove(entry.getId());
+                    }
+                }
+
+                for (Map.Entry<String, List<OutboxEntry>> conversation : statusEntries.entrySet()) {
+                    final String conversationId = conversation.getKey();
+                    final List<String> ids = new ArrayList<>();
+                    final List<MessageStatusUpdate> updates = new ArrayList<>();
+                    for (OutboxEntry entry : conversation.getValue()) {
+                        ids.add(entry.getId());
+                        List<MessageStatusUpdate> list = gson.fromJson(entry.getPayload(), new TypeToken<List<MessageStatusUpdate>>() {
+                        }.getType());
+                        if (list != null) {
+                            updates.addAll(list);
+                        }
+                    }
+                    final List<MessageStatusUpdate> merged = MessageStatusMerger.merge(updates);
+                    replayed.add(createReplayTask(CallPriority.BACKGROUND, conversationId, ids, token -> doUpdateMessageStatus(token, conversationId, merged)));
+                }
+
+                if (!replayed.isEmpty()) {
+                    List<Task> pending = new ArrayList<>(queue);
+                    queue.clear();
+                    queue.addAll(replayed);
+                    queue.addAll(pending);
+                }
+            }
+
+            if (!replayed.isEmpty()) {
+                log.i("Replaying " + replayed.size() + " service calls from the outbox.");
+            }
+        }
+
+        /**
+         * Adds a normal priority service call to the queue. The call will be executed when session controller finishes authentication process and there is a free execution slot.
+         *
+         * @param key  Ordering key. Calls with the same key are executed one at a time in the order they were queued. Null if the call can run in parallel with any other call.
+         * @param call Service call to execute with the session access token.
+         * @param <T>  Type of the service call result.
+         * @return Observable emitting the result of the service call.
+         */
+        <T> Observable<T> enqueue(final String key, final Func1<String, Observable<T>> call) {
+            return enqueue(CallPriority.NORMAL, key, null, call);
+        }
+
+        /**
+         * Adds a service call to the queue. The call will be executed when session controller finishes authentication process and there is a free execution slot.
+         * Higher priority calls are released first. Background calls use separate ordering lanes so they never hold back interactive or normal calls with the same key.
+         *
+         * @param priority Call priority.
+         * @param key      Ordering key. Calls with the same key are executed one at a time in the order they were queued. Null if the call can run in parallel with any other call.
+         * @param outboxId Unique identifier of the outbox entry journaling this call. Null if the call isn't journaled.
+         * @param call     Service call to execute with the session access token.
+         * @param <T>      Type of the service call result.
+         * @return Observable emitting the result of the service call.
+         */
+        <T> Observable<T> enqueue(final CallPriority priority, final String key, final String outboxId, final Func1<String, Observable<T>> call) {
+            final Task task = new Task(priority, key, outboxId != null ? Collections.singletonList(outboxId) : Collections.emptyList(), clock.now());
+            synchronized (lock) {
+                liveOutboxIds.addAll(task.outboxIds);
+                queue.add(task);
+            }
+            return wrap(task, call);
+        }
+
+        /**
+         * Creates a task for a service call replayed from the outbox. Nobody waits for the result so it is only logged.
+         *
+         * @param priority       Call priority.
+         * @param conversationId Conversation unique identifier.
+         * @param outboxIds      Unique identifiers of the outbox entries journaling this call.
+         * @param call           Service call to execute with the session access token.
+         * @param <T>            Type of the service call result.
+         * @return Task to put in the queue.
+         */
+        private <T> Task createReplayTask(final CallPriority priority, final String conversationId, final List<String> outboxIds, final Func1<String, Observable<T>> call) {
+            final Task task = new Task(priority, conversationKey(conversationId), outboxIds, clock.now());
+            liveOutboxIds.addAll(outboxIds);
+            wrap(task, call).subscribe(
+                    result -> log.d("Outbox call for conversation " + conversationId + " finished."),
+                    error -> log.f("Outbox call for conversation " + conversationId + " failed.", error));
+            return task;
+        }
+
+        /**
+         * Creates observable executing the service call when the task is released. Calls journaled in the outbox are subscribed
+         * internally, so they are executed and removed from the outbox only after they finish, even if the caller unsubscribes.
+         * Other calls are abandoned when the caller unsubscribes.
+         *
+         * @param task Pending task.
+         * @param call Service call to execute with the session access token.
+         * @param <T>  Type of the service call result.
+         * @return Observable emitting the result of the service call.
+         */
+        private <T> Observable<T> wrap(final Task task, final Func1<String, Observable<T>> call) {
+            final Observable<T> observable = task.subject
+                    .flatMap(call)
+                    .doOnTerminate(() -> onTaskFinished(task));
+            if (!task.outboxIds.isEmpty()) {
+                ConnectableObservable<T> durable = observable.replay();
+                durable.connect();
+                return durable;
+            }
+            return observable.doOnUnsubscribe(() -> onTaskFinished(task));
+        }
+
+        /**
+         * Journals service call in the outbox so it can be replayed if the process is killed before the session is created.
+         *
+         * @param type           Type of journaled service call.
+         * @param conversationId Conversation unique identifier.
+         * @param body           Service call body.
+         * @return Unique identifier of the outbox entry or null if the call couldn't be journaled.
+         */
+        private String journal(final String type, final String conversationId, final Object body) {
+            final OutboxDAO outbox = dataMgr.getOutboxDAO();
+            final SessionData session = dataMgr.getSessionDAO().session();
+            if (outbox != null && session != null) {
+                return outbox.add(new OutboxEntry(type, session.getProfileId(), conversationId, gson.toJson(body)));
+            }
+            return null;
+        }
+
+        /**
+         * Frees the execution slot of a finished call, removes it from the outbox and releases next pending calls.
+         *
+         * @param task Finished task.
+         */
+        private void onTaskFinished(Task task) {
+            final boolean wasStarted;
+            synchronized (lock) {
+                if (task.finished) {
+                    return;
+                }
+                task.finished = true;
+                liveOutboxIds.removeAll(task.outboxIds);
+                wasStarted = task.started;
+                if (wasStarted) {
+                    inFlight--;
+                    if (task.key != null) {
+                        keysInFlight.remove(task.key);
+                    }
+                } else {
+                    // abandoned before it was released, don't send a request nobody waits for
+                    queue.remove(task);
+                }
+            }
+            for (String id : task.outboxIds) {
+                dataMgr.getOutboxDAO().remove(id);
+            }
+            if (wasStarted) {
+                executePending();
+            }
+        }
+
+        /**
+         * Ordering key for calls scoped to a conversation.
+         *
+         * @param conversationId Conversation unique identifier.
+         * @return Ordering key.
+         */
+        private String conversationKey(String conversationId) {
+            return conversationId != null ? "conversation:" + conversationId : null;
+        }
+
+        /**
+         * Ordering key for calls scoped to a profile.
+         *
+         * @param profileId Profile unique identifier.
+         * @return Ordering key.
+         */
+        private String profileKey(String profileId) {
+            return profileId != null ? "profile:" + profileId : null;
+        }
+
+        /**
+         * Ordering key for calls scoped to the profile of the session owner.
+         *
+         * @return Ordering key.
+         */
+        private String sessionProfileKey() {
+            return dataMgr.getSessionDAO().session() != null ? profileKey(dataMgr.getSessionDAO().session().getProfileId()) : null;
+        }
+    }
+
+    /**
+     * Pending service call. Blocked till session controller finishes authentication process and the queue releases it.
+     */
+    static class Task {
+
+        final AsyncSubject<String> subject = AsyncSubject.create();
+
+        final CallPriority priority;
+
+        final String key;
+
+        final List<String> outboxIds;
+
+        final long createdOn;
+
+        boolean started;
+
+        boolean finished;
+
+        Task(CallPriority priority, String key, List<String> outboxIds, long createdOn) {
+            this.priority = priority;
+            this.key = key != null && priority == CallPriority.BACKGROUND ? "background/" + key : key;
+            this.outboxIds = outboxIds;
+            this.createdOn = createdOn;
         }
     }
-}
\ No newline at end of file
+}
@@ -120,6 +120,16 @@ public class SessionController extends ApiWrapper {
      */
     private final ISessionListener stateListener;
 
+    /**
+     * Estimates the services clock to compare session expiry with.
+     */
+    private final ServerClock clock;
+
+    /**
+     * Time before the session expiry when the SDK re-authenticates.
+     */
+    private final long refreshLeadMillis;
+
     /**
      * Recommended constructor.
      *
@@ -148,6 +158,41 @@ public class SessionController extends ApiWrapper {
                       @NonNull ServiceQueue.TaskQueue taskQueue,
                       boolean fcmEnabled,
                       @Nullable final ISessionListener stateListener) {
+        this(sessionCreateManager, pushMgr, state, dataMgr, auth, service, packageName, handler, log, taskQueue, fcmEnabled, stateListener, new ServerClock(), TimeUnit.SECONDS.toMillis(new NetworkConfig().getTokenRefreshLeadSeconds()));
+    }
+
+    /**
+     * Recommended constructor.
+     *
+     * @param sessionCreateManager Manager of session create intermediate states.
+     * @param pushMgr              Manager for push messaging.
+     * @param state                Instance of the global SDK state.
+     * @param dataMgr              Manager of internal data storage.
+     * @param auth                 SDK authenticator.
+     * @param service              Service APIs.
+     * @param packageName          App package name.
+     * @param handler              Main thread handler.
+     * @param log                  Internal logger.
+     * @param taskQueue            Service calls queue used when SDK is re-authenticating.
+     * @param fcmEnabled           True if Firebase initialised and configured.
+     * @param stateListener        Listener for new sessions.
+     * @param clock                Estimates the services clock to compare session expiry with.
+     * @param refreshLeadMillis    Time before the session expiry when the SDK re-authenticates.
+     */
+    SessionController(@NonNull final SessionCreateManager sessionCreateManager,
+                      @NonNull PushManager pushMgr,
+                      @NonNull final AtomicInteger state,
+                      @NonNull final DataManager dataMgr,
+                      @NonNull final ComapiAuthenticator auth,
+                      @NonNull RestApi service,
+                      @NonNull final String packageName,
+                      @NonNull Handler handler,
+                      @NonNull final Logger log,
+                      @NonNull ServiceQueue.TaskQueue taskQueue,
+                      boolean fcmEnabled,
+                      @Nullable final ISessionListener stateListener,
+                      @NonNull final ServerClock clock,
+                      long refreshLeadMillis) {
 
         this.state = state;
         this.dataMgr = dataMgr;
@@ -162,11 +207,13 @@ public class SessionController extends ApiWrapper {
         this.stateListener = stateListener;
         this.taskQueue = taskQueue;
         this.isFcmEnabled = fcmEnabled;
+        this.clock = clock;
+        this.refreshLeadMillis = Math.max(0, refreshLeadMillis);
 
         SessionData session = dataMgr.getSessionDAO().session();
         if (session != null) {
             long expOn = session.getExpiresOn();
-            if (expOn > System.currentTimeMillis()) {
+            if (expOn > clock.currentTimeMillis()) {
                 scheduleNextAuthentication(expOn);
                 if (this.stateListener != null) {
                     this.stateListener.onSessionStart(new Session(session));
@@ -198,6 +245,7 @@ public class SessionController extends ApiWrapper {
                         dataMgr.getSessionDAO().updateSessionDetails(session);
                         socketController.connectSocket();
                         scheduleNextAuthentication(session.getExpiresOn());
+                        taskQueue.replayOutbox();
                         taskQueue.executePending();
                         if (stateListener != null) {
                             stateListener.onSessionStart(new Session(session));
@@ -209,11 +257,19 @@ public class SessionController extends ApiWrapper {
         return Observable.error(new ComapiException("Session already started or SDK not initialised. Stop the active session first. [" + state.get() + "]"));
     }
 
-    void scheduleNextAuthentication(long nextRestartTime) {
+    /**
+     * Schedules re-authentication ahead of the session expiry. Expiry time is compared with the estimated services clock.
+     *
+     * @param expiresOn Session expiry time issued by the services.
+     */
+    void scheduleNextAuthentication(long expiresOn) {
 
-        final long delay = (nextRestartTime - System.currentTimeMillis());
-        log.d("Scheduling next authentication to " + DateHelper.getUTC(nextRestartTime) +
+        final long serverNow = clock.currentTimeMillis();
+        final long lifetime = expiresOn - serverNow;
+        final long delay = Math.max(0, lifetime - Math.min(refreshLeadMillis, lifetime / 2));
+        log.d("Scheduling next authentication before session expiry at " + DateHelper.getUTC(expiresOn) +
                 " Device UTC time is " + DateHelper.getUTC(System.currentTimeMillis()) +
+                " Estimated server clock offset is " + clock.getOffset() + " ms." +
                 " Authenticating automatically in " + TimeUnit.MILLISECONDS.toMinutes(delay) + " minutes.");
         handler.postDelayed(() -> reAuthenticate().subscribe(session -> {
             log.d("Successfully authenticated according to schedule");
@@ -263,6 +319,9 @@ public class SessionController extends ApiWrapper {
                     .doOnError((e) -> {
                         log.f("Error starting session.", e);
                         sessionCreateManager.setStop();
+                        if (taskQueue != null) {
+                            taskQueue.failPending(e);
+                        }
                     });
         } else {
             return Observable.error(new ComapiException("Session start in progress."));
@@ -389,7 +448,8 @@ public class SessionController extends ApiWrapper {
                     dataMgr.getSessionDAO().updateSessionDetails(session);
                     state.compareAndSet(GlobalState.SESSION_STARTING, GlobalState.SESSION_ACTIVE);
                     socketController.connectSocket();
-                    scheduleNextAuthentication(Math.max(session.getExpiresOn(), System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(MINIMAL_REAUTHENTICATION_SCHEDULE_SEC)));
+                    scheduleNextAuthentication(Math.max(session.getExpiresOn(), clock.currentTimeMillis() + TimeUnit.SECONDS.toMillis(MINIMAL_REAUTHENTICATION_SCHEDULE_SEC)));
+                    taskQueue.replayOutbox();
                     taskQueue.executePending();
                     if (stateListener != null) {
                         stateListener.onSessionStart(new Session(session));
@@ -0,0 +1,193 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Comapi (trading name of Dynmark International Limited)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons
+ * to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.comapi.internal.network;
+
+import android.content.Context;
+import androidx.annotation.NonNull;
+
+import com.comapi.internal.lifecycle.LifecycleListener;
+import com.comapi.internal.log.Logger;
+import com.comapi.internal.network.model.messaging.MessageStatusUpdate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import rx.Observable;
+import rx.Scheduler;
+import rx.Subscription;
+import rx.functions.Func2;
+import rx.subjects.AsyncSubject;
+
+/**
+ * Buffers message status updates per conversation and sends them in batches. Updates for the same message are merged
+ * ('read' replaces 'delivered'). A batch is sent when it reaches the size limit, when the time window elapses or when the app goes to the background.
+ *
+ * @author Marcin Swierczek
+ * @since 1.8.0
+ */
+class StatusUpdateBatcher {
+
+    private final Func2<String, List<MessageStatusUpdate>, Observable<ComapiResult<Void>>> sender;
+
+    private final Scheduler scheduler;
+
+    private final Logger log;
+
+    private final long windowMillis;
+
+    private final int maxSize;
+
+    private final Map<String, Batch> batches = new HashMap<>();
+
+    private final Object lock = new Object();
+
+    /**
+     * Recommended constructor.
+     *
+     * @param sender       Sends merged status updates for a conversation.
+     * @param windowMillis Time window in milliseconds to collect updates before they are sent.
+     * @param maxSize      Number of message ids in a batch that triggers sending it straight away.
+     * @param scheduler    Scheduler for delayed flushes.
+     * @param log          Internal logger.
+     */
+    StatusUpdateBatcher(@NonNull Func2<String, List<MessageStatusUpdate>, Observable<ComapiResult<Void>>> sender, long windowMillis, int maxSize, @NonNull Scheduler scheduler, @NonNull Logger log) {
+        this.sender = sender;
+        this.windowMillis = windowMillis;
+        this.maxSize = Math.max(1, maxSize);
+        this.scheduler = scheduler;
+        this.log = log;
+    }
+
+    /**
+     * Adds status updates to the batch for a conversation. Updates are added when the returned observable is subscribed.
+     *
+     * @param conversationId Conversation unique identifier.
+     * @param updates        Message status updates.
+     * @return Observable emitting the result of the request that delivered the batch containing the updates.
+     */
+    Observable<ComapiResult<Void>> add(@NonNull final String conversationId, @NonNull final List<MessageStatusUpdate> updates) {
+
+        return Observable.defer(() -> {
+
+            final Batch batch;
+            final boolean isFull;
+
+            synchronized (lock) {
+                Batch current = batches.get(conversationId);
+                if (current == null) {
+                    current = new Batch();
+                    batches.put(conversationId, current);
+                    current.timer = scheduler.createWorker();
+                    current.timer.schedule(() -> flush(conversationId), windowMillis, TimeUnit.MILLISECONDS);
+                }
+                batch = current;
+                batch.updates.addAll(updates);
+                for (MessageStatusUpdate update : updates) {
+                    batch.size += update.getMessageIds() != null ? update.getMessageIds().size() : 0;
+                }
+                isFull = batch.size >= maxSize;
+            }
+
+            if (isFull) {
+                flush(conversationId);
+            }
+
+            return batch.result;
+        });
+    }
+
+    /**
+     * Sends all buffered status updates.
+     *
+     * @return Observable emitting results of the requests that delivered the batches.
+     */
+    Observable<ComapiResult<Void>> flushAll() {
+        List<String> conversationIds;
+        synchronized (lock) {
+            conversationIds = new ArrayList<>(batches.keySet());
+        }
+        List<Observable<ComapiResult<Void>>> results = new ArrayList<>();
+        for (String conversationId : conversationIds) {
+            results.add(flush(conversationId));
+        }
+        return Observable.merge(results);
+    }
+
+    /**
+     * Sends buffered status updates for a conversation.
+     *
+     * @param conversationId Conversation unique identifier.
+     * @return Observable emitting result of the request that delivered the batch.
+     */
+    private Observable<ComapiResult<Void>> flush(final String conversationId) {
+
+        final Batch batch;
+        synchronized (lock) {
+            batch = batches.remove(conversationId);
+        }
+
+        if (batch != null) {
+            batch.timer.unsubscribe();
+            final List<MessageStatusUpdate> merged = MessageStatusMerger.merge(batch.updates);
+            log.d("Sending " + merged.size() + " merged status updates for conversation " + conversationId + " (" + batch.updates.size() + " updates requested).");
+            sender.call(conversationId, merged).subscribe(batch.result);
+            return batch.result;
+        }
+        return Observable.empty();
+    }
+
+    /**
+     * Creates application lifecycle callbacks sending buffered updates when the app goes to the background.
+     *
+     * @return Application lifecycle callbacks.
+     */
+    LifecycleListener createLifecycleListener() {
+        return new LifecycleListener() {
+
+            @Override
+            public void onForegrounded(Context context) {
+
+            }
+
+            @Override
+            public void onBackgrounded(Context context) {
+                flushAll();
+            }
+        };
+    }
+
+    /**
+     * Status updates waiting to be sent for a single conversation.
+     */
+    private static class Batch {
+
+        final List<MessageStatusUpdate> updates = new ArrayList<>();
+
+        final AsyncSubject<ComapiResult<Void>> result = AsyncSubject.create();
+
+        int size;
+
+        Scheduler.Worker timer;
+    }
+}
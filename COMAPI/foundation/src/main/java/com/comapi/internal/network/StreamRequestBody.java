@@ -0,0 +1,126 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Comapi (trading name of Dynmark International Limited)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons
+ * to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.comapi.internal.network;
+
+import android.content.ContentResolver;
+import android.net.Uri;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.BufferedSink;
+import okio.Okio;
+
+/**
+ * Request body streaming content from an input stream or a content Uri. Content is copied to the network in segments and never held in memory as a whole.
+ * Uri content is opened again for every write so the request can be repeated, a plain input stream can be sent only once.
+ *
+ * @author Marcin Swierczek
+ * @since 1.8.0
+ */
+class StreamRequestBody extends RequestBody {
+
+    private final MediaType contentType;
+
+    private final long contentLength;
+
+    private final ContentResolver resolver;
+
+    private final Uri uri;
+
+    private InputStream stream;
+
+    /**
+     * Constructor for a one-shot body.
+     *
+     * @param contentType   Mime type of the content.
+     * @param stream        Stream with the content. Closed after the content has been sent.
+     * @param contentLength Size of the content, -1 if not known.
+     */
+    StreamRequestBody(MediaType contentType, InputStream stream, long contentLength) {
+        this.contentType = contentType;
+        this.stream = stream;
+        this.contentLength = contentLength;
+        this.resolver = null;
+        this.uri = null;
+    }
+
+    /**
+     * Constructor for a repeatable body.
+     *
+     * @param contentType   Mime type of the content.
+     * @param resolver      Content resolver to open the Uri.
+     * @param uri           Content Uri.
+     * @param contentLength Size of the content, -1 if not known.
+     */
+    StreamRequestBody(MediaType contentType, ContentResolver resolver, Uri uri, long contentLength) {
+        this.contentType = contentType;
+        this.resolver = resolver;
+        this.uri = uri;
+        this.contentLength = contentLength;
+    }
+
+    /**
+     * Checks if the content can be read more than once.
+     *
+     * @return True if the content is read from a Uri that can be opened again.
+     */
+    boolean isRepeatable() {
+        return uri != null;
+    }
+
+    @Override
+    public MediaType contentType() {
+        return contentType;
+    }
+
+    @Override
+    public long contentLength() {
+        return contentLength;
+    }
+
+    @Override
+    public void writeTo(BufferedSink sink) throws IOException {
+
+        final InputStream input;
+        if (uri != null) {
+            input = resolver.openInputStream(uri);
+            if (input == null) {
+                throw new IOException("Unable to open " + uri);
+            }
+        } else {
+            synchronized (this) {
+                input = stream;
+                stream = null;
+            }
+            if (input == null) {
+                throw new IOException("Content stream has already been sent.");
+            }
+        }
+
+        try {
+            sink.writeAll(Okio.source(input));
+        } finally {
+            input.close();
+        }
+    }
+}
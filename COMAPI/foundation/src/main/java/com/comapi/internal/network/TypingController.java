@@ -0,0 +1,195 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Comapi (trading name of Dynmark International Limited)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons
+ * to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.comapi.internal.network;
+
+import androidx.annotation.NonNull;
+
+import com.comapi.internal.log.Logger;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import rx.Observable;
+import rx.Scheduler;
+import rx.functions.Func2;
+
+/**
+ * Manages 'user is typing' state per conversation. Sends at most one 'typing' request per throttle interval,
+ * skips requests that wouldn't change the state already sent and sends 'typing off' automatically when the user stops typing.
+ *
+ * @author Marcin Swierczek
+ * @since 1.8.0
+ */
+class TypingController {
+
+    private final Func2<String, Boolean, Observable<ComapiResult<Void>>> sender;
+
+    private final long throttleMillis;
+
+    private final long idleMillis;
+
+    private final Scheduler scheduler;
+
+    private final Logger log;
+
+    private final Map<String, State> states = new HashMap<>();
+
+    private final Object lock = new Object();
+
+    /**
+     * Recommended constructor.
+     *
+     * @param sender         Sends typing state for a conversation.
+     * @param throttleMillis Minimal interval between two 'typing' requests for the same conversation.
+     * @param idleMillis     Time without typing after which 'typing off' is sent.
+     * @param scheduler      Scheduler for automatic 'typing off'.
+     * @param log            Internal logger.
+     */
+    TypingController(@NonNull Func2<String, Boolean, Observable<ComapiResult<Void>>> sender, long throttleMillis, long idleMillis, @NonNull Scheduler scheduler, @NonNull Logger log) {
+        this.sender = sender;
+        this.throttleMillis = throttleMillis;
+        this.idleMillis = idleMillis;
+        this.scheduler = scheduler;
+        this.log = log;
+    }
+
+    /**
+     * Sets typing state for a conversation.
+     *
+     * @param conversationId Conversation unique identifier.
+     * @param isTyping       True if user is typing, false if stopped typing.
+     * @return Observable emitting the result of the request or a successful result without a request if the state hasn't changed.
+     */
+    Observable<ComapiResult<Void>> setTyping(@NonNull final String conversationId, final boolean isTyping) {
+
+        return Observable.defer(() -> {
+
+            final boolean send;
+
+            synchronized (lock) {
+                State state = states.get(conversationId);
+                if (state == null) {
+                    state = new State();
+                    states.put(conversationId, state);
+                }
+                if (state.idleTimer != null) {
+                    state.idleTimer.unsubscribe();
+                    state.idleTimer = null;
+                }
+                final long now = scheduler.now();
+                if (isTyping) {
+                    state.idleTimer = scheduler.createWorker();
+                    state.idleTimer.schedule(() -> onIdle(conversationId), idleMillis, TimeUnit.MILLISECONDS);
+                    send = !Boolean.TRUE.equals(state.lastSent) || now - state.lastTypingSentOn >= throttleMillis;
+                    if (send) {
+                        state.lastTypingSentOn = now;
+                    }
+                } else {
+                    send = !Boolean.FALSE.equals(state.lastSent);
+                }
+                if (send) {
+                    state.lastSent = isTyping;
+                }
+            }
+
+            if (send) {
+                return send(conversationId, isTyping);
+            } else {
+                return Observable.just(new ComapiResult<Void>(null, true, null, 200, "Typing state unchanged, request not sent.", null));
+            }
+        });
+    }
+
+    /**
+     * Forgets typing state of all conversations e.g. when the session ends.
+     */
+    void reset() {
+        synchronized (lock) {
+            for (State state : states.values()) {
+                if (state.idleTimer != null) {
+                    state.idleTimer.unsubscribe();
+                }
+            }
+            states.clear();
+        }
+    }
+
+    /**
+     * Sends 'typing off' when the user stopped typing.
+     *
+     * @param conversationId Conversation unique identifier.
+     */
+    private void onIdle(final String conversationId) {
+        synchronized (lock) {
+            State state = states.get(conversationId);
+            if (state == null || !Boolean.TRUE.equals(state.lastSent)) {
+                return;
+            }
+            state.lastSent = false;
+            state.idleTimer = null;
+        }
+        send(conversationId, false).subscribe(
+                result -> log.d("Typing off sent automatically for conversation " + conversationId),
+                error -> log.f("Error sending typing off for conversation " + conversationId, error));
+    }
+
+    /**
+     * Sends typing state. Forgets the state on failure so the next call isn't skipped.
+     *
+     * @param conversationId Conversation unique identifier.
+     * @param isTyping       True if user is typing, false if stopped typing.
+     * @return Observable emitting the result of the request.
+     */
+    private Observable<ComapiResult<Void>> send(final String conversationId, final boolean isTyping) {
+        return sender.call(conversationId, isTyping)
+                .doOnNext(result -> {
+                    if (!result.isSuccessful()) {
+                        forget(conversationId);
+                    }
+                })
+                .doOnError(error -> forget(conversationId));
+    }
+
+    private void forget(final String conversationId) {
+        synchronized (lock) {
+            State state = states.get(conversationId);
+            if (state != null) {
+                state.lastSent = null;
+            }
+        }
+    }
+
+    /**
+     * Typing state of a single conversation.
+     */
+    private static class State {
+
+        /**
+         * Last typing state sent to the server, null if unknown.
+         */
+        Boolean lastSent;
+
+        long lastTypingSentOn;
+
+        Scheduler.Worker idleTimer;
+    }
+}
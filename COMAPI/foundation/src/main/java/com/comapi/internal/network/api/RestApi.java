@@ -20,15 +20,16 @@
 
 package com.comapi.internal.network.api;
 
+import com.comapi.internal.network.CallPriority;
 import com.comapi.internal.network.model.conversation.ConversationCreate;
 import com.comapi.internal.network.model.conversation.ConversationDetails;
 import com.comapi.internal.network.model.conversation.ConversationUpdate;
 import com.comapi.internal.network.model.conversation.Conversation;
+import com.comapi.internal.network.model.events.Event;
 import com.comapi.internal.network.model.messaging.MessageStatusUpdate;
 import com.comapi.internal.network.model.messaging.UploadContentResponse;
 import com.comapi.internal.network.model.session.PushConfig;
 import com.comapi.internal.network.model.session.SessionStartResponse;
-import com.google.gson.JsonObject;
 
 import com.comapi.internal.network.model.conversation.Participant;
 import com.comapi.internal.network.model.messaging.MessageSentResponse;
@@ -119,7 +120,7 @@ public interface RestApi {
      * conversations
      */
 
-    @Headers({"Accept: application/json"})
+    @Headers({"Accept: application/json", CallPriority.HEADER_INTERACTIVE})
     @POST("/apispaces/{apiSpaceId}/conversations")
     Observable<Response<ConversationDetails>> createConversation(@Header("Authorization") String authorization, @Path("apiSpaceId") String apiSpaceId, @Body ConversationCreate request);
 
@@ -175,11 +176,11 @@ public interface RestApi {
      * MESSAGING
      */
 
-    @Headers({"Accept: application/json"})
+    @Headers({"Accept: application/json", CallPriority.HEADER_INTERACTIVE})
     @POST("/apispaces/{apiSpaceId}/conversations/{conversationId}/messages")
     Observable<Response<MessageSentResponse>> sendMessage(@Header("Authorization") String authorization, @Path("apiSpaceId") String apiSpaceId, @Path("conversationId") String conversationId, @Body MessageToSend message);
 
-    @Headers({"Accept: application/json"})
+    @Headers({"Accept: application/json", CallPriority.HEADER_BACKGROUND})
     @POST("/apispaces/{apiSpaceId}/conversations/{conversationId}/messages/statusupdates")
     Observable<Response<Void>> updateMessageStatus(@Header("Authorization") String authorization, @Path("apiSpaceId") String apiSpaceId, @Path("conversationId") String conversationId, @Body List<MessageStatusUpdate> messageStatusList);
 
@@ -189,15 +190,16 @@ public interface RestApi {
 
     @Headers({"Accept: application/json"})
     @GET("/apispaces/{apiSpaceId}/conversations/{conversationId}/events")
-    Observable<Response<List<JsonObject>>> queryEvents(@Header("Authorization") String authorization, @Path("apiSpaceId") String apiSpaceId, @Path("conversationId") String conversationId, @Query("from") final Long from, @Query("limit") final Integer limit);
+    Observable<Response<List<Event>>> queryEvents(@Header("Authorization") String authorization, @Path("apiSpaceId") String apiSpaceId, @Path("conversationId") String conversationId, @Query("from") final Long from, @Query("limit") final Integer limit);
 
-    @Headers({"Accept: application/json"})
+    @Headers({"Accept: application/json", CallPriority.HEADER_BACKGROUND})
     @POST("TODO")
     Observable<Response<Void>> updatePushMessageStatus(@Header("Authorization") String authorization, @Path("apiSpaceId") String apiSpaceId, @Path("messageId") String messageId, @Path("status") String status);
 
     /*
      * Content
      */
+    @Headers({CallPriority.HEADER_UPLOAD})
     @POST("/apispaces/{apiSpaceId}/content")
     Observable<Response<UploadContentResponse>> uploadContent(@Header("Authorization") String authorization, @Path("apiSpaceId") String apiSpaceId, @Query("folder") String folder, @Header("content-filename") String name, @Body RequestBody body);
 
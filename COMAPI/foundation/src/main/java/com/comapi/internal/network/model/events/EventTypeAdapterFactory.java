@@ -0,0 +1,522 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Comapi (trading name of Dynmark International Limited)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons
+ * to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.comapi.internal.network.model.events;
+
+import com.comapi.internal.network.model.events.conversation.ConversationCreateEvent;
+import com.comapi.internal.network.model.events.conversation.ConversationDeleteEvent;
+import com.comapi.internal.network.model.events.conversation.ConversationUndeleteEvent;
+import com.comapi.internal.network.model.events.conversation.ConversationUpdateEvent;
+import com.comapi.internal.network.model.events.conversation.ParticipantAddedEvent;
+import com.comapi.internal.network.model.events.conversation.ParticipantRemovedEvent;
+import com.comapi.internal.network.model.events.conversation.ParticipantTypingEvent;
+import com.comapi.internal.network.model.events.conversation.ParticipantTypingOffEvent;
+import com.comapi.internal.network.model.events.conversation.ParticipantUpdatedEvent;
+import com.comapi.internal.network.model.events.conversation.message.MessageDeliveredEvent;
+import com.comapi.internal.network.model.events.conversation.message.MessageReadEvent;
+import com.comapi.internal.network.model.events.conversation.message.MessageSentEvent;
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Gson factory decoding {@link Event} json objects straight into the event class matching the 'name' field in a single pass,
+ * without building a json tree for every event first. Fields preceding the 'name' (e.g. 'eventId') are buffered and replayed
+ * to the event class adapter. If a nested object comes before the name the event is decoded through the json tree instead.
+ * Events with unknown names, or rejected by the {@link EventFilter}, are skipped and decoded as null.
+ *
+ * @author Marcin Swierczek
+ * @since 1.8.0
+ */
+public class EventTypeAdapterFactory implements TypeAdapterFactory {
+
+    private static final Map<String, Class<? extends Event>> TYPES = createTypes();
+
+    /**
+     * Creates mapping of event names to event classes.
+     *
+     * @return Event classes for event names.
+     */
+    @SuppressWarnings("deprecation")
+    private static Map<String, Class<? extends Event>> createTypes() {
+        Map<String, Class<? extends Event>> types = new HashMap<>();
+        types.put(MessageSentEvent.TYPE, MessageSentEvent.class);
+        types.put(MessageDeliveredEvent.TYPE, MessageDeliveredEvent.class);
+        types.put(MessageReadEvent.TYPE, MessageReadEvent.class);
+        types.put(ParticipantAddedEvent.TYPE, ParticipantAddedEvent.class);
+        types.put(ParticipantUpdatedEvent.TYPE, ParticipantUpdatedEvent.class);
+        types.put(ParticipantRemovedEvent.TYPE, ParticipantRemovedEvent.class);
+        types.put(ParticipantTypingEvent.TYPE, ParticipantTypingEvent.class);
+        types.put(ParticipantTypingOffEvent.TYPE, ParticipantTypingOffEvent.class);
+        types.put(ConversationCreateEvent.TYPE, ConversationCreateEvent.class);
+        types.put(ConversationUpdateEvent.TYPE, ConversationUpdateEvent.class);
+        types.put(ConversationDeleteEvent.TYPE, ConversationDeleteEvent.class);
+        types.put(ConversationUndeleteEvent.TYPE, ConversationUndeleteEvent.class);
+        types.put(SocketStartEvent.TYPE, SocketStartEvent.class);
+        types.put(ProfileUpdateEvent.TYPE, ProfileUpdateEvent.class);
+        return types;
+    }
+
+    /**
+     * Gets event class for an event name.
+     *
+     * @param name Event name.
+     * @return Event class or null if the event is not supported.
+     */
+    public static Class<? extends Event> getEventClass(String name) {
+        return name != null ? TYPES.get(name) : null;
+    }
+
+    /**
+     * Gets all supported event classes.
+     *
+     * @return Supported event classes.
+     */
+    public static Collection<Class<? extends Event>> getEventClasses() {
+        return Collections.unmodifiableCollection(TYPES.values());
+    }
+
+    /**
+     * Creates event adapter decoding only events of classes accepted by the filter. Other events are skipped straight after
+     * reading the name and decoded as null, without creating the event object.
+     *
+     * @param gson   Gson instance with this factory registered.
+     * @param filter Filter for event classes that should be decoded.
+     * @return Event adapter.
+     */
+    public static TypeAdapter<Event> createFilteringAdapter(Gson gson, EventFilter filter) {
+        return new EventAdapter(gson, filter);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+
+        if (type.getRawType() == Event.class) {
+            return (TypeAdapter<T>) new EventAdapter(gson, null);
+        }
+
+        // Gson map adapter relies on JsonReader internals, maps inside events are read with the public JsonReader API instead
+        if (type.getRawType() == Map.class && type.getType() instanceof ParameterizedType) {
+            Type[] args = ((ParameterizedType) type.getType()).getActualTypeArguments();
+            if (args[0] == String.class && (args[1] instanceof Class || args[1] instanceof ParameterizedType)) {
+                TypeAdapter<Object> valueAdapter = (TypeAdapter<Object>) gson.getAdapter(TypeToken.get(args[1]));
+                return (TypeAdapter<T>) new StringMapAdapter<>((TypeAdapter<Map<String, Object>>) gson.getDelegateAdapter(this, type), valueAdapter);
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Filter for classes of events that should be decoded.
+     */
+    public interface EventFilter {
+
+        /**
+         * Checks if events of a given class should be decoded.
+         *
+         * @param eventClass Event class.
+         * @return True if the event should be decoded.
+         */
+        boolean accept(Class<? extends Event> eventClass);
+    }
+
+    /**
+     * Decodes events into the class matching the event name.
+     */
+    private static class EventAdapter extends TypeAdapter<Event> {
+
+        private final Gson gson;
+
+        private final TypeAdapter<JsonElement> treeAdapter;
+
+        private final EventFilter filter;
+
+        EventAdapter(Gson gson, EventFilter filter) {
+            this.gson = gson;
+            this.treeAdapter = gson.getAdapter(JsonElement.class);
+            this.filter = filter;
+        }
+
+        /**
+         * Gets event class for an event name if the event should be decoded.
+         */
+        private Class<? extends Event> getAcceptedClass(String name) {
+            Class<? extends Event> clazz = getEventClass(name);
+            return clazz != null && (filter == null || filter.accept(clazz)) ? clazz : null;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public void write(JsonWriter out, Event value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+            } else {
+                ((TypeAdapter<Event>) gson.getAdapter(value.getClass())).write(out, value);
+            }
+        }
+
+        @Override
+        public Event read(JsonReader in) throws IOException {
+
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+
+            in.beginObject();
+
+            List<String> names = new ArrayList<>(2);
+            List<JsonToken> tokens = new ArrayList<>(2);
+            List<String> values = new ArrayList<>(2);
+
+            while (in.hasNext()) {
+
+                String field = in.nextName();
+                JsonToken token = in.peek();
+
+                if (Event.KEY_NAME.equals(field) && token == JsonToken.STRING) {
+                    String name = in.nextString();
+                    names.add(field);
+                    tokens.add(token);
+                    values.add(name);
+                    Class<? extends Event> clazz = getAcceptedClass(name);
+                    if (clazz == null) {
+                        skipRemaining(in);
+                        return null;
+                    }
+                    return gson.getAdapter(clazz).read(new ReplayReader(in, names, tokens, values));
+                } else if (token == JsonToken.BEGIN_OBJECT || token == JsonToken.BEGIN_ARRAY) {
+                    return readTree(in, names, tokens, values, field);
+                } else {
+                    names.add(field);
+                    tokens.add(token);
+                    values.add(readPrimitive(in, token));
+                }
+            }
+
+            in.endObject();
+            return null;
+        }
+
+        /**
+         * Decodes the remaining part of an event through the json tree.
+         */
+        private Event readTree(JsonReader in, List<String> names, List<JsonToken> tokens, List<String> values, String field) throws IOException {
+
+            JsonObject tree = new JsonObject();
+            for (int i = 0; i < names.size(); i++) {
+                tree.add(names.get(i), toElement(tokens.get(i), values.get(i)));
+            }
+            tree.add(field, treeAdapter.read(in));
+            while (in.hasNext()) {
+                tree.add(in.nextName(), treeAdapter.read(in));
+            }
+            in.endObject();
+
+            JsonElement name = tree.get(Event.KEY_NAME);
+            Class<? extends Event> clazz = name != null && name.isJsonPrimitive() ? getAcceptedClass(name.getAsString()) : null;
+            return clazz != null ? gson.getAdapter(clazz).fromJsonTree(tree) : null;
+        }
+
+        private static String readPrimitive(JsonReader in, JsonToken token) throws IOException {
+            if (token == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            } else if (token == JsonToken.BOOLEAN) {
+                return String.valueOf(in.nextBoolean());
+            } else {
+                return in.nextString();
+            }
+        }
+
+        private static JsonElement toElement(JsonToken token, String value) {
+            if (token == JsonToken.NULL) {
+                return JsonNull.INSTANCE;
+            } else if (token == JsonToken.BOOLEAN) {
+                return new JsonPrimitive(Boolean.parseBoolean(value));
+            } else if (token == JsonToken.NUMBER) {
+                return new JsonPrimitive(new BigDecimal(value));
+            } else {
+                return new JsonPrimitive(value);
+            }
+        }
+
+        private static void skipRemaining(JsonReader in) throws IOException {
+            while (in.hasNext()) {
+                in.nextName();
+                in.skipValue();
+            }
+            in.endObject();
+        }
+    }
+
+    /**
+     * Reads maps with String keys using only the public {@link JsonReader} API, so they can be read through {@link ReplayReader}.
+     * Maps read from other readers are delegated to the default Gson adapter.
+     */
+    private static class StringMapAdapter<V> extends TypeAdapter<Map<String, V>> {
+
+        private final TypeAdapter<Map<String, V>> delegate;
+
+        private final TypeAdapter<V> valueAdapter;
+
+        StringMapAdapter(TypeAdapter<Map<String, V>> delegate, TypeAdapter<V> valueAdapter) {
+            this.delegate = delegate;
+            this.valueAdapter = valueAdapter;
+        }
+
+        @Override
+        public void write(JsonWriter out, Map<String, V> value) throws IOException {
+            delegate.write(out, value);
+        }
+
+        @Override
+        public Map<String, V> read(JsonReader in) throws IOException {
+
+            if (!(in instanceof ReplayReader)) {
+                return delegate.read(in);
+            }
+
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+
+            Map<String, V> map = new LinkedHashMap<>();
+            in.beginObject();
+            while (in.hasNext()) {
+                String key = in.nextName();
+                if (map.put(key, valueAdapter.read(in)) != null) {
+                    throw new JsonSyntaxException("duplicate key: " + key);
+                }
+            }
+            in.endObject();
+            return map;
+        }
+    }
+
+    /**
+     * Reader replaying the beginning of an event object already consumed while looking for the event name, then reading
+     * the rest of the event from the original reader.
+     */
+    private static class ReplayReader extends JsonReader {
+
+        private final JsonReader in;
+
+        private final List<String> names;
+
+        private final List<JsonToken> tokens;
+
+        private final List<String> values;
+
+        /**
+         * Position in the replayed object: 0 object start, odd field name, even field value.
+         */
+        private int position;
+
+        private final int end;
+
+        ReplayReader(JsonReader in, List<String> names, List<JsonToken> tokens, List<String> values) {
+            super(new StringReader(""));
+            this.in = in;
+            this.names = names;
+            this.tokens = tokens;
+            this.values = values;
+            this.end = 1 + 2 * names.size();
+        }
+
+        private boolean isReplaying() {
+            return position < end;
+        }
+
+        private void expect(JsonToken expected) throws IOException {
+            JsonToken token = peek();
+            if (token != expected) {
+                throw new IllegalStateException("Expected " + expected + " but was " + token + " at " + getPath());
+            }
+        }
+
+        private String consumeValue() {
+            String value = values.get((position - 2) / 2);
+            position++;
+            return value;
+        }
+
+        @Override
+        public JsonToken peek() throws IOException {
+            if (!isReplaying()) {
+                return in.peek();
+            } else if (position == 0) {
+                return JsonToken.BEGIN_OBJECT;
+            } else if (position % 2 == 1) {
+                return JsonToken.NAME;
+            } else {
+                return tokens.get((position - 2) / 2);
+            }
+        }
+
+        @Override
+        public void beginObject() throws IOException {
+            if (isReplaying()) {
+                expect(JsonToken.BEGIN_OBJECT);
+                position++;
+            } else {
+                in.beginObject();
+            }
+        }
+
+        @Override
+        public void endObject() throws IOException {
+            if (isReplaying()) {
+                expect(JsonToken.END_OBJECT);
+            }
+            in.endObject();
+        }
+
+        @Override
+        public void beginArray() throws IOException {
+            if (isReplaying()) {
+                expect(JsonToken.BEGIN_ARRAY);
+            }
+            in.beginArray();
+        }
+
+        @Override
+        public void endArray() throws IOException {
+            if (isReplaying()) {
+                expect(JsonToken.END_ARRAY);
+            }
+            in.endArray();
+        }
+
+        @Override
+        public boolean hasNext() throws IOException {
+            return isReplaying() || in.hasNext();
+        }
+
+        @Override
+        public String nextName() throws IOException {
+            if (isReplaying()) {
+                expect(JsonToken.NAME);
+                String name = names.get((position - 1) / 2);
+                position++;
+                return name;
+            }
+            return in.nextName();
+        }
+
+        @Override
+        public String nextString() throws IOException {
+            if (isReplaying()) {
+                JsonToken token = peek();
+                if (token != JsonToken.STRING && token != JsonToken.NUMBER) {
+                    throw new IllegalStateException("Expected " + JsonToken.STRING + " but was " + token + " at " + getPath());
+                }
+                return consumeValue();
+            }
+            return in.nextString();
+        }
+
+        @Override
+        public boolean nextBoolean() throws IOException {
+            if (isReplaying()) {
+                expect(JsonToken.BOOLEAN);
+                return Boolean.parseBoolean(consumeValue());
+            }
+            return in.nextBoolean();
+        }
+
+        @Override
+        public void nextNull() throws IOException {
+            if (isReplaying()) {
+                expect(JsonToken.NULL);
+                consumeValue();
+            } else {
+                in.nextNull();
+            }
+        }
+
+        @Override
+        public double nextDouble() throws IOException {
+            return isReplaying() ? Double.parseDouble(nextString()) : in.nextDouble();
+        }
+
+        @Override
+        public long nextLong() throws IOException {
+            return isReplaying() ? Long.parseLong(nextString()) : in.nextLong();
+        }
+
+        @Override
+        public int nextInt() throws IOException {
+            return isReplaying() ? Integer.parseInt(nextString()) : in.nextInt();
+        }
+
+        @Override
+        public void skipValue() throws IOException {
+            if (!isReplaying()) {
+                in.skipValue();
+            } else if (position == 0) {
+                position = end;
+                EventAdapter.skipRemaining(in);
+            } else {
+                position++;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+
+        @Override
+        public String getPath() {
+            return in.getPath();
+        }
+
+        @Override
+        public String toString() {
+            return getClass().getSimpleName() + " " + in.toString();
+        }
+    }
+}
@@ -22,6 +22,7 @@ package com.comapi.internal.network.model.messaging;
 
 import com.comapi.internal.Parser;
 import com.comapi.internal.network.model.events.Event;
+import com.comapi.internal.network.model.events.EventTypeAdapterFactory;
 import com.comapi.internal.network.model.events.conversation.message.MessageDeliveredEvent;
 import com.comapi.internal.network.model.events.conversation.message.MessageReadEvent;
 import com.comapi.internal.network.model.events.conversation.message.MessageSentEvent;
@@ -49,6 +50,21 @@ public class ConversationEventsResponse {
 
     private final TreeMap<Integer, Event> map = new TreeMap<>();
 
+    /**
+     * Recommended constructor.
+     *
+     * @param newEvents Events decoded with {@link com.comapi.internal.network.model.events.EventTypeAdapterFactory}.
+     */
+    public ConversationEventsResponse(List<Event> newEvents) {
+
+        if (newEvents != null) {
+            int count = 0;
+            for (Event event : newEvents) {
+                addEvent(event, count++);
+            }
+        }
+    }
+
     public ConversationEventsResponse(List<JsonObject> newEvents, Parser parser) {
 
         if (newEvents != null) {
@@ -72,24 +88,34 @@ public class ConversationEventsResponse {
 
         if (nameJE != null) {
 
-            String name = nameJE.getAsString();
-
-            if (MessageSentEvent.TYPE.equals(name)) {
-                MessageSentEvent parsed = parser.parse(event, MessageSentEvent.class);
-                messageSent.add(parsed);
-                map.put(i, parsed);
-            } else if (MessageDeliveredEvent.TYPE.equals(name)) {
-                MessageDeliveredEvent parsed = parser.parse(event, MessageDeliveredEvent.class);
-                messageDelivered.add(parsed);
-                map.put(i, parsed);
-            } else if (MessageReadEvent.TYPE.equals(name)) {
-                MessageReadEvent parsed = parser.parse(event, MessageReadEvent.class);
-                messageRead.add(parsed);
-                map.put(i, parsed);
+            Class<? extends Event> clazz = EventTypeAdapterFactory.getEventClass(nameJE.getAsString());
+
+            if (clazz != null) {
+                addEvent(parser.parse(event, clazz), i);
             }
         }
     }
 
+    /**
+     * Add event to appropriate list.
+     *
+     * @param event Decoded event.
+     * @param i     Number of event in the json array.
+     */
+    private void addEvent(Event event, int i) {
+
+        if (event instanceof MessageSentEvent) {
+            messageSent.add((MessageSentEvent) event);
+            map.put(i, event);
+        } else if (event instanceof MessageDeliveredEvent) {
+            messageDelivered.add((MessageDeliveredEvent) event);
+            map.put(i, event);
+        } else if (event instanceof MessageReadEvent) {
+            messageRead.add((MessageReadEvent) event);
+            map.put(i, event);
+        }
+    }
+
     /**
      * Gets Events in the order in which they were received. This collection can contain following conversation events:
      * {@link MessageSentEvent} - new message received in the conversation
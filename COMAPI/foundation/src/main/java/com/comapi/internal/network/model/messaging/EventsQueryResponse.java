@@ -22,6 +22,7 @@ package com.comapi.internal.network.model.messaging;
 
 import com.comapi.internal.Parser;
 import com.comapi.internal.network.model.events.Event;
+import com.comapi.internal.network.model.events.EventTypeAdapterFactory;
 import com.comapi.internal.network.model.events.conversation.ConversationDeleteEvent;
 import com.comapi.internal.network.model.events.conversation.ConversationUndeleteEvent;
 import com.comapi.internal.network.model.events.conversation.ConversationUpdateEvent;
@@ -65,6 +66,21 @@ public class EventsQueryResponse {
 
     private final List<ParticipantRemovedEvent> participantRemoved = new ArrayList<>();
 
+    /**
+     * Recommended constructor.
+     *
+     * @param newEvents Events decoded with {@link com.comapi.internal.network.model.events.EventTypeAdapterFactory}.
+     */
+    public EventsQueryResponse(List<Event> newEvents) {
+
+        if (newEvents != null) {
+            for (Event event : newEvents) {
+                addEvent(event);
+            }
+            calculateSize();
+        }
+    }
+
     public EventsQueryResponse(List<JsonObject> newEvents, Parser parser) {
 
         if (newEvents != null) {
@@ -93,30 +109,37 @@ public class EventsQueryResponse {
 
         if (nameJE != null) {
 
-            String name = nameJE.getAsString();
-
-            if (MessageSentEvent.TYPE.equals(name)) {
-                messageSent.add(parser.parse(event, MessageSentEvent.class));
-            } else if (MessageDeliveredEvent.TYPE.equals(name)) {
-                messageDelivered.add(parser.parse(event, MessageDeliveredEvent.class));
-            } else if (MessageReadEvent.TYPE.equals(name)) {
-                messageRead.add(parser.parse(event, MessageReadEvent.class));
-            } else if (ConversationUpdateEvent.TYPE.equals(name)) {
-                conversationUpdate.add(parser.parse(event, ConversationUpdateEvent.class));
-            } else if (ConversationDeleteEvent.TYPE.equals(name)) {
-                conversationDelete.add(parser.parse(event, ConversationDeleteEvent.class));
-            } else if (ConversationUndeleteEvent.TYPE.equals(name)) {
-                conversationUnDelete.add(parser.parse(event, ConversationUndeleteEvent.class));
-            } else if (ParticipantAddedEvent.TYPE.equals(name)) {
-                participantAdded.add(parser.parse(event, ParticipantAddedEvent.class));
-            } else if (ParticipantUpdatedEvent.TYPE.equals(name)) {
-                participantUpdate.add(parser.parse(event, ParticipantUpdatedEvent.class));
-            } else if (ParticipantRemovedEvent.TYPE.equals(name)) {
-                participantRemoved.add(parser.parse(event, ParticipantRemovedEvent.class));
+            Class<? extends Event> clazz = EventTypeAdapterFactory.getEventClass(nameJE.getAsString());
+
+            if (clazz != null) {
+                addEvent(parser.parse(event, clazz));
             }
         }
     }
 
+    private void addEvent(Event event) {
+
+        if (event instanceof MessageSentEvent) {
+            messageSent.add((MessageSentEvent) event);
+        } else if (event instanceof MessageDeliveredEvent) {
+            messageDelivered.add((MessageDeliveredEvent) event);
+        } else if (event instanceof MessageReadEvent) {
+            messageRead.add((MessageReadEvent) event);
+        } else if (event instanceof ConversationUpdateEvent) {
+            conversationUpdate.add((ConversationUpdateEvent) event);
+        } else if (event instanceof ConversationDeleteEvent) {
+            conversationDelete.add((ConversationDeleteEvent) event);
+        } else if (event instanceof ConversationUndeleteEvent) {
+            conversationUnDelete.add((ConversationUndeleteEvent) event);
+        } else if (event instanceof ParticipantAddedEvent) {
+            participantAdded.add((ParticipantAddedEvent) event);
+        } else if (event instanceof ParticipantUpdatedEvent) {
+            participantUpdate.add((ParticipantUpdatedEvent) event);
+        } else if (event instanceof ParticipantRemovedEvent) {
+            participantRemoved.add((ParticipantRemovedEvent) event);
+        }
+    }
+
     public List<MessageSentEvent> getMessageSent() {
         return messageSent;
     }
@@ -0,0 +1,121 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Comapi (trading name of Dynmark International Limited)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons
+ * to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.comapi.internal.network.sockets;
+
+import android.os.Handler;
+import android.os.Looper;
+import androidx.annotation.NonNull;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import rx.Scheduler;
+
+/**
+ * Threads on which socket events are delivered to the registered listeners. Events are delivered on the main thread by default,
+ * apps handling events off the UI thread e.g. storing them in a database can set a different executor in the SDK configuration.
+ * The order of events is preserved only if the executor runs tasks one at a time in submission order.
+ *
+ * @author Marcin Swierczek
+ * @since 1.8.0
+ */
+public class EventExecutors {
+
+    private EventExecutors() {
+    }
+
+    /**
+     * Delivers events on the main thread.
+     *
+     * @return Executor posting events to the main looper.
+     */
+    public static Executor mainThread() {
+        final Handler handler = new Handler(Looper.getMainLooper());
+        return new Executor() {
+            @Override
+            public void execute(@NonNull Runnable command) {
+                handler.post(command);
+            }
+        };
+    }
+
+    /**
+     * Delivers events on a dedicated background thread of the SDK. The thread is created on first use and shared by all callers,
+     * so initialising the client again doesn't start another thread.
+     *
+     * @return Executor running events one at a time on a single SDK thread.
+     */
+    public static Executor sdkThread() {
+        return SdkThreadHolder.EXECUTOR;
+    }
+
+    /**
+     * Delivers events on a number of dedicated background threads of the SDK. Events of a single conversation are delivered one at a time
+     * in the order they arrived, events of different conversations are delivered in parallel.
+     *
+     * @param lanes Number of serial lanes, each with its own thread.
+     * @return Executor running conversation events on serial lanes.
+     */
+    public static ShardedEventExecutor sharded(int lanes) {
+        final AtomicInteger count = new AtomicInteger();
+        return new ShardedEventExecutor(lanes, Executors.newFixedThreadPool(Math.max(1, lanes), new ThreadFactory() {
+            @Override
+            public Thread newThread(@NonNull Runnable runnable) {
+                Thread thread = new Thread(runnable, "Comapi-Events-" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        }));
+    }
+
+    /**
+     * Lazily created executor shared by {@link #sdkThread()} callers.
+     */
+    private static class SdkThreadHolder {
+
+        static final Executor EXECUTOR = Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(@NonNull Runnable runnable) {
+                Thread thread = new Thread(runnable, "Comapi-Events");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * Delivers events on a Rx scheduler. Events are scheduled on a single worker of the scheduler so their order is preserved.
+     *
+     * @param scheduler Rx scheduler e.g. Schedulers.io().
+     * @return Executor scheduling events on the scheduler.
+     */
+    public static Executor from(@NonNull final Scheduler scheduler) {
+        final Scheduler.Worker worker = scheduler.createWorker();
+        return new Executor() {
+            @Override
+            public void execute(@NonNull final Runnable command) {
+                worker.schedule(command::run);
+            }
+        };
+    }
+}
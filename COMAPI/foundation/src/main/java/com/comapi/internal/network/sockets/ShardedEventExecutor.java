@@ -0,0 +1,173 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Comapi (trading name of Dynmark International Limited)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons
+ * to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.comapi.internal.network.sockets;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executor delivering socket events on a number of serial lanes. Events of a single conversation always go to the same lane,
+ * so they are delivered one at a time in the order they arrived, while events of different conversations are delivered in parallel.
+ * Lanes share the threads of a backing executor, each lane keeps at most one task running on it.
+ *
+ * @author Marcin Swierczek
+ * @since 1.8.0
+ */
+public class ShardedEventExecutor implements Executor {
+
+    /**
+     * Maximum number of events a lane delivers before giving the thread back to other lanes.
+     */
+    private static final int MAX_BATCH = 64;
+
+    private final Lane[] lanes;
+
+    private final Executor executor;
+
+    /**
+     * Recommended constructor.
+     *
+     * @param laneCount Number of serial lanes.
+     * @param executor  Backing executor running the lanes, should have at least as many threads as lanes to deliver all lanes in parallel.
+     */
+    public ShardedEventExecutor(int laneCount, @NonNull Executor executor) {
+        this.executor = executor;
+        this.lanes = new Lane[Math.max(1, laneCount)];
+        for (int i = 0; i < lanes.length; i++) {
+            lanes[i] = new Lane();
+        }
+    }
+
+    /**
+     * Runs task not related to any conversation on the first lane.
+     *
+     * @param command Task to run.
+     */
+    @Override
+    public void execute(@NonNull Runnable command) {
+        execute(null, command);
+    }
+
+    /**
+     * Runs task on the lane of a conversation.
+     *
+     * @param key     Conversation id or other key of the ordering scope, null for the first lane.
+     * @param command Task to run.
+     */
+    public void execute(@Nullable String key, @NonNull Runnable command) {
+        lanes[getLane(key)].add(command);
+    }
+
+    /**
+     * Gets number of serial lanes.
+     *
+     * @return Number of lanes.
+     */
+    public int getLaneCount() {
+        return lanes.length;
+    }
+
+    /**
+     * Gets lane for a key of the ordering scope.
+     *
+     * @param key Conversation id or other key of the ordering scope, null for the first lane.
+     * @return Lane index.
+     */
+    public int getLane(@Nullable String key) {
+        return key != null ? (key.hashCode() & Integer.MAX_VALUE) % lanes.length : 0;
+    }
+
+    /**
+     * Gets number of events waiting or being delivered on a lane.
+     *
+     * @param lane Lane index.
+     * @return Current depth of the lane.
+     */
+    public int getLaneDepth(int lane) {
+        return lanes[lane].depth.get();
+    }
+
+    /**
+     * Gets the highest number of events waiting or being delivered on a lane at the same time.
+     *
+     * @param lane Lane index.
+     * @return Maximum depth of the lane.
+     */
+    public int getMaxLaneDepth(int lane) {
+        return lanes[lane].maxDepth.get();
+    }
+
+    /**
+     * Serial queue of tasks running on the backing executor.
+     */
+    private class Lane implements Runnable {
+
+        private final ConcurrentLinkedQueue<Runnable> tasks = new ConcurrentLinkedQueue<>();
+
+        private final AtomicInteger depth = new AtomicInteger();
+
+        private final AtomicInteger maxDepth = new AtomicInteger();
+
+        private final AtomicBoolean isScheduled = new AtomicBoolean();
+
+        void add(@NonNull Runnable command) {
+            tasks.add(command);
+            int current = depth.incrementAndGet();
+            int max = maxDepth.get();
+            while (current > max && !maxDepth.compareAndSet(max, current)) {
+                max = maxDepth.get();
+            }
+            schedule();
+        }
+
+        private void schedule() {
+            if (isScheduled.compareAndSet(false, true)) {
+                executor.execute(this);
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                Runnable task;
+                int count = 0;
+                while (count++ < MAX_BATCH && (task = tasks.poll()) != null) {
+                    try {
+                        task.run();
+                    } finally {
+                        depth.decrementAndGet();
+                    }
+                }
+            } finally {
+                isScheduled.set(false);
+                // tasks added after the last poll or left after a full batch
+                if (!tasks.isEmpty()) {
+                    schedule();
+                }
+            }
+        }
+    }
+}
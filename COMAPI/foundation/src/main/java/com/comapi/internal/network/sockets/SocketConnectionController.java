@@ -29,6 +29,7 @@ import com.comapi.internal.NetworkConnectivityListener;
 import com.comapi.internal.data.DataManager;
 import com.comapi.internal.data.SessionData;
 import com.comapi.internal.log.Logger;
+import com.comapi.internal.network.ServerClock;
 
 import java.lang.ref.WeakReference;
 import java.net.URI;
@@ -61,6 +62,8 @@ class SocketConnectionController implements SocketStateListener, NetworkConnecti
 
     private Handler handler;
 
+    private final ServerClock clock;
+
     /**
      * Recommended constructor.
      *
@@ -71,6 +74,20 @@ class SocketConnectionController implements SocketStateListener, NetworkConnecti
      * @param retryStrategy Strategy for socket connection retries.
      */
     SocketConnectionController(@NonNull Handler handler, @NonNull DataManager dataMgr, @NonNull SocketFactory factory, @NonNull ListenerListAdapter listener, @NonNull RetryStrategy retryStrategy, @NonNull Logger log) {
+        this(handler, dataMgr, factory, listener, retryStrategy, log, new ServerClock());
+    }
+
+    /**
+     * Recommended constructor.
+     *
+     * @param handler       main thread handler to schedule reconnection.
+     * @param dataMgr       Data Manager to obtain latest authentication token.
+     * @param factory       Factory class to create SocketInterface instance.
+     * @param listener      Listener adapter dispatching events to registered external listener objects.
+     * @param retryStrategy Strategy for socket connection retries.
+     * @param clock         Estimates the services clock to compare session expiry with.
+     */
+    SocketConnectionController(@NonNull Handler handler, @NonNull DataManager dataMgr, @NonNull SocketFactory factory, @NonNull ListenerListAdapter listener, @NonNull RetryStrategy retryStrategy, @NonNull Logger log, @NonNull ServerClock clock) {
         this.dataMgr = dataMgr;
         this.factory = factory;
         this.listener = listener;
@@ -80,6 +97,7 @@ class SocketConnectionController implements SocketStateListener, NetworkConnecti
         this.socket = null;
         this.log = log;
         this.handler = handler;
+        this.clock = clock;
     }
 
     /**
@@ -130,7 +148,7 @@ class SocketConnectionController implements SocketStateListener, NetworkConnecti
     private String getToken() {
 
         SessionData session = dataMgr.getSessionDAO().session();
-        if (session != null && session.getExpiresOn() > System.currentTimeMillis()) {
+        if (session != null && session.getExpiresOn() > clock.currentTimeMillis()) {
             return session.getAccessToken();
         }
 
@@ -32,10 +32,12 @@ import com.comapi.internal.ListenerListAdapter;
 import com.comapi.internal.Parser;
 import com.comapi.internal.data.DataManager;
 import com.comapi.internal.log.Logger;
+import com.comapi.internal.network.ServerClock;
 import com.comapi.internal.receivers.InternetConnectionReceiver;
 import com.comapi.internal.lifecycle.LifecycleListener;
 
 import java.net.URI;
+import java.util.concurrent.Executor;
 
 /**
  * Class to create connections. Registers for application background/foreground state changes and network connectivity changes.
@@ -64,6 +66,10 @@ public class SocketController {
 
     private final Object lock;
 
+    private final ServerClock clock;
+
+    private final Executor eventExecutor;
+
     /**
      * Recommended constructor.
      *
@@ -74,6 +80,21 @@ public class SocketController {
      * @param proxyURI  Proxy URI
      */
     public SocketController(@NonNull DataManager dataMgr, ListenerListAdapter listener, @NonNull Logger log, @NonNull URI socketURI, URI proxyURI) {
+        this(dataMgr, listener, log, socketURI, proxyURI, new ServerClock(), EventExecutors.mainThread());
+    }
+
+    /**
+     * Recommended constructor.
+     *
+     * @param dataMgr       Manager of internal data storage.
+     * @param listener      Listener for socket events.
+     * @param log           Internal logger.
+     * @param socketURI     Socket URI.
+     * @param proxyURI      Proxy URI
+     * @param clock         Estimates the services clock to compare session expiry with.
+     * @param eventExecutor Executor on which socket events are delivered to the listener.
+     */
+    public SocketController(@NonNull DataManager dataMgr, ListenerListAdapter listener, @NonNull Logger log, @NonNull URI socketURI, URI proxyURI, @NonNull ServerClock clock, @NonNull Executor eventExecutor) {
         this.lock = new Object();
         this.dataMgr = dataMgr;
         this.listener = listener;
@@ -81,6 +102,8 @@ public class SocketController {
         this.socketURI = socketURI;
         this.proxyURI = proxyURI;
         this.isForegrounded = true;
+        this.clock = clock;
+        this.eventExecutor = eventExecutor;
     }
 
     /**
@@ -91,8 +114,8 @@ public class SocketController {
         synchronized (lock) {
             if (isForegrounded) {
                 if (socketConnection == null) {
-                    SocketFactory factory = new SocketFactory(socketURI, new SocketEventDispatcher(listener, new Parser()).setLogger(log), log);
-                    socketConnection = new SocketConnectionController(new Handler(Looper.getMainLooper()), dataMgr, factory, listener, new RetryStrategy(60, 60000), log);
+                    SocketFactory factory = new SocketFactory(socketURI, new SocketEventDispatcher(listener, new Parser(), eventExecutor).setLogger(log), log);
+                    socketConnection = new SocketConnectionController(new Handler(Looper.getMainLooper()), dataMgr, factory, listener, new RetryStrategy(60, 60000), log, clock);
                     socketConnection.setProxy(proxyURI);
                     socketConnection.connect();
 
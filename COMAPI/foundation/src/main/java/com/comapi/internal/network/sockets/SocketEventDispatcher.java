@@ -20,12 +20,12 @@
 
 package com.comapi.internal.network.sockets;
 
-import android.os.Handler;
-import android.os.Looper;
+import androidx.annotation.NonNull;
 
 import com.comapi.internal.Parser;
 import com.comapi.internal.log.Logger;
 import com.comapi.internal.network.model.events.Event;
+import com.comapi.internal.network.model.events.EventTypeAdapterFactory;
 import com.comapi.internal.network.model.events.ProfileUpdateEvent;
 import com.comapi.internal.network.model.events.SocketStartEvent;
 import com.comapi.internal.network.model.events.conversation.ConversationDeleteEvent;
@@ -39,8 +39,13 @@ import com.comapi.internal.network.model.events.conversation.ParticipantUpdatedE
 import com.comapi.internal.network.model.events.conversation.message.MessageDeliveredEvent;
 import com.comapi.internal.network.model.events.conversation.message.MessageReadEvent;
 import com.comapi.internal.network.model.events.conversation.message.MessageSentEvent;
-import com.google.gson.JsonElement;
-import com.google.gson.JsonObject;
+import com.google.gson.TypeAdapter;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+
+import rx.functions.Action1;
 
 /**
  * Categorises, and dispatches socket events to message bus.
@@ -56,7 +61,17 @@ public class SocketEventDispatcher implements SocketMessageListener {
 
     private final SocketEventListener listener;
 
-    private Handler handler;
+    private final Executor executor;
+
+    /**
+     * Event decoder, skips events without subscribers if the listener is a {@link SocketEventDemand}.
+     */
+    private final TypeAdapter<Event> eventAdapter;
+
+    /**
+     * Dispatch methods for event classes.
+     */
+    private final Map<Class<? extends Event>, Action1<Event>> handlers = new HashMap<>();
 
     /**
      * Recommended constructor.
@@ -65,9 +80,35 @@ public class SocketEventDispatcher implements SocketMessageListener {
      * @param parser   Json parser implantation.
      */
     public SocketEventDispatcher(SocketEventListener listener, Parser parser) {
+        this(listener, parser, EventExecutors.mainThread());
+    }
+
+    /**
+     * Recommended constructor.
+     *
+     * @param listener Listener for all socket events.
+     * @param parser   Json parser implantation.
+     * @param executor Executor on which events are delivered to the listener.
+     */
+    public SocketEventDispatcher(SocketEventListener listener, Parser parser, @NonNull Executor executor) {
         this.listener = listener;
         this.parser = parser;
-        this.handler = new Handler(Looper.getMainLooper());
+        this.executor = executor;
+        EventTypeAdapterFactory.EventFilter filter = listener instanceof SocketEventDemand ? ((SocketEventDemand) listener)::hasSubscribers : null;
+        this.eventAdapter = parser.createEventAdapter(filter);
+        handlers.put(MessageSentEvent.class, event -> onMessageSent((MessageSentEvent) event));
+        handlers.put(MessageDeliveredEvent.class, event -> onMessageDelivered((MessageDeliveredEvent) event));
+        handlers.put(MessageReadEvent.class, event -> onMessageRead((MessageReadEvent) event));
+        handlers.put(ParticipantAddedEvent.class, event -> onParticipantAdded((ParticipantAddedEvent) event));
+        handlers.put(ParticipantUpdatedEvent.class, event -> onParticipantUpdated((ParticipantUpdatedEvent) event));
+        handlers.put(ParticipantRemovedEvent.class, event -> onParticipantRemoved((ParticipantRemovedEvent) event));
+        handlers.put(ConversationUpdateEvent.class, event -> onConversationUpdated((ConversationUpdateEvent) event));
+        handlers.put(ConversationDeleteEvent.class, event -> onConversationDeleted((ConversationDeleteEvent) event));
+        handlers.put(ConversationUndeleteEvent.class, event -> onConversationUndeleted((ConversationUndeleteEvent) event));
+        handlers.put(SocketStartEvent.class, event -> onSocketStarted((SocketStartEvent) event));
+        handlers.put(ProfileUpdateEvent.class, event -> onProfileUpdate((ProfileUpdateEvent) event));
+        handlers.put(ParticipantTypingEvent.class, event -> onParticipantIsTyping((ParticipantTypingEvent) event));
+        handlers.put(ParticipantTypingOffEvent.class, event -> onParticipantTypingOff((ParticipantTypingOffEvent) event));
     }
 
     /**
@@ -85,43 +126,13 @@ public class SocketEventDispatcher implements SocketMessageListener {
 
         if (listener != null) {
 
-            JsonObject event = parser.parse(text, JsonObject.class);
+            // single pass, the event class is chosen by the name field while the frame is being read, events without subscribers are skipped
+            Event event = parser.parse(text, eventAdapter);
 
             if (event != null) {
-
-                JsonElement nameElement = event.get(Event.KEY_NAME);
-
-                if (nameElement != null) {
-
-                    String name = nameElement.getAsString();
-
-                    if (MessageSentEvent.TYPE.equals(name)) {
-                        onMessageSent(parser.parse(event, MessageSentEvent.class));
-                    } else if (MessageDeliveredEvent.TYPE.equals(name)) {
-                        onMessageDelivered(parser.parse(event, MessageDeliveredEvent.class));
-                    } else if (MessageReadEvent.TYPE.equals(name)) {
-                        onMessageRead(parser.parse(event, MessageReadEvent.class));
-                    } else if (ParticipantAddedEvent.TYPE.equals(name)) {
-                        onParticipantAdded(parser.parse(event, ParticipantAddedEvent.class));
-                    } else if (ParticipantUpdatedEvent.TYPE.equals(name)) {
-                        onParticipantUpdated(parser.parse(event, ParticipantUpdatedEvent.class));
-                    } else if (ParticipantRemovedEvent.TYPE.equals(name)) {
-                        onParticipantRemoved(parser.parse(event, ParticipantRemovedEvent.class));
-                    } else if (ConversationUpdateEvent.TYPE.equals(name)) {
-                        onConversationUpdated(parser.parse(event, ConversationUpdateEvent.class));
-                    } else if (ConversationDeleteEvent.TYPE.equals(name)) {
-                        onConversationDeleted(parser.parse(event, ConversationDeleteEvent.class));
-                    } else if (ConversationUndeleteEvent.TYPE.equals(name)) {
-                        onConversationUndeleted(parser.parse(event, ConversationUndeleteEvent.class));
-                    } else if (SocketStartEvent.TYPE.equals(name)) {
-                        onSocketStarted(parser.parse(event, SocketStartEvent.class));
-                    } else if (ProfileUpdateEvent.TYPE.equals(name)) {
-                        onProfileUpdate(parser.parse(event, ProfileUpdateEvent.class));
-                    } else if (ParticipantTypingEvent.TYPE.equals(name)) {
-                        onParticipantIsTyping(parser.parse(event, ParticipantTypingEvent.class));
-                    } else if (ParticipantTypingOffEvent.TYPE.equals(name)) {
-                        onParticipantTypingOff(parser.parse(event, ParticipantTypingOffEvent.class));
-                    }
+                Action1<Event> handler = handlers.get(event.getClass());
+                if (handler != null) {
+                    handler.call(event);
                 }
             }
         }
@@ -133,7 +144,7 @@ public class SocketEventDispatcher implements SocketMessageListener {
      * @param event Event to dispatch.
      */
     private void onParticipantIsTyping(ParticipantTypingEvent event) {
-        handler.post(() -> listener.onParticipantIsTyping(event));
+        dispatch(event.getConversationId(), () -> listener.onParticipantIsTyping(event));
         log("Event published " + event.toString());
     }
 
@@ -143,7 +154,7 @@ public class SocketEventDispatcher implements SocketMessageListener {
      * @param event Event to dispatch.
      */
     private void onParticipantTypingOff(ParticipantTypingOffEvent event) {
-        handler.post(() -> listener.onParticipantTypingOff(event));
+        dispatch(event.getConversationId(), () -> listener.onParticipantTypingOff(event));
         log("Event published " + event.toString());
     }
 
@@ -153,7 +164,7 @@ public class SocketEventDispatcher implements SocketMessageListener {
      * @param event Event to dispatch.
      */
     private void onProfileUpdate(ProfileUpdateEvent event) {
-        handler.post(() -> listener.onProfileUpdate(event));
+        dispatch(event.getProfileId(), () -> listener.onProfileUpdate(event));
         log("Event published " + event.toString());
     }
 
@@ -163,7 +174,7 @@ public class SocketEventDispatcher implements SocketMessageListener {
      * @param event Event to dispatch.
      */
     private void onMessageSent(MessageSentEvent event) {
-        handler.post(() -> listener.onMessageSent(event));
+        dispatch(event.getContext() != null ? event.getContext().getConversationId() : null, () -> listener.onMessageSent(event));
         log("Event published " + event.toString());
     }
 
@@ -173,7 +184,7 @@ public class SocketEventDispatcher implements SocketMessageListener {
      * @param event Event to dispatch.
      */
     private void onMessageDelivered(MessageDeliveredEvent event) {
-        handler.post(() -> listener.onMessageDelivered(event));
+        dispatch(event.getConversationId(), () -> listener.onMessageDelivered(event));
         log("Event published " + event.toString());
     }
 
@@ -183,7 +194,7 @@ public class SocketEventDispatcher implements SocketMessageListener {
      * @param event Event to dispatch.
      */
     private void onMessageRead(MessageReadEvent event) {
-        handler.post(() -> listener.onMessageRead(event));
+        dispatch(event.getConversationId(), () -> listener.onMessageRead(event));
         log("Event published " + event.toString());
     }
 
@@ -193,7 +204,7 @@ public class SocketEventDispatcher implements SocketMessageListener {
      * @param event Event to dispatch.
      */
     private void onSocketStarted(SocketStartEvent event) {
-        handler.post(() -> listener.onSocketStarted(event));
+        dispatch(null, () -> listener.onSocketStarted(event));
         log("Event published " + event.toString());
     }
 
@@ -203,7 +214,7 @@ public class SocketEventDispatcher implements SocketMessageListener {
      * @param event Event to dispatch.
      */
     private void onParticipantAdded(ParticipantAddedEvent event) {
-        handler.post(() -> listener.onParticipantAdded(event));
+        dispatch(event.getConversationId(), () -> listener.onParticipantAdded(event));
         log("Event published " + event.toString());
     }
 
@@ -213,7 +224,7 @@ public class SocketEventDispatcher implements SocketMessageListener {
      * @param event Event to dispatch.
      */
     private void onParticipantUpdated(ParticipantUpdatedEvent event) {
-        handler.post(() -> listener.onParticipantUpdated(event));
+        dispatch(event.getConversationId(), () -> listener.onParticipantUpdated(event));
         log("Event published " + event.toString());
     }
 
@@ -223,7 +234,7 @@ public class SocketEventDispatcher implements SocketMessageListener {
      * @param event Event to dispatch.
      */
     private void onParticipantRemoved(ParticipantRemovedEvent event) {
-        handler.post(() -> listener.onParticipantRemoved(event));
+        dispatch(event.getConversationId(), () -> listener.onParticipantRemoved(event));
         log("Event published " + event.toString());
     }
 
@@ -233,7 +244,7 @@ public class SocketEventDispatcher implements SocketMessageListener {
      * @param event Event to dispatch.
      */
     private void onConversationUpdated(ConversationUpdateEvent event) {
-        handler.post(() -> listener.onConversationUpdated(event));
+        dispatch(event.getConversationId(), () -> listener.onConversationUpdated(event));
         log("Event published " + event.toString());
     }
 
@@ -243,7 +254,7 @@ public class SocketEventDispatcher implements SocketMessageListener {
      * @param event Event to dispatch.
      */
     private void onConversationDeleted(ConversationDeleteEvent event) {
-        handler.post(() -> listener.onConversationDeleted(event));
+        dispatch(event.getConversationId(), () -> listener.onConversationDeleted(event));
         log("Event published " + event.toString());
     }
 
@@ -253,10 +264,24 @@ public class SocketEventDispatcher implements SocketMessageListener {
      * @param event Event to dispatch.
      */
     private void onConversationUndeleted(ConversationUndeleteEvent event) {
-        handler.post(() -> listener.onConversationUndeleted(event));
+        dispatch(event.getConversationId(), () -> listener.onConversationUndeleted(event));
         log("Event published " + event.toString());
     }
 
+    /**
+     * Delivers event on the executor. Sharded executor delivers events with the same key one at a time in the arrival order.
+     *
+     * @param key     Conversation id or other key of the ordering scope, null if not related to any conversation.
+     * @param command Delivery of the event to the listener.
+     */
+    private void dispatch(String key, Runnable command) {
+        if (executor instanceof ShardedEventExecutor) {
+            ((ShardedEventExecutor) executor).execute(key, command);
+        } else {
+            executor.execute(command);
+        }
+    }
+
     private void log(String message) {
         if (log != null) {
             log.d(message);
@@ -0,0 +1,170 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Comapi (trading name of Dynmark International Limited)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons
+ * to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.comapi.helpers;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Locale;
+
+/**
+ * Measures average execution time and allocations of an operation for manually run benchmarks.
+ *
+ * @author Marcin Swierczek
+ * @since 1.8.0
+ */
+public class BenchmarkHelper {
+
+    /**
+     * Average cost of a single run of a measured operation.
+     */
+    public static class Measurement {
+
+        private final long nanosPerRun;
+
+        private final long bytesPerRun;
+
+        Measurement(long nanosPerRun, long bytesPerRun) {
+            this.nanosPerRun = nanosPerRun;
+            this.bytesPerRun = bytesPerRun;
+        }
+
+        /**
+         * Gets average execution time.
+         *
+         * @return Average execution time in nanoseconds.
+         */
+        public long getNanosPerRun() {
+            return nanosPerRun;
+        }
+
+        /**
+         * Gets average number of bytes allocated by the measuring thread.
+         *
+         * @return Average allocated bytes, -1 if the JVM doesn't count thread allocations.
+         */
+        public long getBytesPerRun() {
+            return bytesPerRun;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US, "%.1fus", nanosPerRun / 1000d) + (bytesPerRun >= 0 ? String.format(Locale.US, " %.1fKB", bytesPerRun / 1024d) : "");
+        }
+    }
+
+    /**
+     * Average costs of a single run of a baseline and an optimised operation.
+     */
+    public static class Comparison {
+
+        private final Measurement baseline;
+
+        private final Measurement optimised;
+
+        Comparison(Measurement baseline, Measurement optimised) {
+            this.baseline = baseline;
+            this.optimised = optimised;
+        }
+
+        /**
+         * Checks if the optimised operation didn't take longer than the baseline.
+         *
+         * @return True if the optimised operation is not slower.
+         */
+        public boolean isNotSlower() {
+            return optimised.nanosPerRun <= baseline.nanosPerRun;
+        }
+
+        @Override
+        public String toString() {
+            String result = "baseline " + baseline + ", optimised " + optimised + " per run, " + String.format(Locale.US, "%.1fx faster", (double) baseline.nanosPerRun / Math.max(1, optimised.nanosPerRun));
+            if (baseline.bytesPerRun > 0 && optimised.bytesPerRun >= 0) {
+                result += String.format(Locale.US, ", %.0f%% fewer bytes allocated", 100d * (baseline.bytesPerRun - optimised.bytesPerRun) / baseline.bytesPerRun);
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Runs the operation to let the JIT compile it, then measures its average execution time.
+     *
+     * @param warmUp     Number of runs before the measurement.
+     * @param iterations Number of measured runs.
+     * @param operation  Measured operation.
+     * @return Average execution time in nanoseconds.
+     */
+    public static long nanosPerRun(int warmUp, int iterations, Runnable operation) {
+        return measure(warmUp, iterations, operation).getNanosPerRun();
+    }
+
+    /**
+     * Runs the operation to let the JIT compile it, then measures its average execution time and allocations.
+     *
+     * @param warmUp     Number of runs before the measurement.
+     * @param iterations Number of measured runs.
+     * @param operation  Measured operation.
+     * @return Average cost of a single run.
+     */
+    public static Measurement measure(int warmUp, int iterations, Runnable operation) {
+        for (int i = 0; i < warmUp; i++) {
+            operation.run();
+        }
+        long bytes = allocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            operation.run();
+        }
+        long nanos = System.nanoTime() - start;
+        return new Measurement(nanos / iterations, bytes >= 0 ? (allocatedBytes() - bytes) / iterations : -1);
+    }
+
+    /**
+     * Measures the baseline and the optimised operation and prints both results, so they are reported also when the benchmark passes.
+     *
+     * @param name       Benchmark description.
+     * @param warmUp     Number of runs before the measurement.
+     * @param iterations Number of measured runs.
+     * @param baseline   Operation the optimisation is compared with.
+     * @param optimised  Optimised operation.
+     * @return Average costs of a single run of both operations.
+     */
+    public static Comparison compare(String name, int warmUp, int iterations, Runnable baseline, Runnable optimised) {
+        Comparison comparison = new Comparison(measure(warmUp, iterations, baseline), measure(warmUp, iterations, optimised));
+        System.out.println(name + ": " + comparison);
+        return comparison;
+    }
+
+    /**
+     * Gets number of bytes allocated so far by the current thread.
+     *
+     * @return Allocated bytes, -1 if the JVM doesn't count thread allocations.
+     */
+    private static long allocatedBytes() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) bean;
+            if (sunBean.isThreadAllocatedMemorySupported() && sunBean.isThreadAllocatedMemoryEnabled()) {
+                return sunBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }
+        return -1;
+    }
+}
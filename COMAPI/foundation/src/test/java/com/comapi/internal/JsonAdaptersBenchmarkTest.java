@@ -0,0 +1,106 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Comapi (trading name of Dynmark International Limited)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons
+ * to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.comapi.internal;
+
+import android.os.Build;
+
+import com.comapi.helpers.BenchmarkHelper;
+import com.comapi.helpers.ResponseTestHelper;
+import com.comapi.internal.network.model.conversation.ConversationDetails;
+import com.comapi.internal.network.model.messaging.MessagesQueryResponse;
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+
+import org.junit.Before;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.lang.reflect.Type;
+import java.util.Map;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertSame;
+import static junit.framework.Assert.assertTrue;
+
+/**
+ * Compares first call and steady state decoding latency of network models for cold and warmed up Gson instances.
+ *
+ * @author Marcin Swierczek
+ * @since 1.8.0
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = Build.VERSION_CODES.P)
+public class JsonAdaptersBenchmarkTest {
+
+    private static final int ITERATIONS = 200;
+
+    private static final Type PROFILE_TYPE = new TypeToken<Map<String, Object>>() {
+    }.getType();
+
+    private String messages;
+
+    private String conversation;
+
+    private String profile;
+
+    @Before
+    public void setUp() throws Exception {
+        messages = ResponseTestHelper.readFromFile(this, "rest_message_query.json");
+        conversation = ResponseTestHelper.readFromFile(this, "rest_conversation_get.json");
+        profile = ResponseTestHelper.readFromFile(this, "rest_profile_get.json");
+    }
+
+    @Test
+    public void sharedInstance() {
+        assertSame(Parser.getGson(), Parser.getGson());
+        Object[] models = decode(Parser.getGson());
+        assertEquals(new Gson().toJson(models), new Parser().toJson(models));
+    }
+
+    @Test
+    @Ignore("Benchmark, run manually")
+    public void decode_benchmark() {
+
+        // JIT warm up on a throwaway instance so the comparison measures adapter construction only
+        Gson throwaway = Parser.createGson();
+        BenchmarkHelper.nanosPerRun(ITERATIONS, 1, () -> decode(throwaway));
+
+        Gson cold = Parser.createGson();
+        long coldFirst = BenchmarkHelper.nanosPerRun(0, 1, () -> decode(cold));
+
+        Gson warm = Parser.createGson();
+        Parser.warmUp(warm);
+        long warmFirst = BenchmarkHelper.nanosPerRun(0, 1, () -> decode(warm));
+        long steady = BenchmarkHelper.nanosPerRun(0, ITERATIONS, () -> decode(warm));
+
+        assertTrue("First decode: cold Gson " + coldFirst / 1000 + "us, warmed up Gson " + warmFirst / 1000 + "us, steady state " + steady / 1000 + "us", warmFirst < coldFirst);
+    }
+
+    private Object[] decode(Gson gson) {
+        return new Object[]{
+                gson.fromJson(messages, MessagesQueryResponse.class),
+                gson.fromJson(conversation, ConversationDetails.class),
+                gson.fromJson(profile, PROFILE_TYPE)};
+    }
+}
@@ -36,10 +36,14 @@ import org.robolectric.RobolectricTestRunner;
 import org.robolectric.RuntimeEnvironment;
 import org.robolectric.annotation.Config;
 
+import java.util.List;
+
 import static com.comapi.helpers.DataTestHelper.API_SPACE_ID;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
 /**
  * Robolectric tests for application lifecycle observer.
@@ -152,9 +156,42 @@ public class DataTest {
 
     }
 
+    @Test
+    public void testOutboxDAO() {
+
+        OutboxDAO outboxDAO = mgr.getOutboxDAO();
+
+        String id1 = outboxDAO.add(new OutboxEntry(OutboxEntry.TYPE_MESSAGE, "profileId", "conversationId", "{}"));
+        String id2 = outboxDAO.add(new OutboxEntry(OutboxEntry.TYPE_STATUS, "profileId", "conversationId", "[]"));
+        assertNotNull(id1);
+        assertNotNull(id2);
+
+        assertTrue(outboxDAO.markAttempted(id1));
+
+        List<OutboxEntry> entries = outboxDAO.entries();
+        assertEquals(2, entries.size());
+        assertEquals(id1, entries.get(0).getId());
+        assertEquals(OutboxEntry.TYPE_MESSAGE, entries.get(0).getType());
+        assertEquals("profileId", entries.get(0).getProfileId());
+        assertEquals("conversationId", entries.get(0).getConversationId());
+        assertEquals("{}", entries.get(0).getPayload());
+        assertTrue(entries.get(0).isAttempted());
+        assertEquals(id2, entries.get(1).getId());
+        assertFalse(entries.get(1).isAttempted());
+
+        outboxDAO.remove(id1);
+        entries = outboxDAO.entries();
+        assertEquals(1, entries.size());
+        assertEquals(id2, entries.get(0).getId());
+
+        outboxDAO.clearOutbox();
+        assertEquals(0, outboxDAO.entries().size());
+    }
+
     @After
     public void tearDown() throws Exception {
         mgr.getDeviceDAO().clearAll();
         mgr.getSessionDAO().clearAll();
+        mgr.getOutboxDAO().clearAll();
     }
 }
\ No newline at end of file
@@ -0,0 +1,195 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Comapi (trading name of Dynmark International Limited)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons
+ * to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.comapi.internal.network;
+
+import android.os.Build;
+
+import com.comapi.internal.log.LogManager;
+import com.comapi.internal.log.Logger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okio.Buffer;
+import okio.ByteString;
+import okio.Okio;
+import rx.Observable;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertTrue;
+import static junit.framework.Assert.fail;
+
+/**
+ * Tests for the disk cache of message attachments.
+ *
+ * @author Marcin Swierczek
+ * @since 1.8.0
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = Build.VERSION_CODES.P)
+public class AttachmentCacheTest {
+
+    private MockWebServer server;
+
+    private File directory;
+
+    private OkHttpClient client;
+
+    private Logger log;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new MockWebServer();
+        server.start();
+        directory = new File(RuntimeEnvironment.application.getCacheDir(), "attachments");
+        client = new OkHttpClient.Builder().build();
+        log = new Logger(new LogManager(), "");
+    }
+
+    @Test
+    public void concurrentFetches_downloadedOnce() throws Exception {
+
+        byte[] data = content(100 * 1024);
+        server.enqueue(new MockResponse().setResponseCode(200).setBody(new Buffer().write(data)).setBodyDelay(200, TimeUnit.MILLISECONDS));
+
+        AttachmentCache cache = new AttachmentCache(directory, 1024 * 1024, client, log);
+        String url = server.url("/content/image.jpg").toString();
+
+        List<File> files = Observable.merge(cache.fetch(url), cache.fetch(url)).toList().toBlocking().single();
+        assertEquals(2, files.size());
+        assertEquals(files.get(0), files.get(1));
+        assertTrue(Arrays.equals(data, Okio.buffer(Okio.source(files.get(0))).readByteArray()));
+
+        assertEquals(files.get(0), cache.fetch(url).toBlocking().single());
+        assertEquals(1, server.getRequestCount());
+        assertEquals(data.length, cache.size());
+    }
+
+    @Test
+    public void interruptedDownload_resumedWithRange() throws Exception {
+
+        byte[] data = content(1000);
+        String url = server.url("/content/video.mp4").toString();
+
+        assertTrue(directory.mkdirs());
+        File partial = new File(directory, ByteString.encodeUtf8(url).sha256().hex() + ".part");
+        Okio.buffer(Okio.sink(partial)).write(data, 0, 400).close();
+
+        server.enqueue(new MockResponse().setResponseCode(206).setHeader("Content-Range", "bytes 400-999/1000").setBody(new Buffer().write(data, 400, 600)));
+
+        File file = new AttachmentCache(directory, 1024 * 1024, client, log).fetch(url).toBlocking().single();
+
+        RecordedRequest request = server.takeRequest();
+        assertEquals("bytes=400-", request.getHeader("Range"));
+        assertTrue(Arrays.equals(data, Okio.buffer(Okio.source(file)).readByteArray()));
+        assertTrue(!partial.exists());
+    }
+
+    @Test
+    public void rangeNotSatisfiable_downloadedAgain() throws Exception {
+
+        byte[] data = content(1000);
+        String url = server.url("/content/video.mp4").toString();
+
+        assertTrue(directory.mkdirs());
+        File partial = new File(directory, ByteString.encodeUtf8(url).sha256().hex() + ".part");
+        Okio.buffer(Okio.sink(partial)).write(content(2000)).close();
+
+        server.enqueue(new MockResponse().setResponseCode(416));
+        server.enqueue(new MockResponse().setResponseCode(200).setBody(new Buffer().write(data)));
+
+        File file = new AttachmentCache(directory, 1024 * 1024, client, log).fetch(url).toBlocking().single();
+
+        assertEquals("bytes=2000-", server.takeRequest().getHeader("Range"));
+        assertNull(server.takeRequest().getHeader("Range"));
+        assertTrue(Arrays.equals(data, Okio.buffer(Okio.source(file)).readByteArray()));
+    }
+
+    @Test
+    public void leastRecentlyUsed_evicted() throws Exception {
+
+        for (int i = 0; i < 4; i++) {
+            server.enqueue(new MockResponse().setResponseCode(200).setBody(new Buffer().write(content(100))));
+        }
+
+        AttachmentCache cache = new AttachmentCache(directory, 250, client, log);
+        String a = server.url("/a").toString();
+        String b = server.url("/b").toString();
+        String c = server.url("/c").toString();
+
+        cache.fetch(a).toBlocking().single();
+        cache.fetch(b).toBlocking().single();
+        cache.fetch(a).toBlocking().single();
+        cache.fetch(c).toBlocking().single();
+        assertEquals(3, server.getRequestCount());
+        assertEquals(200, cache.size());
+
+        cache.fetch(a).toBlocking().single();
+        assertEquals(3, server.getRequestCount());
+        cache.fetch(b).toBlocking().single();
+        assertEquals(4, server.getRequestCount());
+
+        // index of files cached by a previous instance is rebuilt from the directory
+        assertEquals(200, new AttachmentCache(directory, 250, client, log).size());
+    }
+
+    @Test
+    public void downloadFailure_notCached() throws Exception {
+
+        server.enqueue(new MockResponse().setResponseCode(404));
+
+        AttachmentCache cache = new AttachmentCache(directory, 1024 * 1024, client, log);
+        try {
+            cache.fetch(server.url("/missing").toString()).toBlocking().single();
+            fail();
+        } catch (RuntimeException e) {
+            assertTrue(e.getCause().getMessage().contains("404"));
+        }
+        assertEquals(0, cache.size());
+    }
+
+    private static byte[] content(int length) {
+        byte[] data = new byte[length];
+        for (int i = 0; i < length; i++) {
+            data[i] = (byte) i;
+        }
+        return data;
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.shutdown();
+    }
+}
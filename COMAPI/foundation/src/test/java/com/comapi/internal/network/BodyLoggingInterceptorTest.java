@@ -0,0 +1,133 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Comapi (trading name of Dynmark International Limited)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons
+ * to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.comapi.internal.network;
+
+import android.os.Build;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertFalse;
+import static junit.framework.Assert.assertTrue;
+
+/**
+ * Tests for capped request and response body logging.
+ *
+ * @author Marcin Swierczek
+ * @since 1.8.0
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = Build.VERSION_CODES.P)
+public class BodyLoggingInterceptorTest {
+
+    private static final int MAX_BYTES = 1024;
+
+    private MockWebServer server;
+
+    private List<String> logs;
+
+    private OkHttpClient client;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new MockWebServer();
+        server.start();
+        logs = new ArrayList<>();
+        client = new OkHttpClient.Builder().addInterceptor(new BodyLoggingInterceptor(message -> logs.add(message), MAX_BYTES, 2)).build();
+    }
+
+    @Test
+    public void largeBody_truncatedAndSampled() throws Exception {
+
+        String json = largeJson();
+        server.enqueue(new MockResponse().setResponseCode(200).setHeader("Content-Type", "application/json").setBody(json));
+        server.enqueue(new MockResponse().setResponseCode(200).setHeader("Content-Type", "application/json").setBody(json));
+
+        Response response = client.newCall(new Request.Builder().url(server.url("/")).header("Authorization", "Bearer token").build()).execute();
+        assertEquals(json, response.body().string());
+        assertTrue(loggedLength() < 2 * MAX_BYTES);
+        assertTrue(logs.contains("Authorization: <redacted>"));
+        assertTrue(logs.contains("... (body truncated to " + MAX_BYTES + " bytes)"));
+
+        logs.clear();
+        response = client.newCall(new Request.Builder().url(server.url("/")).build()).execute();
+        assertEquals(json, response.body().string());
+        assertFalse(logs.contains("... (body truncated to " + MAX_BYTES + " bytes)"));
+    }
+
+    @Test
+    public void binaryBody_skipped() throws Exception {
+
+        server.enqueue(new MockResponse().setResponseCode(200).setHeader("Content-Type", "application/json").setBody("{\"id\":\"1\"}"));
+
+        byte[] image = new byte[100 * MAX_BYTES];
+        client.newCall(new Request.Builder().url(server.url("/")).post(RequestBody.create(MediaType.parse("image/jpeg"), image)).build()).execute().close();
+        assertTrue(loggedLength() < MAX_BYTES);
+        assertTrue(logs.contains("{\"id\":\"1\"}"));
+        assertEquals(image.length, server.takeRequest().getBodySize());
+    }
+
+    @Test
+    public void textRequestBody_logged() throws Exception {
+
+        server.enqueue(new MockResponse().setResponseCode(204));
+
+        client.newCall(new Request.Builder().url(server.url("/")).post(RequestBody.create(MediaType.parse("application/json; charset=utf-8"), "{\"body\":\"text\"}")).build()).execute().close();
+        assertTrue(logs.contains("{\"body\":\"text\"}"));
+        assertEquals("{\"body\":\"text\"}", server.takeRequest().getBody().readUtf8());
+    }
+
+    private String largeJson() {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < 5000; i++) {
+            sb.append(i > 0 ? "," : "").append("{\"id\":\"").append(i).append("\"}");
+        }
+        return sb.append(']').toString();
+    }
+
+    private int loggedLength() {
+        int length = 0;
+        for (String log : logs) {
+            length += log.length();
+        }
+        return length;
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.shutdown();
+    }
+}
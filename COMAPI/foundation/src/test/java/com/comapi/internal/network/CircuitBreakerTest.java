@@ -0,0 +1,203 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Comapi (trading name of Dynmark International Limited)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons
+ * to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.comapi.internal.network;
+
+import android.os.Build;
+
+import com.comapi.internal.log.LogManager;
+import com.comapi.internal.log.Logger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.fail;
+
+/**
+ * Tests for the circuit breaker failing service calls immediately.
+ *
+ * @author Marcin Swierczek
+ * @since 1.8.0
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = Build.VERSION_CODES.P)
+public class CircuitBreakerTest {
+
+    private static final long OPEN_MILLIS = 200;
+
+    private MockWebServer server;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new MockWebServer();
+        server.start();
+    }
+
+    @Test
+    public void serviceFailures_openBreaker_probeClosesIt() throws Exception {
+
+        CircuitBreaker breaker = new CircuitBreaker(2, OPEN_MILLIS, new Logger(new LogManager(), ""));
+        OkHttpClient client = new OkHttpClient.Builder().addInterceptor(breaker).build();
+
+        server.enqueue(new MockResponse().setResponseCode(500));
+        server.enqueue(new MockResponse().setResponseCode(503));
+        assertEquals(500, call(client).code());
+        assertEquals(503, call(client).code());
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+
+        assertFailsImmediately(client);
+        assertEquals(2, server.getRequestCount());
+
+        Thread.sleep(OPEN_MILLIS + 50);
+        server.enqueue(new MockResponse().setResponseCode(200));
+        assertEquals(200, call(client).code());
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    public void probeFailure_reopensBreaker() throws Exception {
+
+        CircuitBreaker breaker = new CircuitBreaker(1, OPEN_MILLIS, new Logger(new LogManager(), ""));
+        OkHttpClient client = new OkHttpClient.Builder().addInterceptor(breaker).build();
+
+        server.enqueue(new MockResponse().setResponseCode(502));
+        assertEquals(502, call(client).code());
+        assertFailsImmediately(client);
+
+        Thread.sleep(OPEN_MILLIS + 50);
+        server.enqueue(new MockResponse().setResponseCode(504));
+        assertEquals(504, call(client).code());
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFailsImmediately(client);
+        assertEquals(2, server.getRequestCount());
+    }
+
+    @Test
+    public void clientErrors_keepBreakerClosed() throws Exception {
+
+        CircuitBreaker breaker = new CircuitBreaker(1, OPEN_MILLIS, new Logger(new LogManager(), ""));
+        OkHttpClient client = new OkHttpClient.Builder().addInterceptor(breaker).build();
+
+        server.enqueue(new MockResponse().setResponseCode(404));
+        server.enqueue(new MockResponse().setResponseCode(429));
+        assertEquals(404, call(client).code());
+        assertEquals(429, call(client).code());
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    public void offline_failsImmediately() throws Exception {
+
+        CircuitBreaker breaker = new CircuitBreaker(5, OPEN_MILLIS, new Logger(new LogManager(), ""));
+        OkHttpClient client = new OkHttpClient.Builder().addInterceptor(breaker).build();
+
+        breaker.onNetworkUnavailable();
+        assertFailsImmediately(client);
+        assertEquals(0, server.getRequestCount());
+
+        breaker.onNetworkActive();
+        server.enqueue(new MockResponse().setResponseCode(200));
+        assertEquals(200, call(client).code());
+    }
+
+    @Test
+    public void networkActive_probesOpenBreaker() throws Exception {
+
+        CircuitBreaker breaker = new CircuitBreaker(1, 60 * 1000, new Logger(new LogManager(), ""));
+        OkHttpClient client = new OkHttpClient.Builder().addInterceptor(breaker).build();
+
+        server.enqueue(new MockResponse().setResponseCode(503));
+        assertEquals(503, call(client).code());
+        assertFailsImmediately(client);
+
+        breaker.onNetworkActive();
+        server.enqueue(new MockResponse().setResponseCode(200));
+        assertEquals(200, call(client).code());
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    public void probeRuntimeException_releasesProbe() throws Exception {
+
+        CircuitBreaker breaker = new CircuitBreaker(1, 60 * 1000, new Logger(new LogManager(), ""));
+        final boolean[] shouldThrow = {false};
+        OkHttpClient client = new OkHttpClient.Builder()
+                .addInterceptor(breaker)
+                .addInterceptor(chain -> {
+                    if (shouldThrow[0]) {
+                        throw new IllegalStateException("session restart failed");
+                    }
+                    return chain.proceed(chain.request());
+                })
+                .build();
+
+        server.enqueue(new MockResponse().setResponseCode(503));
+        assertEquals(503, call(client).code());
+        breaker.onNetworkActive();
+
+        shouldThrow[0] = true;
+        try {
+            call(client);
+            fail();
+        } catch (IllegalStateException e) {
+            // expected
+        }
+
+        shouldThrow[0] = false;
+        server.enqueue(new MockResponse().setResponseCode(200));
+        assertEquals(200, call(client).code());
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    public void circuitOpen_notRetried() {
+        assertEquals(RetryPolicy.NO_RETRY, new RetryPolicy().getRetryDelay(0, CallClass.QUERY, new CircuitOpenException("offline")));
+    }
+
+    private Response call(OkHttpClient client) throws Exception {
+        Response response = client.newCall(new Request.Builder().url(server.url("/apispaces/id/profiles/id")).build()).execute();
+        response.close();
+        return response;
+    }
+
+    private void assertFailsImmediately(OkHttpClient client) throws Exception {
+        try {
+            call(client);
+            fail();
+        } catch (CircuitOpenException e) {
+            // expected
+        }
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.shutdown();
+    }
+}
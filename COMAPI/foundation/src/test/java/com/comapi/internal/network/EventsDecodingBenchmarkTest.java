@@ -0,0 +1,141 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Comapi (trading name of Dynmark International Limited)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons
+ * to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.comapi.internal.network;
+
+import android.os.Build;
+
+import com.comapi.helpers.BenchmarkHelper;
+import com.comapi.helpers.ResponseTestHelper;
+import com.comapi.internal.Parser;
+import com.comapi.internal.network.model.events.Event;
+import com.comapi.internal.network.model.events.EventTypeAdapterFactory;
+import com.comapi.internal.network.model.events.conversation.message.MessageSentEvent;
+import com.comapi.internal.network.model.messaging.EventsQueryResponse;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.reflect.TypeToken;
+
+import org.junit.Before;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.lang.reflect.Type;
+import java.util.List;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertTrue;
+
+/**
+ * Compares decoding of events query pages through the json tree with the single pass {@link EventTypeAdapterFactory}.
+ *
+ * @author Marcin Swierczek
+ * @since 1.8.0
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = Build.VERSION_CODES.P)
+public class EventsDecodingBenchmarkTest {
+
+    private static final int PAGE_SIZE = 1000;
+
+    private static final int WARM_UP = 20;
+
+    private static final int ITERATIONS = 50;
+
+    private static final Type TREE_TYPE = new TypeToken<List<JsonObject>>() {
+    }.getType();
+
+    private static final Type EVENTS_TYPE = new TypeToken<List<Event>>() {
+    }.getType();
+
+    private Gson gson;
+
+    private String page;
+
+    @Before
+    public void setUp() throws Exception {
+
+        gson = new GsonBuilder().setLenient().registerTypeAdapterFactory(new EventTypeAdapterFactory()).create();
+
+        JsonArray events = new JsonParser().parse(ResponseTestHelper.readFromFile(this, "rest_events_query.json")).getAsJsonArray();
+        JsonArray pageArray = new JsonArray();
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            pageArray.add(events.get(i % events.size()));
+        }
+        page = pageArray.toString();
+    }
+
+    @Test
+    public void decodeEventsPage_sameResult() {
+
+        EventsQueryResponse tree = decodeTree();
+        EventsQueryResponse stream = decodeStream();
+
+        assertEquals(tree.getCombinedSize(), stream.getCombinedSize());
+        assertEquals(gson.toJson(tree), gson.toJson(stream));
+    }
+
+    @Test
+    @Ignore("Benchmark, run manually")
+    public void decodeEventsPage_benchmark() {
+
+        BenchmarkHelper.Comparison result = BenchmarkHelper.compare("Events page of " + PAGE_SIZE + ", json tree vs single pass", WARM_UP, ITERATIONS, this::decodeTree, this::decodeStream);
+
+        assertTrue(result.toString(), result.isNotSlower());
+    }
+
+    @Test
+    public void decodeEvent_nameAfterNestedObject() {
+
+        Event event = gson.fromJson("{\"payload\":{\"messageId\":\"id\",\"metadata\":{\"key\":\"value\"}},\"conversationEventId\":1,\"name\":\"conversationMessage.sent\",\"eventId\":\"eventId\"}", Event.class);
+
+        assertEquals(MessageSentEvent.class, event.getClass());
+        assertEquals("eventId", event.getEventId());
+        assertEquals("id", ((MessageSentEvent) event).getMessageId());
+        assertEquals("value", ((MessageSentEvent) event).getMetadata().get("key"));
+    }
+
+    @Test
+    public void decodeEvent_unknownName() {
+
+        List<Event> events = gson.fromJson("[{\"eventId\":\"eventId\",\"name\":\"unknown\",\"payload\":{\"a\":[1,2]}},{\"eventId\":\"eventId\",\"name\":\"conversationMessage.read\",\"conversationEventId\":2}]", EVENTS_TYPE);
+
+        assertEquals(2, events.size());
+        assertNull(events.get(0));
+        assertEquals("conversationMessage.read", events.get(1).getName());
+    }
+
+    private EventsQueryResponse decodeTree() {
+        List<JsonObject> events = gson.fromJson(page, TREE_TYPE);
+        return new EventsQueryResponse(events, new Parser());
+    }
+
+    private EventsQueryResponse decodeStream() {
+        List<Event> events = gson.fromJson(page, EVENTS_TYPE);
+        return new EventsQueryResponse(events);
+    }
+}
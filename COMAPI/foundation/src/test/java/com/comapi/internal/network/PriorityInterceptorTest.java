@@ -0,0 +1,165 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Comapi (trading name of Dynmark International Limited)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons
+ * to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+
+package com.comapi.internal.network;
+
+import android.os.Build;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.InterruptedIOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertNull;
+import static junit.framework.Assert.assertTrue;
+import static junit.framework.Assert.fail;
+
+/**
+ * Tests for admission of requests to the network according to their priority.
+ *
+ * @author Marcin Swierczek
+ * @since 1.8.0
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = Build.VERSION_CODES.P)
+public class PriorityInterceptorTest {
+
+    private static final long MAX_WAIT_MILLIS = 300;
+
+    private MockWebServer server;
+
+    private CountDownLatch release;
+
+    @Before
+    public void setUp() throws Exception {
+        release = new CountDownLatch(1);
+        server = new MockWebServer();
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+                if (request.getPath().endsWith("/slow")) {
+                    release.await(5, TimeUnit.SECONDS);
+                }
+                return new MockResponse().setResponseCode(200);
+            }
+        });
+        server.start();
+    }
+
+    @Test
+    public void backgroundLimitReached_failsInsteadOfBypassingLimit() throws Exception {
+
+        OkHttpClient client = new OkHttpClient.Builder().addInterceptor(new PriorityInterceptor(1, MAX_WAIT_MILLIS)).build();
+
+        Thread slow = callInBackground(client, "/slow", CallPriority.BACKGROUND.name());
+        server.takeRequest();
+
+        assertTimesOut(client, CallPriority.BACKGROUND.name());
+        assertEquals(1, server.getRequestCount());
+
+        // uploads and normal priority requests are not held back by the background requests limit
+        assertEquals(200, call(client, "/fast", CallPriority.UPLOAD).code());
+        assertEquals(200, call(client, "/fast", null).code());
+
+        release.countDown();
+        slow.join();
+        assertEquals(200, call(client, "/fast", CallPriority.BACKGROUND.name()).code());
+    }
+
+    @Test
+    public void interactiveInFlight_holdsBackBackgroundRequests() throws Exception {
+
+        OkHttpClient client = new OkHttpClient.Builder().addInterceptor(new PriorityInterceptor(2, MAX_WAIT_MILLIS)).build();
+
+        Thread slow = callInBackground(client, "/slow", CallPriority.INTERACTIVE.name());
+        assertNull(server.takeRequest().getHeader(CallPriority.HEADER));
+
+        assertTimesOut(client, CallPriority.UPLOAD);
+        assertEquals(200, call(client, "/fast", CallPriority.INTERACTIVE.name()).code());
+
+        final AtomicInteger code = new AtomicInteger();
+        Thread waiting = new Thread(() -> {
+            try {
+                code.set(call(client, "/fast", CallPriority.BACKGROUND.name()).code());
+            } catch (Exception e) {
+                code.set(-1);
+            }
+        });
+        waiting.start();
+        release.countDown();
+        slow.join();
+        waiting.join();
+        assertEquals(200, code.get());
+    }
+
+    private Thread callInBackground(OkHttpClient client, String path, String priority) {
+        Thread thread = new Thread(() -> {
+            try {
+                call(client, path, priority);
+            } catch (Exception e) {
+                // checked by the request count
+            }
+        });
+        thread.start();
+        return thread;
+    }
+
+    private Response call(OkHttpClient client, String path, String priority) throws Exception {
+        Request.Builder builder = new Request.Builder().url(server.url(path));
+        if (priority != null) {
+            builder.header(CallPriority.HEADER, priority);
+        }
+        Response response = client.newCall(builder.build()).execute();
+        response.close();
+        return response;
+    }
+
+    private void assertTimesOut(OkHttpClient client, String priority) throws Exception {
+        long start = System.currentTimeMillis();
+        try {
+            call(client, "/fast", priority);
+            fail();
+        } catch (InterruptedIOException e) {
+            assertTrue(System.currentTimeMillis() - start >= MAX_WAIT_MILLIS);
+        }
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        release.countDown();
+        server.shutdown();
+    }
+}
@@ -20,11 +20,14 @@
 
 package com.comapi.internal.network;
 
+import android.net.Uri;
 import android.os.Build;
 import android.os.Handler;
 import android.os.Looper;
 import android.text.TextUtils;
 
+import androidx.annotation.NonNull;
+
 import com.comapi.APIConfig;
 import com.comapi.GlobalState;
 import com.comapi.QueryBuilder;
@@ -35,6 +38,7 @@ import com.comapi.internal.CallbackAdapter;
 import com.comapi.internal.ComapiException;
 import com.comapi.internal.ListenerListAdapter;
 import com.comapi.internal.data.DataManager;
+import com.comapi.internal.data.OutboxEntry;
 import com.comapi.internal.data.SessionData;
 import com.comapi.internal.log.LogLevel;
 import com.comapi.internal.log.LogManager;
@@ -42,16 +46,20 @@ import com.comapi.internal.log.Logger;
 import com.comapi.internal.network.api.RestApi;
 import com.comapi.internal.network.model.conversation.Participant;
 import com.comapi.internal.network.model.conversation.Scope;
+import com.comapi.internal.network.model.events.ProfileUpdateEvent;
 import com.comapi.internal.network.model.messaging.Alert;
 import com.comapi.internal.network.model.messaging.MessageReceived;
 import com.comapi.internal.network.model.messaging.MessageStatus;
+import com.comapi.internal.network.model.messaging.MessageStatusUpdate;
 import com.comapi.internal.network.model.messaging.MessageToSend;
 import com.comapi.internal.network.model.messaging.OrphanedEvent;
 import com.comapi.internal.network.model.messaging.Part;
+import com.comapi.internal.network.model.messaging.UploadContentResponse;
 import com.comapi.internal.network.model.profile.ComapiProfile;
 import com.comapi.internal.network.sockets.SocketController;
 import com.comapi.internal.push.PushManager;
 import com.comapi.mock.MockAuthenticator;
+import com.google.gson.Gson;
 
 import org.junit.After;
 import org.junit.Before;
@@ -60,22 +68,44 @@ import org.junit.runner.RunWith;
 import org.robolectric.RobolectricTestRunner;
 import org.robolectric.RuntimeEnvironment;
 import org.robolectric.annotation.Config;
+import org.robolectric.fakes.BaseCursor;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
 import java.net.URI;
+import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.TimeZone;
 import java.util.UUID;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.ResponseBody;
+import okhttp3.mockwebserver.Dispatcher;
 import okhttp3.mockwebserver.MockResponse;
 import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okio.Buffer;
+import okio.Okio;
 import rx.Observable;
 import rx.Observer;
+import rx.Subscription;
+import rx.schedulers.TestScheduler;
+import rx.subjects.PublishSubject;
 
 import static com.comapi.helpers.DataTestHelper.API_SPACE_ID;
 import static junit.framework.Assert.assertEquals;
@@ -85,6 +115,7 @@ import static junit.framework.Assert.assertNull;
 import static junit.framework.Assert.assertTrue;
 import static junit.framework.Assert.fail;
 import static org.robolectric.RuntimeEnvironment.application;
+import static org.robolectric.Shadows.shadowOf;
 
 /**
  * Robolectric for Network setup.
@@ -273,6 +304,195 @@ public class ServiceTest {
         assertEquals(0, service.getTaskQueue().queue.size());
     }
 
+    @Test
+    public void getProfile_coalesceInFlight() throws Exception {
+
+        server.enqueue(ResponseTestHelper.createMockResponse(this, "rest_profile_get.json", 200).addHeader("ETag", "eTag").setBodyDelay(500, TimeUnit.MILLISECONDS));
+
+        List<ComapiResult<Map<String, Object>>> results = Observable.merge(service.getProfile("profileId"), service.getProfile("profileId"))
+                .timeout(3, TimeUnit.SECONDS).toList().toBlocking().single();
+
+        assertEquals(2, results.size());
+        assertEquals(1, server.getRequestCount());
+        for (ComapiResult<Map<String, Object>> result : results) {
+            assertEquals(200, result.getCode());
+            assertNotNull(result.getResult().get("id"));
+        }
+    }
+
+    @Test
+    public void getProfile_coalesceQueued() throws Exception {
+
+        isCreateSessionInProgress.set(true);
+        service.getProfile("profileId").timeout(3, TimeUnit.SECONDS).subscribe(getEmptyObserver());
+        service.getProfile("profileId").timeout(3, TimeUnit.SECONDS).subscribe(getEmptyObserver());
+        service.getProfile("otherProfileId").timeout(3, TimeUnit.SECONDS).subscribe(getEmptyObserver());
+        assertEquals(2, service.getTaskQueue().queue.size());
+    }
+
+    @Test
+    public void requestCoalescer_sharesAndCancelsCall() {
+
+        RequestCoalescer coalescer = new RequestCoalescer();
+        final AtomicInteger calls = new AtomicInteger();
+        final AtomicInteger cancelled = new AtomicInteger();
+        final PublishSubject<String> response = PublishSubject.create();
+
+        List<String> results = new ArrayList<>();
+        Subscription first = coalescer.coalesce("key", () -> {
+            calls.incrementAndGet();
+            return response.doOnUnsubscribe(cancelled::incrementAndGet);
+        }).subscribe(results::add);
+        Subscription second = coalescer.coalesce("key", () -> Observable.just("second call")).subscribe(results::add);
+
+        first.unsubscribe();
+        assertEquals(0, cancelled.get());
+        second.unsubscribe();
+        assertEquals(1, cancelled.get());
+        assertEquals(1, calls.get());
+        assertTrue(results.isEmpty());
+
+        // finished call is replayed to subscribers joining before it is removed, next subscribers send a new request
+        coalescer.coalesce("key", () -> Observable.just("result")).subscribe(results::add);
+        coalescer.coalesce("key", () -> Observable.just("next result")).subscribe(results::add);
+        assertEquals(2, results.size());
+        assertEquals("result", results.get(0));
+        assertEquals("next result", results.get(1));
+    }
+
+    @Test
+    public void getProfile_retriedAfterServiceUnavailable() throws Exception {
+
+        server.enqueue(new MockResponse().setResponseCode(503).addHeader("Retry-After", "0"));
+        server.enqueue(new MockResponse().setResponseCode(502));
+        server.enqueue(ResponseTestHelper.createMockResponse(this, "rest_profile_get.json", 200));
+
+        service.getProfile("profileId").toBlocking().forEach(response -> {
+            assertEquals(200, response.getCode());
+            assertNotNull(response.getResult().get("id"));
+        });
+        assertEquals(3, server.getRequestCount());
+    }
+
+    @Test
+    public void networkMetrics_recordedPerEndpoint() throws Exception {
+
+        server.enqueue(new MockResponse().setResponseCode(503).addHeader("Retry-After", "0"));
+        server.enqueue(ResponseTestHelper.createMockResponse(this, "rest_profile_get.json", 200));
+        server.enqueue(ResponseTestHelper.createMockResponse(this, "rest_message_sent.json", 200));
+
+        service.getProfile("profileId").toBlocking().forEach(response -> assertEquals(200, response.getCode()));
+        service.sendMessage("conversationId", "body").toBlocking().forEach(response -> assertEquals(200, response.getCode()));
+
+        NetworkMetrics metrics = service.getNetworkMetrics();
+        assertEquals(1, metrics.getRetries(CallClass.QUERY));
+        assertEquals(0, metrics.getRetries(CallClass.SEND));
+
+        EndpointMetrics profile = null;
+        EndpointMetrics message = null;
+        for (EndpointMetrics endpoint : metrics.getEndpoints()) {
+            if ("GET /apispaces/{id}/profiles/{id}".equals(endpoint.getEndpoint())) {
+                profile = endpoint;
+            } else if ("POST /apispaces/{id}/conversations/{id}/messages".equals(endpoint.getEndpoint())) {
+                message = endpoint;
+            }
+        }
+
+        assertNotNull(profile);
+        assertEquals(2, profile.getRequestCount());
+        assertEquals(Long.valueOf(1), profile.getStatusCodes().get(503));
+        assertEquals(Long.valueOf(1), profile.getStatusCodes().get(200));
+        assertTrue(profile.getResponseBytes() > 0);
+        long histogramTotal = 0;
+        for (long count : profile.getLatencyHistogram()) {
+            histogramTotal += count;
+        }
+        assertEquals(2, histogramTotal);
+        assertTrue(profile.getLatencyPercentile(50) > 0);
+
+        assertNotNull(message);
+        assertEquals(1, message.getRequestCount());
+        assertTrue(message.getRequestBytes() > 0);
+
+        metrics.reset();
+        assertTrue(metrics.getEndpoints().isEmpty());
+    }
+
+    @Test
+    public void sendMessage_notRetriedAfterBadGateway() throws Exception {
+
+        server.enqueue(new MockResponse().setResponseCode(502));
+
+        service.sendMessage("conversationId", "body").toBlocking().forEach(response -> assertEquals(502, response.getCode()));
+        assertEquals(1, server.getRequestCount());
+    }
+
+    @Test
+    public void retryPolicy_delays() {
+
+        RetryPolicy policy = new RetryPolicy().setMaxRetries(2).setBaseDelayMillis(100).setMaxDelayMillis(1000);
+        ComapiResult<Void> unavailable = new ComapiResult<>(null, false, null, 503, "Service Unavailable", null);
+        ComapiResult<Void> badGateway = new ComapiResult<>(null, false, null, 502, "Bad Gateway", null);
+
+        assertTrue(policy.getRetryDelay(1, CallClass.QUERY, badGateway, System.currentTimeMillis()) <= 200);
+        assertEquals(RetryPolicy.NO_RETRY, policy.getRetryDelay(2, CallClass.QUERY, badGateway, System.currentTimeMillis()));
+        assertEquals(RetryPolicy.NO_RETRY, policy.getRetryDelay(0, CallClass.SEND, badGateway, System.currentTimeMillis()));
+        assertTrue(policy.getRetryDelay(0, CallClass.SEND, unavailable, System.currentTimeMillis()) >= 0);
+        assertTrue(policy.getRetryDelay(0, CallClass.UPDATE, new SocketTimeoutException()) >= 0);
+        assertEquals(RetryPolicy.NO_RETRY, policy.getRetryDelay(0, CallClass.SEND, new SocketTimeoutException()));
+        assertTrue(policy.getRetryDelay(0, CallClass.SEND, new ConnectException()) >= 0);
+        assertEquals(RetryPolicy.NO_RETRY, policy.getRetryDelay(0, CallClass.QUERY, new IllegalStateException()));
+
+        assertEquals(2000, RetryPolicy.getRetryAfter(createRetryAfterResult("2"), System.currentTimeMillis()));
+        assertEquals(0, RetryPolicy.getRetryAfter(unavailable, System.currentTimeMillis()));
+        assertEquals(0, RetryPolicy.getRetryAfter(createRetryAfterResult("soon"), System.currentTimeMillis()));
+
+        // HTTP date is compared with the services clock rather than the device clock
+        SimpleDateFormat httpDate = new SimpleDateFormat("EEE, dd MMM yyyy HH:mm:ss 'GMT'", Locale.US);
+        httpDate.setTimeZone(TimeZone.getTimeZone("GMT"));
+        long serverNow = System.currentTimeMillis() - TimeUnit.HOURS.toMillis(1);
+        ComapiResult<Void> retryAt = createRetryAfterResult(httpDate.format(new Date(serverNow + 5000)));
+        long delay = RetryPolicy.getRetryAfter(retryAt, serverNow);
+        assertTrue(delay > 4000 && delay <= 5000);
+        assertEquals(0, RetryPolicy.getRetryAfter(retryAt, System.currentTimeMillis()));
+        assertEquals(RetryPolicy.NO_RETRY, RetryPolicy.none().getRetryDelay(0, CallClass.QUERY, badGateway, System.currentTimeMillis()));
+    }
+
+    private ComapiResult<Void> createRetryAfterResult(String retryAfter) {
+        okhttp3.Response raw = new okhttp3.Response.Builder()
+                .request(new Request.Builder().url(server.url("/")).build())
+                .protocol(Protocol.HTTP_1_1)
+                .code(503)
+                .message("Service Unavailable")
+                .header("Retry-After", retryAfter)
+                .build();
+        return new ComapiResult<>(retrofit2.Response.<Void>error(ResponseBody.create(null, ""), raw));
+    }
+
+    @Test
+    public void getProfile_eTagRevalidated() throws Exception {
+
+        server.enqueue(ResponseTestHelper.createMockResponse(this, "rest_profile_get.json", 200).addHeader("ETag", "eTag1"));
+        server.enqueue(new MockResponse().setResponseCode(304).addHeader("ETag", "eTag1"));
+        server.enqueue(ResponseTestHelper.createMockResponse(this, "rest_profile_get.json", 200).addHeader("ETag", "eTag2"));
+
+        service.getProfile("profileId").toBlocking().forEach(response -> assertEquals(200, response.getCode()));
+        assertNull(server.takeRequest().getHeader("If-None-Match"));
+
+        service.getProfile("profileId").toBlocking().forEach(response -> {
+            assertEquals(200, response.getCode());
+            assertEquals("eTag1", response.getETag());
+            assertNotNull(response.getResult().get("id"));
+        });
+        assertEquals("eTag1", server.takeRequest().getHeader("If-None-Match"));
+
+        ProfileUpdateEvent event = new Gson().fromJson("{\"profileId\":\"profileId\"}", ProfileUpdateEvent.class);
+        service.createResponseCacheInvalidator().onProfileUpdate(event);
+
+        service.getProfile("profileId").toBlocking().forEach(response -> assertEquals("eTag2", response.getETag()));
+        assertNull(server.takeRequest().getHeader("If-None-Match"));
+    }
+
     @Test(expected = RuntimeException.class)
     public void getProfile_noSession_shouldFail() throws Exception {
         DataTestHelper.clearSessionData();
@@ -679,6 +899,33 @@ public class ServiceTest {
         });
     }
 
+    @Test
+    public void isTyping_throttled() throws Exception {
+
+        final List<Boolean> sent = new ArrayList<>();
+        TestScheduler scheduler = new TestScheduler();
+        TypingController controller = new TypingController((conversationId, isTyping) -> {
+            sent.add(isTyping);
+            return Observable.just(new ComapiResult<Void>(null, true, null, 200, null, null));
+        }, 3000, 5000, scheduler, log);
+
+        // keystrokes every second
+        for (int i = 0; i < 4; i++) {
+            assertTrue(controller.setTyping("conversationId", true).toBlocking().single().isSuccessful());
+            scheduler.advanceTimeBy(1, TimeUnit.SECONDS);
+        }
+        assertEquals(2, sent.size());
+
+        // stopped typing, typing off sent automatically
+        scheduler.advanceTimeBy(5, TimeUnit.SECONDS);
+        assertEquals(3, sent.size());
+        assertFalse(sent.get(2));
+
+        // redundant
+        controller.setTyping("conversationId", false).toBlocking().single();
+        assertEquals(3, sent.size());
+    }
+
     @Test
     public void isTyping_sessionCreateInProgress() throws Exception {
         isCreateSessionInProgress.set(true);
@@ -748,7 +995,7 @@ public class ServiceTest {
     @Test
     public void createConversation_sessionCreateInProgress() throws Exception {
         isCreateSessionInProgress.set(true);
-        service.createConversation(com.comapi.internal.network.model.conversation.ConversationCreate.builder().build()).timeout(3, TimeUnit.SECONDS).toBlocking().subscribe(getEmptyObserver());
+        service.createConversation(com.comapi.internal.network.model.conversation.ConversationCreate.builder().build()).subscribe(getEmptyObserver());
         assertEquals(1, service.getTaskQueue().queue.size());
         isCreateSessionInProgress.set(false);
         service.getTaskQueue().executePending();
@@ -1132,6 +1379,98 @@ public class ServiceTest {
             assertEquals(200, response.getCode());
             assertNotNull(response.getETag());
         });
+
+        // internal priority header is not sent to the server
+        assertNull(server.takeRequest().getHeader(CallPriority.HEADER));
+    }
+
+    @Test
+    public void updateMessageStatus_batched() throws Exception {
+
+        server.enqueue(new MockResponse().setResponseCode(200));
+
+        List<MessageStatusUpdate> delivered = new ArrayList<>();
+        delivered.add(MessageStatusUpdate.builder().setStatus(MessageStatus.delivered).addMessageId("id1").addMessageId("id2").build());
+        List<MessageStatusUpdate> read = new ArrayList<>();
+        read.add(MessageStatusUpdate.builder().setStatus(MessageStatus.read).addMessageId("id1").build());
+
+        List<ComapiResult<Void>> results = Observable.merge(service.updateMessageStatus("someId", delivered), service.updateMessageStatus("someId", read))
+                .timeout(5, TimeUnit.SECONDS).toList().toBlocking().single();
+
+        assertEquals(2, results.size());
+        assertEquals(200, results.get(0).getCode());
+        assertEquals(1, server.getRequestCount());
+        String body = server.takeRequest().getBody().readUtf8();
+        assertEquals(1, body.split("\"id1\"").length - 1);
+        assertTrue(body.contains("\"read\""));
+    }
+
+    @Test
+    public void updateMessageStatus_mergeKeepsTimestamps() {
+
+        List<MessageStatusUpdate> updates = new ArrayList<>();
+        updates.add(MessageStatusUpdate.builder().setStatus(MessageStatus.delivered).addMessageId("id1").addMessageId("id2").setTimestamp("t1").build());
+        updates.add(MessageStatusUpdate.builder().setStatus(MessageStatus.delivered).addMessageId("id3").setTimestamp("t2").build());
+        updates.add(MessageStatusUpdate.builder().setStatus(MessageStatus.read).addMessageId("id1").setTimestamp("t3").build());
+
+        List<MessageStatusUpdate> merged = MessageStatusMerger.merge(updates);
+
+        assertEquals(3, merged.size());
+        Map<String, MessageStatusUpdate> byTimestamp = new HashMap<>();
+        for (MessageStatusUpdate update : merged) {
+            byTimestamp.put(update.getTimestamp(), update);
+        }
+        assertEquals(MessageStatus.delivered.name(), byTimestamp.get("t1").getStatus());
+        assertEquals(Collections.singleton("id2"), byTimestamp.get("t1").getMessageIds());
+        assertEquals(MessageStatus.delivered.name(), byTimestamp.get("t2").getStatus());
+        assertEquals(Collections.singleton("id3"), byTimestamp.get("t2").getMessageIds());
+        assertEquals(MessageStatus.read.name(), byTimestamp.get("t3").getStatus());
+        assertEquals(Collections.singleton("id1"), byTimestamp.get("t3").getMessageIds());
+    }
+
+    @Test
+    public void updateMessageStatus_flushOnBackground() throws Exception {
+
+        server.enqueue(new MockResponse().setResponseCode(200));
+
+        List<MessageStatusUpdate> read = new ArrayList<>();
+        read.add(MessageStatusUpdate.builder().setStatus(MessageStatus.read).addMessageId("id1").build());
+        service.updateMessageStatus("someId", read).subscribe(getEmptyObserver());
+        assertEquals(0, server.getRequestCount());
+
+        service.createLifecycleListener().onBackgrounded(application);
+        assertNotNull(server.takeRequest(500, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void updateMessageStatus_flushedBeforeEndSession() throws Exception {
+
+        final List<String> calls = Collections.synchronizedList(new ArrayList<>());
+        server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+                if ("DELETE".equals(request.getMethod())) {
+                    calls.add("endSession");
+                    return new MockResponse().setResponseCode(204);
+                }
+                calls.add("statusStarted");
+                Thread.sleep(300);
+                calls.add("statusFinished");
+                return new MockResponse().setResponseCode(200);
+            }
+        });
+
+        List<MessageStatusUpdate> read = new ArrayList<>();
+        read.add(MessageStatusUpdate.builder().setStatus(MessageStatus.read).addMessageId("id1").build());
+        service.updateMessageStatus("someId", read).subscribe(getEmptyObserver());
+
+        Observable<ComapiResult<Void>> endSession = service.endSession();
+        // nothing is sent until subscribed
+        assertEquals(0, server.getRequestCount());
+
+        ComapiResult<Void> result = endSession.timeout(5, TimeUnit.SECONDS).toBlocking().single();
+        assertEquals(204, result.getCode());
+        assertEquals(Arrays.asList("statusStarted", "statusFinished", "endSession"), calls);
     }
 
     @Test
@@ -1485,6 +1824,192 @@ public class ServiceTest {
         });
     }
 
+    @Test
+    public void uploadContent_streamWithProgress() throws Exception {
+
+        server.enqueue(ResponseTestHelper.createMockResponse(this, "rest_upload_content.json", 200));
+
+        final byte[] data = new byte[300 * 1024];
+        final List<Long> progress = new ArrayList<>();
+        ContentData content = ContentData.create(new ByteArrayInputStream(data), data.length, "video/mp4", "name")
+                .setProgressListener((bytesWritten, contentLength) -> {
+                    assertEquals(data.length, contentLength);
+                    progress.add(bytesWritten);
+                });
+
+        service.uploadContent("folder", content).toBlocking().forEach(response -> assertEquals(200, response.getCode()));
+
+        assertEquals(data.length, server.takeRequest().getBodySize());
+        assertTrue(progress.size() > 1);
+        assertEquals(Long.valueOf(data.length), progress.get(progress.size() - 1));
+    }
+
+    @Test
+    public void uploadContent_streamNotRetried() throws Exception {
+
+        server.enqueue(new MockResponse().setResponseCode(503).addHeader("Retry-After", "0"));
+        server.enqueue(ResponseTestHelper.createMockResponse(this, "rest_upload_content.json", 200));
+
+        final byte[] data = new byte[1024];
+        ComapiResult<UploadContentResponse> result = service.uploadContent("folder", ContentData.create(new ByteArrayInputStream(data), data.length, "video/mp4", "name")).toBlocking().single();
+
+        assertEquals(503, result.getCode());
+        assertEquals(1, server.getRequestCount());
+    }
+
+    @Test
+    public void uploadContent_uriUnknownLength() throws Exception {
+
+        server.enqueue(ResponseTestHelper.createMockResponse(this, "rest_upload_content.json", 200));
+
+        final byte[] data = new byte[100 * 1024];
+        Uri uri = Uri.parse("content://com.comapi.test/video");
+        shadowOf(RuntimeEnvironment.application.getContentResolver()).registerInputStreamSupplier(uri, () -> new ByteArrayInputStream(data));
+
+        service.uploadContent("folder", ContentData.create(RuntimeEnvironment.application, uri, "video/mp4", "name")).toBlocking().forEach(response -> assertEquals(200, response.getCode()));
+
+        RecordedRequest request = server.takeRequest();
+        assertEquals(data.length, request.getBodySize());
+        assertEquals("chunked", request.getHeader("Transfer-Encoding"));
+    }
+
+    @Test
+    public void uploadContent_identicalContentDeduplicated() throws Exception {
+
+        server.enqueue(ResponseTestHelper.createMockResponse(this, "rest_upload_content.json", 200));
+        server.enqueue(ResponseTestHelper.createMockResponse(this, "rest_upload_content.json", 200));
+        server.enqueue(ResponseTestHelper.createMockResponse(this, "rest_upload_content.json", 200));
+        server.enqueue(ResponseTestHelper.createMockResponse(this, "rest_upload_content.json", 200));
+
+        final byte[] data = new byte[100 * 1024];
+        data[0] = 1;
+
+        ComapiResult<UploadContentResponse> first = service.uploadContent("folder", ContentData.create(data, "image/jpeg", "name")).toBlocking().first();
+        ComapiResult<UploadContentResponse> second = service.uploadContent("folder", ContentData.create(data.clone(), "image/jpeg", "other")).toBlocking().first();
+
+        assertEquals(1, server.getRequestCount());
+        assertTrue(second.isSuccessful());
+        assertEquals(first.getResult().getId(), second.getResult().getId());
+        assertEquals(first.getResult().getUrl(), second.getResult().getUrl());
+
+        service.uploadContent("otherFolder", ContentData.create(data, "image/jpeg", "name")).toBlocking().first();
+        assertEquals(2, server.getRequestCount());
+
+        // content uploaded by a different profile is never reused
+        dataMgr.getSessionDAO().updateSessionDetails(new SessionData().setProfileId("otherProfileId").setSessionId(DataTestHelper.SESSION_ID).setAccessToken(DataTestHelper.ACCESS_TOKEN).setExpiresOn(Long.MAX_VALUE));
+        service.uploadContent("folder", ContentData.create(data, "image/jpeg", "name")).toBlocking().first();
+        assertEquals(3, server.getRequestCount());
+
+        InternalService noDedupe = new InternalService(new CallbackAdapter(), dataMgr, pushMgr, API_SPACE_ID, "packageName", new NetworkConfig().setUploadDedupeTtlSeconds(0), log);
+        RestApi noDedupeApi = noDedupe.initialiseRestClient(LogLevel.DEBUG.getValue(), baseURIs);
+        noDedupe.initialiseSessionController(new SessionCreateManager(isCreateSessionInProgress), pushMgr, comapiState, authenticator, noDedupeApi, new Handler(Looper.getMainLooper()), true, new StateListener() {
+        });
+        noDedupe.uploadContent("folder", ContentData.create(data, "image/jpeg", "name")).toBlocking().first();
+        assertEquals(4, server.getRequestCount());
+    }
+
+    @Test
+    public void fetchAttachment_cached() throws Exception {
+
+        server.enqueue(new MockResponse().setResponseCode(200).setBody("attachment"));
+
+        String url = server.url("/content/file.txt").toString();
+        File file = service.fetchAttachment(RuntimeEnvironment.application, url).toBlocking().single();
+        assertEquals("attachment", Okio.buffer(Okio.source(file)).readUtf8());
+        assertNull(server.takeRequest().getHeader("Authorization"));
+        // downloaded outside of the SDK interceptors
+        assertTrue(service.getNetworkMetrics().getEndpoints().isEmpty());
+
+        assertEquals(file, service.fetchAttachment(RuntimeEnvironment.application, url).toBlocking().single());
+        assertEquals(1, server.getRequestCount());
+    }
+
+    @Test
+    public void resumableUpload_resumedAfterPartFailure() throws Exception {
+
+        final byte[] data = new byte[200 * 1024];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) i;
+        }
+        Uri uri = Uri.parse("content://com.comapi.test/resumable");
+        shadowOf(RuntimeEnvironment.application.getContentResolver()).registerInputStreamSupplier(uri, () -> new ByteArrayInputStream(data));
+        shadowOf(RuntimeEnvironment.application.getContentResolver()).setCursor(uri, new SizeCursor(data.length));
+
+        // local stand-in for a backend supporting multipart uploads
+        final Map<Integer, byte[]> parts = new HashMap<>();
+        final AtomicBoolean failPart = new AtomicBoolean(true);
+        PartUploader uploader = new PartUploader() {
+            @Override
+            public Observable<String> begin(@NonNull String folder, String name, @NonNull String type, long length) {
+                return Observable.just("uploadId");
+            }
+
+            @Override
+            public Observable<Void> uploadPart(@NonNull String uploadId, int index, long offset, @NonNull RequestBody part) {
+                return Observable.fromCallable(() -> {
+                    if (index == 2 && failPart.getAndSet(false)) {
+                        throw new IllegalStateException("part rejected");
+                    }
+                    Buffer buffer = new Buffer();
+                    part.writeTo(buffer);
+                    synchronized (parts) {
+                        parts.put(index, buffer.readByteArray());
+                    }
+                    return null;
+                });
+            }
+
+            @Override
+            public Observable<UploadContentResponse> complete(@NonNull String uploadId, int partCount) {
+                return Observable.just(new Gson().fromJson("{\"id\":\"id\",\"folder\":\"folder\"}", UploadContentResponse.class));
+            }
+        };
+
+        InternalService service = new InternalService(new CallbackAdapter(), dataMgr, pushMgr, API_SPACE_ID, "packageName", new NetworkConfig().setPartUploader(uploader).setUploadPartSize(64 * 1024).setUploadPartsConcurrency(1), log);
+
+        ResumableUpload upload = service.createResumableUpload(RuntimeEnvironment.application, "folder", uri, "video/mp4", "name");
+        assertEquals(data.length, upload.getLength());
+        try {
+            upload.start().toBlocking().single();
+            fail();
+        } catch (IllegalStateException e) {
+            assertEquals(2 * 64 * 1024, upload.getUploadedBytes());
+        }
+
+        List<ResumableUpload> pending = service.getResumableUploads(RuntimeEnvironment.application);
+        assertEquals(1, pending.size());
+        assertEquals(2 * 64 * 1024, pending.get(0).getUploadedBytes());
+        parts.clear();
+
+        ComapiResult<UploadContentResponse> result = pending.get(0).start().toBlocking().single();
+        assertTrue(result.isSuccessful());
+        assertEquals("id", result.getResult().getId());
+        assertEquals(2, parts.size());
+        assertEquals(64 * 1024, parts.get(2).length);
+        assertEquals(8 * 1024, parts.get(3).length);
+        assertEquals(data[3 * 64 * 1024 + 1], parts.get(3)[1]);
+        assertTrue(service.getResumableUploads(RuntimeEnvironment.application).isEmpty());
+    }
+
+    @Test
+    public void resumableUpload_discardedForDifferentProfile() throws Exception {
+
+        Uri uri = Uri.parse("content://com.comapi.test/other");
+        shadowOf(RuntimeEnvironment.application.getContentResolver()).registerInputStreamSupplier(uri, () -> new ByteArrayInputStream(new byte[16]));
+        shadowOf(RuntimeEnvironment.application.getContentResolver()).setCursor(uri, new SizeCursor(16));
+
+        InternalService service = new InternalService(new CallbackAdapter(), dataMgr, pushMgr, API_SPACE_ID, "packageName", new NetworkConfig(), log);
+
+        ResumableUpload upload = service.createResumableUpload(RuntimeEnvironment.application, "folder", uri, "text/plain", "name");
+        assertEquals(1, service.getResumableUploads(RuntimeEnvironment.application).size());
+        assertEquals(upload.getId(), service.getResumableUploads(RuntimeEnvironment.application).get(0).getId());
+
+        dataMgr.getSessionDAO().updateSessionDetails(new SessionData().setProfileId("otherProfileId").setSessionId("otherSessionId").setAccessToken("otherAccessToken").setExpiresOn(Long.MAX_VALUE));
+
+        assertTrue(service.getResumableUploads(RuntimeEnvironment.application).isEmpty());
+        assertNull(dataMgr.getUploadDAO().get(upload.getId()));
+    }
+
     @Test
     public void uploadContent_string() throws Exception {
 
@@ -1535,10 +2060,221 @@ public class ServiceTest {
         uploadContent_string();
     }
 
+    @Test
+    public void taskQueue_boundedParallelism() throws Exception {
+
+        ServiceQueue.TaskQueue queue = new InternalService(new CallbackAdapter(), dataMgr, pushMgr, API_SPACE_ID, "packageName", new NetworkConfig().setPendingCallsConcurrency(2), log).getTaskQueue();
+
+        List<PublishSubject<String>> calls = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            PublishSubject<String> call = PublishSubject.create();
+            calls.add(call);
+            queue.enqueue(null, token -> call).subscribe();
+        }
+        assertEquals(3, queue.queue.size());
+
+        queue.executePending();
+        assertEquals(1, queue.queue.size());
+        assertTrue(calls.get(0).hasObservers());
+        assertTrue(calls.get(1).hasObservers());
+        assertFalse(calls.get(2).hasObservers());
+
+        calls.get(0).onCompleted();
+        assertEquals(0, queue.queue.size());
+        assertTrue(calls.get(2).hasObservers());
+    }
+
+    @Test
+    public void taskQueue_sameKeyInOrder() throws Exception {
+
+        ServiceQueue.TaskQueue queue = service.getTaskQueue();
+
+        PublishSubject<String> first = PublishSubject.create();
+        PublishSubject<String> second = PublishSubject.create();
+        PublishSubject<String> other = PublishSubject.create();
+        queue.enqueue("conversation:1", token -> first).subscribe(o -> {}, e -> {});
+        queue.enqueue("conversation:1", token -> second).subscribe();
+        queue.enqueue("conversation:2", token -> other).subscribe();
+
+        queue.executePending();
+        assertEquals(1, queue.queue.size());
+        assertTrue(first.hasObservers());
+        assertFalse(second.hasObservers());
+        assertTrue(other.hasObservers());
+
+        first.onError(new Exception());
+        assertEquals(0, queue.queue.size());
+        assertTrue(second.hasObservers());
+    }
+
+    @Test
+    public void outbox_replay() throws Exception {
+
+        server.enqueue(ResponseTestHelper.createMockResponse(this, "rest_message_sent.json", 200).addHeader("ETag", "eTag"));
+        server.enqueue(new MockResponse().setResponseCode(200));
+
+        MessageToSend msg = MessageToSend.builder().addPart(Part.builder().setData("data").build()).build();
+        dataMgr.getOutboxDAO().add(new OutboxEntry(OutboxEntry.TYPE_MESSAGE, DataTestHelper.PROFILE_ID, "someId", new Gson().toJson(msg)));
+        List<MessageStatusUpdate> updates1 = new ArrayList<>();
+        updates1.add(MessageStatusUpdate.builder().addMessageId("id1").addMessageId("id2").setStatus(MessageStatus.delivered).build());
+        dataMgr.getOutboxDAO().add(new OutboxEntry(OutboxEntry.TYPE_STATUS, DataTestHelper.PROFILE_ID, "someId", new Gson().toJson(updates1)));
+        List<MessageStatusUpdate> updates2 = new ArrayList<>();
+        updates2.add(MessageStatusUpdate.builder().addMessageId("id1").setStatus(MessageStatus.read).build());
+        dataMgr.getOutboxDAO().add(new OutboxEntry(OutboxEntry.TYPE_STATUS, DataTestHelper.PROFILE_ID, "someId", new Gson().toJson(updates2)));
+        // previous user
+        dataMgr.getOutboxDAO().add(new OutboxEntry(OutboxEntry.TYPE_MESSAGE, "otherProfileId", "someId", new Gson().toJson(msg)));
+
+        service.getTaskQueue().replayOutbox();
+        // already queued, not added again
+        service.getTaskQueue().replayOutbox();
+        assertEquals(2, service.getTaskQueue().queue.size());
+
+        service.getTaskQueue().executePending();
+
+        // background status updates don't wait for the interactive message, the requests can arrive in any order
+        RecordedRequest first = server.takeRequest(3, TimeUnit.SECONDS);
+        RecordedRequest second = server.takeRequest(3, TimeUnit.SECONDS);
+        assertNotNull(first);
+        assertNotNull(second);
+        RecordedRequest statuses = first.getPath().endsWith("/statusupdates") ? first : second;
+        RecordedRequest sent = statuses == first ? second : first;
+        assertTrue(sent.getPath().endsWith("/conversations/someId/messages"));
+        assertTrue(statuses.getPath().endsWith("/conversations/someId/messages/statusupdates"));
+        String body = statuses.getBody().readUtf8();
+        assertEquals(1, body.split("\"id1\"").length - 1);
+        assertEquals(1, body.split("\"id2\"").length - 1);
+        assertNull(server.takeRequest(500, TimeUnit.MILLISECONDS));
+
+        for (int i = 0; i < 30 && !dataMgr.getOutboxDAO().entries().isEmpty(); i++) {
+            Thread.sleep(100);
+        }
+        assertEquals(0, dataMgr.getOutboxDAO().entries().size());
+    }
+
+    @Test
+    public void outbox_journalQueuedMessage() throws Exception {
+
+        isCreateSessionInProgress.set(true);
+        service.sendMessage("someId", "body").timeout(3, TimeUnit.SECONDS).subscribe(getEmptyObserver());
+        assertEquals(1, dataMgr.getOutboxDAO().entries().size());
+        assertEquals(OutboxEntry.TYPE_MESSAGE, dataMgr.getOutboxDAO().entries().get(0).getType());
+        assertEquals("someId", dataMgr.getOutboxDAO().entries().get(0).getConversationId());
+    }
+
+    @Test
+    public void taskQueue_priorities() throws Exception {
+
+        ServiceQueue.TaskQueue queue = new InternalService(new CallbackAdapter(), dataMgr, pushMgr, API_SPACE_ID, "packageName", new NetworkConfig().setPendingCallsConcurrency(1), log).getTaskQueue();
+
+        List<String> order = new ArrayList<>();
+        queue.enqueue(CallPriority.BACKGROUND, "conversation:1", null, token -> Observable.just("status")).subscribe(order::add);
+        queue.enqueue(CallPriority.NORMAL, "conversation:2", null, token -> Observable.just("update")).subscribe(order::add);
+        queue.enqueue(CallPriority.INTERACTIVE, "conversation:2", null, token -> Observable.just("message2")).subscribe(order::add);
+        queue.enqueue(CallPriority.INTERACTIVE, "conversation:1", null, token -> Observable.just("message1")).subscribe(order::add);
+
+        queue.executePending();
+
+        assertEquals(0, queue.queue.size());
+        assertEquals(4, order.size());
+        // interactive first, but never ahead of a call with the same key queued earlier, background last
+        assertEquals("message1", order.get(0));
+        assertEquals("update", order.get(1));
+        assertEquals("message2", order.get(2));
+        assertEquals("status", order.get(3));
+    }
+
+    @Test
+    public void taskQueue_unsubscribeRemovesTask() throws Exception {
+
+        isCreateSessionInProgress.set(true);
+        Subscription subscription = service.getConversation("conversationId").subscribe(getEmptyObserver());
+        assertEquals(1, service.getTaskQueue().queue.size());
+        subscription.unsubscribe();
+        assertEquals(0, service.getTaskQueue().queue.size());
+    }
+
+    @Test
+    public void taskQueue_unsubscribeKeepsJournaledTask() throws Exception {
+
+        server.enqueue(ResponseTestHelper.createMockResponse(this, "rest_message_sent.json", 200).addHeader("ETag", "eTag"));
+
+        isCreateSessionInProgress.set(true);
+        Subscription subscription = service.sendMessage("someId", "body").subscribe(getEmptyObserver());
+        subscription.unsubscribe();
+        assertEquals(1, service.getTaskQueue().queue.size());
+        assertEquals(1, dataMgr.getOutboxDAO().entries().size());
+
+        service.getTaskQueue().executePending();
+
+        RecordedRequest sent = server.takeRequest(3, TimeUnit.SECONDS);
+        assertNotNull(sent);
+        assertTrue(sent.getPath().contains("/conversations/someId/messages"));
+        for (int i = 0; i < 30 && !dataMgr.getOutboxDAO().entries().isEmpty(); i++) {
+            Thread.sleep(100);
+        }
+        assertEquals(0, dataMgr.getOutboxDAO().entries().size());
+    }
+
+    @Test
+    public void taskQueue_failPending() throws Exception {
+
+        isCreateSessionInProgress.set(true);
+        final List<Throwable> errors = new ArrayList<>();
+        service.getConversation("conversationId").subscribe(result -> fail(), errors::add);
+        service.getParticipants("conversationId").subscribe(result -> fail(), errors::add);
+        assertEquals(2, service.getTaskQueue().queue.size());
+
+        service.getTaskQueue().failPending(new Exception("auth failed"));
+
+        assertEquals(0, service.getTaskQueue().queue.size());
+        assertEquals(2, errors.size());
+        assertTrue(errors.get(0) instanceof ComapiException);
+        assertEquals("auth failed", errors.get(0).getCause().getMessage());
+    }
+
+    @Test
+    public void taskQueue_maxWait() throws Exception {
+
+        TestScheduler clock = new TestScheduler();
+        ServiceQueue.TaskQueue queue = service.new TaskQueue(1, TimeUnit.SECONDS.toMillis(1), clock);
+
+        final List<Throwable> errors = new ArrayList<>();
+        final List<String> results = new ArrayList<>();
+        queue.enqueue(null, token -> Observable.just("stale")).subscribe(results::add, errors::add);
+        clock.advanceTimeBy(1100, TimeUnit.MILLISECONDS);
+        queue.enqueue(null, token -> Observable.just("fresh")).subscribe(results::add, errors::add);
+
+        queue.executePending();
+
+        assertEquals(0, queue.queue.size());
+        assertEquals(1, errors.size());
+        assertEquals(1, results.size());
+        assertEquals("fresh", results.get(0));
+    }
+
+    @Test
+    public void appOkHttpClient() throws Exception {
+
+        OkHttpClient appClient = new OkHttpClient.Builder()
+                .addInterceptor(chain -> chain.proceed(chain.request().newBuilder().header("X-App", "app").build()))
+                .build();
+
+        InternalService service = new InternalService(new CallbackAdapter(), dataMgr, pushMgr, API_SPACE_ID, "packageName", new NetworkConfig().setOkHttpClient(appClient).setReadTimeoutSeconds(10), log);
+        RestApi restApi = service.initialiseRestClient(LogLevel.DEBUG.getValue(), baseURIs);
+        service.initialiseSessionController(new SessionCreateManager(isCreateSessionInProgress), pushMgr, comapiState, authenticator, restApi, new Handler(Looper.getMainLooper()), true, new StateListener() {
+        });
+
+        server.enqueue(ResponseTestHelper.createMockResponse(this, "rest_profile_get.json", 200).addHeader("ETag", "eTag"));
+        service.getProfile("profileId").toBlocking().forEach(response -> assertEquals(200, response.getCode()));
+
+        assertEquals("app", server.takeRequest().getHeader("X-App"));
+    }
+
     @After
     public void tearDown() throws Exception {
         DataTestHelper.clearDeviceData();
         DataTestHelper.clearSessionData();
+        dataMgr.getOutboxDAO().clearOutbox();
         server.shutdown();
         pushMgr.unregisterPushReceiver(RuntimeEnvironment.application);
     }
@@ -1562,4 +2298,40 @@ public class ServiceTest {
             }
         };
     }
+
+    /**
+     * Content provider query result reporting only the size of the content.
+     */
+    private static class SizeCursor extends BaseCursor {
+
+        private final long size;
+
+        SizeCursor(long size) {
+            this.size = size;
+        }
+
+        @Override
+        public boolean moveToFirst() {
+            return true;
+        }
+
+        @Override
+        public boolean isNull(int columnIndex) {
+            return columnIndex != 0;
+        }
+
+        @Override
+        public long getLong(int columnIndex) {
+            return size;
+        }
+
+        @Override
+        public String getString(int columnIndex) {
+            return null;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
 }
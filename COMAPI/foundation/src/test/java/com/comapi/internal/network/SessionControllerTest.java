@@ -51,10 +51,23 @@ import org.robolectric.annotation.Config;
 import org.robolectric.annotation.LooperMode;
 
 import java.net.URI;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.internal.http.HttpDate;
 import okhttp3.mockwebserver.MockResponse;
 import okhttp3.mockwebserver.MockWebServer;
 import rx.Observable;
@@ -253,6 +266,62 @@ public class SessionControllerTest {
         assertNull(sessionController.reAuthenticate().toBlocking().first());
     }
 
+    @Test
+    public void authenticator_singleFlightRefresh() throws Exception {
+
+        final AtomicInteger refreshCount = new AtomicInteger();
+        final AtomicReference<String> currentToken = new AtomicReference<>("old");
+        OkHttpAuthenticator okHttpAuthenticator = new OkHttpAuthenticator(new AuthManager() {
+            @Override
+            protected Observable<SessionData> restartSession() {
+                refreshCount.incrementAndGet();
+                return Observable.just(new SessionData().setAccessToken("new")).delay(300, TimeUnit.MILLISECONDS).doOnNext(session -> currentToken.set(session.getAccessToken()));
+            }
+
+            @Override
+            protected String getAccessToken() {
+                return currentToken.get();
+            }
+        });
+
+        final Response unauthorised = new Response.Builder()
+                .request(new Request.Builder().url(server.url("/")).header("Authorization", AuthManager.addAuthPrefix("old")).build())
+                .protocol(Protocol.HTTP_1_1).code(401).message("Unauthorized").build();
+
+        ExecutorService executor = Executors.newFixedThreadPool(10);
+        List<Future<Request>> retries = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            retries.add(executor.submit(() -> okHttpAuthenticator.authenticate(null, unauthorised)));
+        }
+        for (Future<Request> retry : retries) {
+            assertEquals(AuthManager.addAuthPrefix("new"), retry.get(3, TimeUnit.SECONDS).header("Authorization"));
+        }
+        executor.shutdown();
+        assertEquals(1, refreshCount.get());
+
+        // request sent with the old token after the refresh is retried without another refresh
+        assertEquals(AuthManager.addAuthPrefix("new"), okHttpAuthenticator.authenticate(null, unauthorised).header("Authorization"));
+        assertEquals(1, refreshCount.get());
+    }
+
+    @Test
+    public void serverClock_offsetFromDateHeader() throws Exception {
+
+        final long skew = TimeUnit.HOURS.toMillis(1);
+        ServerClock clock = new ServerClock();
+        OkHttpClient client = new OkHttpClient.Builder().addInterceptor(clock).build();
+
+        server.enqueue(new MockResponse().setResponseCode(200).setHeader("Date", HttpDate.format(new Date(System.currentTimeMillis() + skew))));
+        client.newCall(new Request.Builder().url(server.url("/")).build()).execute().close();
+
+        assertTrue(Math.abs(clock.getOffset() - skew) < 2000);
+        assertTrue(Math.abs(clock.currentTimeMillis() - System.currentTimeMillis() - skew) < 2000);
+
+        // samples with a long round trip are ignored
+        clock.update(System.currentTimeMillis(), 0, TimeUnit.MINUTES.toMillis(1));
+        assertTrue(Math.abs(clock.getOffset() - skew) < 2000);
+    }
+
     @Test(expected = RuntimeException.class)
     public void startSession_nullProfileId() {
         sessionController.startSession().toBlocking().first();
@@ -0,0 +1,125 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Comapi (trading name of Dynmark International Limited)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons
+ * to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.comapi.internal.network.sockets;
+
+import android.os.Build;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertTrue;
+import static org.junit.Assert.assertNotEquals;
+
+/**
+ * Tests for delivering socket events on serial lanes per conversation.
+ *
+ * @author Marcin Swierczek
+ * @since 1.8.0
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = Build.VERSION_CODES.P)
+public class ShardedEventExecutorTest {
+
+    @Test
+    public void conversationEvents_orderedWithinLane() throws Exception {
+
+        ShardedEventExecutor executor = new ShardedEventExecutor(4, Executors.newFixedThreadPool(4));
+
+        final List<Integer> first = Collections.synchronizedList(new ArrayList<>());
+        final List<Integer> second = Collections.synchronizedList(new ArrayList<>());
+        final CountDownLatch done = new CountDownLatch(2000);
+
+        for (int i = 0; i < 1000; i++) {
+            final int index = i;
+            executor.execute("conversation1", () -> {
+                first.add(index);
+                done.countDown();
+            });
+            executor.execute("conversation2", () -> {
+                second.add(index);
+                done.countDown();
+            });
+        }
+
+        assertTrue(done.await(10, TimeUnit.SECONDS));
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i, first.get(i).intValue());
+            assertEquals(i, second.get(i).intValue());
+        }
+        assertEquals(0, executor.getLaneDepth(executor.getLane("conversation1")));
+    }
+
+    @Test
+    public void blockedLane_otherLanesDelivered() throws Exception {
+
+        ShardedEventExecutor executor = new ShardedEventExecutor(2, Executors.newFixedThreadPool(2));
+
+        String blocked = "conversation1";
+        String other = "conversation2";
+        int suffix = 2;
+        while (executor.getLane(other) == executor.getLane(blocked)) {
+            other = "conversation" + ++suffix;
+        }
+        assertNotEquals(executor.getLane(blocked), executor.getLane(other));
+
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch delivered = new CountDownLatch(1);
+        executor.execute(blocked, () -> {
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        executor.execute(blocked, () -> {
+        });
+        executor.execute(blocked, () -> {
+        });
+        executor.execute(other, delivered::countDown);
+
+        assertTrue(delivered.await(5, TimeUnit.SECONDS));
+        assertEquals(3, executor.getLaneDepth(executor.getLane(blocked)));
+        assertEquals(3, executor.getMaxLaneDepth(executor.getLane(blocked)));
+
+        release.countDown();
+        for (int i = 0; i < 50 && executor.getLaneDepth(executor.getLane(blocked)) > 0; i++) {
+            Thread.sleep(100);
+        }
+        assertEquals(0, executor.getLaneDepth(executor.getLane(blocked)));
+        assertEquals(3, executor.getMaxLaneDepth(executor.getLane(blocked)));
+    }
+
+    @Test
+    public void noKey_firstLane() {
+        ShardedEventExecutor executor = EventExecutors.sharded(4);
+        assertEquals(4, executor.getLaneCount());
+        assertEquals(0, executor.getLane(null));
+    }
+}
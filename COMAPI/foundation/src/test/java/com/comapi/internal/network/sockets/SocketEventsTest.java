@@ -61,10 +61,20 @@ import static org.robolectric.Shadows.shadowOf;
 
 import java.io.IOException;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import rx.schedulers.Schedulers;
 
 import static junit.framework.TestCase.assertTrue;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
 
 /**
  * Robolectric tests for parsing and dispatching events.
@@ -280,6 +290,104 @@ public class SocketEventsTest {
         assertNotNull(receiver.delivered.toString());
     }
 
+    @Test
+    public void dispatchRead_sdkThread() throws Exception {
+
+        final Executor sdkThread = EventExecutors.sdkThread();
+        // re-initialised clients share the thread
+        assertSame(sdkThread, EventExecutors.sdkThread());
+        final CountDownLatch latch = new CountDownLatch(1);
+        final AtomicReference<Thread> thread = new AtomicReference<>();
+        dispatcher = new SocketEventDispatcher(receiver, new Parser(), command -> sdkThread.execute(() -> {
+            command.run();
+            thread.set(Thread.currentThread());
+            latch.countDown();
+        }));
+
+        dispatcher.onMessage(ResponseTestHelper.readFromFile(this, "message_read.json"));
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertEquals(MessageReadEvent.TYPE, receiver.read.getName());
+        assertNotSame(Looper.getMainLooper().getThread(), thread.get());
+    }
+
+    @Test
+    public void dispatchDelivered_scheduler() throws IOException {
+
+        dispatcher = new SocketEventDispatcher(receiver, new Parser(), EventExecutors.from(Schedulers.immediate()));
+
+        dispatcher.onMessage(ResponseTestHelper.readFromFile(this, "message_delivered.json"));
+        assertEquals(MessageDeliveredEvent.TYPE, receiver.delivered.getName());
+    }
+
+    @Test
+    public void dispatchSent_sharded() throws IOException {
+
+        ShardedEventExecutor executor = new ShardedEventExecutor(4, Runnable::run);
+        dispatcher = new SocketEventDispatcher(receiver, new Parser(), executor);
+
+        dispatcher.onMessage(ResponseTestHelper.readFromFile(this, "message_sent.json"));
+        assertEquals(MessageSentEvent.TYPE, receiver.sent.getName());
+        assertEquals(1, executor.getMaxLaneDepth(executor.getLane(receiver.sent.getContext().getConversationId())));
+    }
+
+    @Test
+    public void dispatch_skipsEventsWithoutSubscribers() throws IOException {
+
+        final AtomicReference<MessageSentEvent> sent = new AtomicReference<>();
+        ListenerListAdapter adapter = new ListenerListAdapter(new Logger(new LogManager(), ""));
+        adapter.addListener(new MessagingListener() {
+            @Override
+            public void onMessage(MessageSentEvent event) {
+                sent.set(event);
+            }
+        });
+        final AtomicInteger dispatched = new AtomicInteger();
+        dispatcher = new SocketEventDispatcher(adapter, new Parser(), command -> {
+            dispatched.incrementAndGet();
+            command.run();
+        });
+
+        dispatcher.onMessage(ResponseTestHelper.readFromFile(this, "is_typing.json"));
+        dispatcher.onMessage(ResponseTestHelper.readFromFile(this, "typing_off.json"));
+        dispatcher.onMessage(ResponseTestHelper.readFromFile(this, "profile_update.json"));
+        dispatcher.onMessage(ResponseTestHelper.readFromFile(this, "socket_info.json"));
+        assertEquals(0, dispatched.get());
+
+        dispatcher.onMessage(ResponseTestHelper.readFromFile(this, "message_sent.json"));
+        assertEquals(1, dispatched.get());
+        assertEquals(MessageSentEvent.TYPE, sent.get().getName());
+    }
+
+    @Test
+    public void subscribedEvents_followListeners() {
+
+        ListenerListAdapter adapter = new ListenerListAdapter(new Logger(new LogManager(), ""));
+        assertFalse(adapter.hasSubscribers(ParticipantTypingEvent.class));
+
+        IMessagingListener typingListener = new MessagingListener() {
+            @Override
+            public void onParticipantIsTyping(ParticipantTypingEvent event) {
+            }
+        };
+        adapter.addListener(typingListener);
+        assertTrue(adapter.hasSubscribers(ParticipantTypingEvent.class));
+        assertFalse(adapter.hasSubscribers(ParticipantTypingOffEvent.class));
+        assertFalse(adapter.hasSubscribers(ProfileUpdateEvent.class));
+
+        adapter.addListener(profileListener);
+        assertFalse(adapter.hasSubscribers(ProfileUpdateEvent.class));
+        adapter.addListener((IProfileListener) event -> {
+        });
+        assertTrue(adapter.hasSubscribers(ProfileUpdateEvent.class));
+
+        adapter.removeListener(typingListener);
+        assertFalse(adapter.hasSubscribers(ParticipantTypingEvent.class));
+
+        // subclasses of the adapter receive all events they handle
+        assertTrue(receiver.hasSubscribers(ParticipantTypingEvent.class));
+        assertTrue(receiver.hasSubscribers(SocketStartEvent.class));
+    }
+
     @Test
     public void dispatchRead() throws IOException {
 
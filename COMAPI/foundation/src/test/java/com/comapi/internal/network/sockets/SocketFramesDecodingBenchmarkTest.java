@@ -0,0 +1,109 @@
+/*
+ * The MIT License (MIT)
+ *
+ * Copyright (c) 2017 Comapi (trading name of Dynmark International Limited)
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this software and associated
+ * documentation files (the "Software"), to deal in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell copies of the Software, and to permit persons
+ * to whom the Software is furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all copies or substantial portions of the
+ * Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED, INCLUDING BUT NOT
+ * LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT.
+ * IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION
+ * WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE SOFTWARE.
+ */
+package com.comapi.internal.network.sockets;
+
+import android.os.Build;
+
+import com.comapi.helpers.BenchmarkHelper;
+import com.comapi.helpers.ResponseTestHelper;
+import com.comapi.internal.Parser;
+import com.comapi.internal.network.model.events.Event;
+import com.comapi.internal.network.model.events.EventTypeAdapterFactory;
+import com.comapi.internal.network.model.events.conversation.message.MessageSentEvent;
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+
+import org.junit.Before;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import static junit.framework.Assert.assertEquals;
+import static junit.framework.Assert.assertNotNull;
+import static junit.framework.Assert.assertTrue;
+
+/**
+ * Compares decoding of socket frames through the json tree with the single pass {@link EventTypeAdapterFactory} used by {@link SocketEventDispatcher}.
+ *
+ * @author Marcin Swierczek
+ * @since 1.8.0
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = Build.VERSION_CODES.P)
+public class SocketFramesDecodingBenchmarkTest {
+
+    private static final String[] FRAMES = new String[]{"message_sent.json", "message_delivered.json", "message_read.json", "participant_added.json",
+            "participant_updated.json", "participant_removed.json", "conversation_update.json", "conversation_delete.json", "conversation_undelete.json",
+            "socket_info.json", "profile_update.json", "is_typing.json", "typing_off.json"};
+
+    private static final int WARM_UP = 2000;
+
+    private static final int ITERATIONS = 20000;
+
+    private Gson gson;
+
+    private String sentFrame;
+
+    @Before
+    public void setUp() throws Exception {
+        gson = Parser.getGson();
+        sentFrame = ResponseTestHelper.readFromFile(this, "message_sent.json");
+    }
+
+    @Test
+    public void decodeFrames_sameResult() throws Exception {
+
+        for (String file : FRAMES) {
+            String frame = ResponseTestHelper.readFromFile(this, file);
+            Event tree = decodeTree(frame);
+            Event stream = decodeStream(frame);
+            assertNotNull(file, stream);
+            assertEquals(file, tree.getClass(), stream.getClass());
+            assertEquals(file, gson.toJson(tree), gson.toJson(stream));
+        }
+    }
+
+    @Test
+    @Ignore("Benchmark, run manually")
+    public void decodeMessageSentFrame_benchmark() {
+
+        assertEquals(MessageSentEvent.class, decodeStream(sentFrame).getClass());
+
+        BenchmarkHelper.Comparison result = BenchmarkHelper.compare("conversationMessage.sent frame of " + sentFrame.length() + " chars, json tree vs single pass", WARM_UP, ITERATIONS, () -> decodeTree(sentFrame), () -> decodeStream(sentFrame));
+
+        assertTrue(result.toString(), result.isNotSlower());
+    }
+
+    /**
+     * Decodes a frame the way the dispatcher used to: json tree first, then the event class chosen by comparing the name.
+     */
+    private Event decodeTree(String frame) {
+        JsonObject object = gson.fromJson(frame, JsonObject.class);
+        String name = object.get(Event.KEY_NAME).getAsString();
+        Class<? extends Event> clazz = EventTypeAdapterFactory.getEventClass(name);
+        return gson.fromJson(object, clazz);
+    }
+
+    private Event decodeStream(String frame) {
+        return gson.fromJson(frame, Event.class);
+    }
+}